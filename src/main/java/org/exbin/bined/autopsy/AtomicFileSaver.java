@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+
+/**
+ * Crash-safe file saver.
+ * <p>
+ * Data is streamed to temporary file next to the target file, verified using
+ * checksum computed while writing, forced to the storage device and then
+ * atomically renamed over the target file. Target file is therefore either
+ * left untouched or fully replaced.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AtomicFileSaver {
+
+    public static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String TEMP_FILE_SUFFIX = ".bined-save";
+
+    private ProgressListener progressListener = null;
+    private volatile boolean cancelled = false;
+
+    public AtomicFileSaver() {
+    }
+
+    public void setProgressListener(@Nullable ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Requests cancellation of running save operation.
+     *
+     * Target file is left untouched if save is cancelled before rename.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Saves binary data to given file.
+     *
+     * @param targetFile target file
+     * @param data binary data
+     * @return save statistics
+     * @throws IOException if save fails or is cancelled
+     */
+    @Nonnull
+    public SaveResult save(File targetFile, BinaryData data) throws IOException {
+        return save(targetFile, data.getDataSize(), data::saveToStream);
+    }
+
+    /**
+     * Saves data provided by writer to given file.
+     *
+     * @param targetFile target file
+     * @param expectedSize expected size of data or -1 if unknown
+     * @param writer data writer
+     * @return save statistics
+     * @throws IOException if save fails or is cancelled
+     */
+    @Nonnull
+    public SaveResult save(File targetFile, long expectedSize, DataWriter writer) throws IOException {
+        long startTime = System.nanoTime();
+        Path targetPath = targetFile.toPath().toAbsolutePath();
+        Path directory = targetPath.getParent();
+        Path tempPath = Files.createTempFile(directory, targetPath.getFileName().toString(), TEMP_FILE_SUFFIX);
+        boolean renamed = false;
+        try {
+            copyFileAttributes(targetPath, tempPath);
+            long checksum;
+            long writtenSize;
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MonitoredOutputStream outputStream = new MonitoredOutputStream(Channels.newOutputStream(channel), expectedSize);
+                writer.write(outputStream);
+                outputStream.flushBuffer();
+                checksum = outputStream.checksum.getValue();
+                writtenSize = outputStream.written;
+                channel.force(true);
+            }
+
+            if (expectedSize >= 0 && writtenSize != expectedSize) {
+                throw new IOException("Written size " + writtenSize + " does not match expected size " + expectedSize);
+            }
+            verifyChecksum(tempPath, checksum);
+            checkCancelled();
+
+            try {
+                Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            renamed = true;
+            forceDirectory(directory);
+
+            return new SaveResult(writtenSize, System.nanoTime() - startTime, checksum);
+        } finally {
+            if (!renamed) {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    private void verifyChecksum(Path tempPath, long expectedChecksum) throws IOException {
+        CRC32 checksum = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(tempPath)) {
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                checkCancelled();
+                checksum.update(buffer, 0, read);
+            }
+        }
+
+        if (checksum.getValue() != expectedChecksum) {
+            throw new IOException("Checksum verification of saved data failed");
+        }
+    }
+
+    private void checkCancelled() throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Save cancelled");
+        }
+    }
+
+    /**
+     * Copies permissions and ownership of the target file to temporary file,
+     * so that they are not replaced by restrictive permissions of temporary
+     * file on rename.
+     *
+     * @param targetPath target file
+     * @param tempPath temporary file
+     */
+    private static void copyFileAttributes(Path targetPath, Path tempPath) throws IOException {
+        if (!Files.exists(targetPath)) {
+            return;
+        }
+
+        PosixFileAttributeView targetView = Files.getFileAttributeView(targetPath, PosixFileAttributeView.class);
+        PosixFileAttributeView tempView = Files.getFileAttributeView(tempPath, PosixFileAttributeView.class);
+        if (targetView != null && tempView != null) {
+            PosixFileAttributes attributes = targetView.readAttributes();
+            tempView.setPermissions(attributes.permissions());
+            try {
+                tempView.setGroup(attributes.group());
+                tempView.setOwner(attributes.owner());
+            } catch (IOException ex) {
+                // Changing ownership requires privileges, file keeps owner of the saving user
+                Logger.getLogger(AtomicFileSaver.class.getName()).log(Level.FINE, null, ex);
+            }
+            return;
+        }
+
+        FileOwnerAttributeView targetOwnerView = Files.getFileAttributeView(targetPath, FileOwnerAttributeView.class);
+        FileOwnerAttributeView tempOwnerView = Files.getFileAttributeView(tempPath, FileOwnerAttributeView.class);
+        if (targetOwnerView != null && tempOwnerView != null) {
+            try {
+                tempOwnerView.setOwner(targetOwnerView.getOwner());
+            } catch (IOException ex) {
+                Logger.getLogger(AtomicFileSaver.class.getName()).log(Level.FINE, null, ex);
+            }
+        }
+    }
+
+    private static void forceDirectory(@Nullable Path directory) {
+        if (directory == null) {
+            return;
+        }
+
+        // Persist rename itself, not supported on all platforms
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            Logger.getLogger(AtomicFileSaver.class.getName()).log(Level.FINE, null, ex);
+        }
+    }
+
+    /**
+     * Buffered output stream computing checksum and reporting progress.
+     */
+    private class MonitoredOutputStream extends FilterOutputStream {
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int bufferUsed = 0;
+        private final CRC32 checksum = new CRC32();
+        private final long expectedSize;
+        private long written = 0;
+
+        public MonitoredOutputStream(OutputStream outputStream, long expectedSize) {
+            super(outputStream);
+            this.expectedSize = expectedSize;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            if (bufferUsed == buffer.length) {
+                flushBuffer();
+            }
+            buffer[bufferUsed++] = (byte) value;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (bufferUsed == buffer.length) {
+                    flushBuffer();
+                }
+                int toCopy = Math.min(length, buffer.length - bufferUsed);
+                System.arraycopy(data, offset, buffer, bufferUsed, toCopy);
+                bufferUsed += toCopy;
+                offset += toCopy;
+                length -= toCopy;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Channel is closed by saver after force
+            flushBuffer();
+        }
+
+        private void flushBuffer() throws IOException {
+            checkCancelled();
+            if (bufferUsed > 0) {
+                out.write(buffer, 0, bufferUsed);
+                checksum.update(buffer, 0, bufferUsed);
+                written += bufferUsed;
+                bufferUsed = 0;
+                if (progressListener != null) {
+                    progressListener.progress(written, expectedSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writer of saved data.
+     */
+    public interface DataWriter {
+
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Listener for save progress.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Reports progress of saving.
+         *
+         * @param written count of bytes written so far
+         * @param total total count of bytes or -1 if unknown
+         */
+        void progress(long written, long total);
+    }
+
+    /**
+     * Statistics of finished save.
+     */
+    @ParametersAreNonnullByDefault
+    public static class SaveResult {
+
+        private final long size;
+        private final long durationNanos;
+        private final long checksum;
+
+        public SaveResult(long size, long durationNanos, long checksum) {
+            this.size = size;
+            this.durationNanos = durationNanos;
+            this.checksum = checksum;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Returns save throughput in megabytes per second.
+         *
+         * @return throughput
+         */
+        public double getThroughput() {
+            if (durationNanos == 0) {
+                return 0;
+            }
+
+            return (size / (1024.0 * 1024.0)) / (durationNanos / 1e9);
+        }
+    }
+}
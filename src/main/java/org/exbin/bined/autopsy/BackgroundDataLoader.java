@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+
+/**
+ * Loader appending data from stream to binary data on background thread.
+ * <p>
+ * Data are read in chunks off the event dispatch thread and each chunk is
+ * appended to the target data on the event dispatch thread, so the already
+ * loaded part can be displayed while loading continues.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BackgroundDataLoader {
+
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final InputStream stream;
+    private final long expectedSize;
+    private final EditableBinaryData targetData;
+    private final LoadingListener listener;
+    private volatile boolean cancelled = false;
+    private Thread loadingThread = null;
+    private final BlockHashes.Builder hashesBuilder = BlockHashes.builder();
+    private volatile BlockHashes blockHashes = null;
+
+    /**
+     * Creates new loader.
+     *
+     * @param stream source stream, closed when loading ends
+     * @param expectedSize expected size of data or -1 if unknown
+     * @param targetData target data to append loaded data to
+     * @param listener loading listener, invoked on event dispatch thread
+     */
+    public BackgroundDataLoader(InputStream stream, long expectedSize, EditableBinaryData targetData, LoadingListener listener) {
+        this.stream = stream;
+        this.expectedSize = expectedSize;
+        this.targetData = targetData;
+        this.listener = listener;
+    }
+
+    public void start() {
+        loadingThread = new Thread(this::load, "BinEd data loader");
+        loadingThread.setDaemon(true);
+        loadingThread.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (loadingThread != null) {
+            loadingThread.interrupt();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns block hashes of loaded data.
+     *
+     * @return block hashes or null if loading was not finished successfully
+     */
+    @Nullable
+    public BlockHashes getBlockHashes() {
+        return blockHashes;
+    }
+
+    private void load() {
+        long loaded = 0;
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            while (!cancelled) {
+                int chunkLength = 0;
+                int read = 0;
+                while (chunkLength < CHUNK_SIZE && (read = stream.read(buffer, chunkLength, CHUNK_SIZE - chunkLength)) >= 0) {
+                    chunkLength += read;
+                }
+
+                if (chunkLength > 0) {
+                    hashesBuilder.update(buffer, 0, chunkLength);
+                    final int appendLength = chunkLength;
+                    final long loadedSize = loaded + chunkLength;
+                    SwingUtilities.invokeAndWait(() -> {
+                        if (!cancelled) {
+                            // Ranged array insert is not reliable for delta document
+                            byte[] chunk = appendLength == buffer.length ? buffer : Arrays.copyOf(buffer, appendLength);
+                            targetData.insert(targetData.getDataSize(), chunk);
+                            listener.chunkLoaded(loadedSize, expectedSize);
+                        }
+                    });
+                    loaded = loadedSize;
+                }
+
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException | InvocationTargetException ex) {
+            Logger.getLogger(BackgroundDataLoader.class.getName()).log(Level.SEVERE, null, ex);
+            cancelled = true;
+        } catch (InterruptedException ex) {
+            cancelled = true;
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ex) {
+                Logger.getLogger(BackgroundDataLoader.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        if (!cancelled) {
+            blockHashes = hashesBuilder.build();
+        }
+        final long loadedSize = loaded;
+        final boolean finishedCancelled = cancelled;
+        SwingUtilities.invokeLater(() -> {
+            listener.loadingFinished(loadedSize, finishedCancelled);
+        });
+    }
+
+    /**
+     * Listener for loading progress.
+     */
+    public interface LoadingListener {
+
+        /**
+         * Reports that next chunk was appended to target data.
+         *
+         * @param loaded loaded size
+         * @param expectedSize expected size or -1 if unknown
+         */
+        void chunkLoaded(long loaded, long expectedSize);
+
+        /**
+         * Reports end of loading.
+         *
+         * @param loaded loaded size
+         * @param cancelled true if loading was cancelled or failed
+         */
+        void loadingFinished(long loaded, boolean cancelled);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+
+/**
+ * Diagnostics of opened binary documents.
+ * <p>
+ * Documents are accessed on event dispatch thread, management calls from
+ * other threads wait for it.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdDiagnostics implements BinEdDiagnosticsMXBean {
+
+    public static final String OBJECT_NAME = "org.exbin.bined.autopsy:type=Diagnostics";
+
+    public BinEdDiagnostics() {
+    }
+
+    @Override
+    public int getOpenDocumentsCount() {
+        return MemoryPressureMonitor.getInstance().getFiles().size();
+    }
+
+    @Override
+    public long getTotalMemoryDataSize() {
+        long total = 0;
+        for (DocumentMemoryInfo info : getDocuments()) {
+            total += info.getMemoryDataSize();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalUndoMemorySize() {
+        long total = 0;
+        for (DocumentMemoryInfo info : getDocuments()) {
+            total += info.getUndoMemorySize();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalCacheMemorySize() {
+        long total = 0;
+        for (DocumentMemoryInfo info : getDocuments()) {
+            total += info.getCacheMemorySize();
+        }
+        return total;
+    }
+
+    @Nonnull
+    @Override
+    public List<DocumentMemoryInfo> getDocuments() {
+        List<DocumentMemoryInfo> documents = new ArrayList<>();
+        Runnable collect = () -> {
+            for (BinEdFile file : MemoryPressureMonitor.getInstance().getFiles()) {
+                documents.add(file.getMemoryInfo());
+            }
+        };
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            collect.run();
+        } else {
+            try {
+                SwingUtilities.invokeAndWait(collect);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (InvocationTargetException ex) {
+                Logger.getLogger(BinEdDiagnostics.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Registers diagnostics to platform management server.
+     */
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new BinEdDiagnostics(), objectName);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(BinEdDiagnostics.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Unregisters diagnostics from platform management server.
+     */
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(BinEdDiagnostics.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.exbin.bined.autopsy;
 
+import java.awt.EventQueue;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.FileInputStream;
@@ -22,27 +25,44 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.exbin.auxiliary.paged_data.BinaryData;
 import org.exbin.auxiliary.paged_data.ByteArrayData;
 import org.exbin.auxiliary.paged_data.EditableBinaryData;
 import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDataPageWindow;
 import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
 import org.exbin.auxiliary.paged_data.delta.FileDataSource;
 import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
 import org.exbin.bined.CodeAreaUtils;
 import org.exbin.bined.EditMode;
+import org.exbin.bined.SelectionRange;
 import org.exbin.bined.autopsy.gui.BinEdComponentFileApi;
 import org.exbin.bined.autopsy.gui.BinEdComponentPanel;
+import org.exbin.bined.autopsy.gui.BinEdProgressPanel;
+import org.exbin.bined.operation.undo.BinaryDataUndoHandler;
 import org.exbin.bined.swing.extended.ExtCodeArea;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.operation.DeltaUndoSnapshot;
+import org.exbin.framework.utils.LanguageUtils;
+import org.openide.awt.StatusDisplayer;
 import org.openide.awt.UndoRedo;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
 import org.openide.util.Exceptions;
 import org.openide.util.Utilities;
@@ -60,6 +80,19 @@ public class BinEdFile implements BinEdComponentFileApi {
     public static final String ACTION_CLIPBOARD_COPY = "copy-to-clipboard";
     public static final String ACTION_CLIPBOARD_PASTE = "paste-from-clipboard";
 
+    private static final String SAVE_STATUS_FORMAT = "Saved %s (%d bytes, %.1f MB/s)";
+    private static final String MEMORY_RELEASED_STATUS_FORMAT = "Low memory: %s was switched to delta mode";
+    private static final String RECOVERY_TITLE = "Recover Unsaved Changes";
+    private static final String RECOVERY_QUESTION_FORMAT = "Unsaved changes of file %s from previous session were found.\nDo you want to recover them?";
+    private static final int JOURNAL_IDLE_DELAY = 1000;
+    private static final int COMPACTION_IDLE_DELAY = 3000;
+    private static final int COMPACTION_STEP_DELAY = 20;
+    private static final int COMPACTION_STEP_MERGES = 32;
+    private static final String RELOAD_STATUS_FORMAT = "Reloaded %s (%d bytes changed)";
+    private static final String EXTERNAL_CHANGE_STATUS_FORMAT = "File %s was changed outside of the editor";
+    private static final int FILE_CHANGE_IDLE_DELAY = 500;
+    private static final int FILE_CHANGE_MAX_DELAY = 2000;
+
     private static SegmentsRepository segmentsRepository = null;
 
     private final BinEdComponentPanel componentPanel;
@@ -68,17 +101,44 @@ public class BinEdFile implements BinEdComponentFileApi {
 
     private final UndoRedo.Manager undoRedo;
     private final InstanceContent content = new InstanceContent();
+    private final ResourceBundle progressResourceBundle = LanguageUtils.getResourceBundleByClass(BinEdProgressPanel.class);
+    private BackgroundDataLoader dataLoader = null;
+    private ChunkedDataConverter dataConverter = null;
+    private AtomicFileSaver dataSaver = null;
+    private EditJournal editJournal = null;
+    private final Timer journalTimer;
+    private final Timer compactionTimer;
+    private DeltaDocumentCompactor compactor = null;
+    private BlockHashes blockHashes = null;
+    private Object fileKey = null;
+    private IncrementalReloader reloader = null;
+    private FileChangeWatcher.Registration fileWatch = null;
+    private final Timer fileChangeTimer;
+    private long fileChangePendingSince = 0;
+    private long knownFileSize = -1;
+    private long knownFileModified = 0;
 
     public BinEdFile() {
         componentPanel = new BinEdComponentPanel();
         ExtCodeArea codeArea = componentPanel.getCodeArea();
-        undoRedo = new UndoRedo.Manager();
+        undoRedo = new BinaryUndoRedoManager();
         BinaryUndoSwingHandler undoHandler = new BinaryUndoSwingHandler(codeArea, undoRedo);
         componentPanel.setFileApi(this);
         componentPanel.setUndoHandler(undoHandler);
 
         getSegmentsRepository();
 
+        journalTimer = new Timer(JOURNAL_IDLE_DELAY, (event) -> discardUnmodifiedJournal());
+        journalTimer.setRepeats(false);
+        compactionTimer = new Timer(COMPACTION_IDLE_DELAY, (event) -> compactDocument());
+        compactionTimer.setRepeats(false);
+        fileChangeTimer = new Timer(FILE_CHANGE_IDLE_DELAY, (event) -> processFileChange());
+        fileChangeTimer.setRepeats(false);
+        codeArea.addDataChangedListener(() -> {
+            scheduleJournal();
+            scheduleCompaction();
+        });
+
         ActionMap actionMap = componentPanel.getActionMap();
         actionMap.put(ACTION_CLIPBOARD_COPY, new AbstractAction() {
             @Override
@@ -133,27 +193,36 @@ public class BinEdFile implements BinEdComponentFileApi {
     }
 
     public void openFile(DataObject dataObject) {
+        boolean newFile = this.dataObject != dataObject;
         this.dataObject = dataObject;
+        MemoryPressureMonitor.getInstance().register(this);
+        cancelLoading();
+        closeJournal();
+        if (newFile || fileWatch == null) {
+            watchFile();
+        }
         ExtCodeArea codeArea = componentPanel.getCodeArea();
-        boolean editable = dataObject.getPrimaryFile().canWrite();
-        URI fileUri = dataObject.getPrimaryFile().toURI();
-        if (fileUri == null) {
-            InputStream stream = null;
+        FileObject primaryFile = dataObject.getPrimaryFile();
+        boolean editable = primaryFile.canWrite();
+        URI fileUri = primaryFile.toURI();
+        File localFile = fileUri == null ? null : FileUtil.toFile(primaryFile);
+        if (newFile) {
+            // Reload and mode switch keep mode already used for the file
+            componentPanel.selectAutomaticFileHandlingMode(primaryFile.getSize(), localFile != null, editable);
+        }
+
+        if (componentPanel.getFileHandlingMode() == FileHandlingMode.NATIVE) {
+            openNativeDocument(primaryFile, editable);
+        } else if (fileUri == null) {
             try {
-                stream = dataObject.getPrimaryFile().getInputStream();
+                InputStream stream = dataObject.getPrimaryFile().getInputStream();
                 if (stream != null) {
-                    openDocument(stream, editable);
+                    setNewData();
+                    EditableBinaryData data = CodeAreaUtils.requireNonNull((EditableBinaryData) codeArea.getContentData());
+                    startLoading(stream, dataObject.getPrimaryFile().getSize(), data, editable, false);
                 }
             } catch (IOException ex) {
                 Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
-            } finally {
-                if (stream != null) {
-                    try {
-                        stream.close();
-                    } catch (IOException ex) {
-                        Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                }
             }
         } else {
             try {
@@ -164,59 +233,523 @@ public class BinEdFile implements BinEdComponentFileApi {
                 Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
             }
         }
+        updateKnownFileState();
     }
 
     public void openDocument(File file, boolean editable) throws IOException {
+        cancelLoading();
+        closeJournal();
+        blockHashes = null;
+        fileKey = null;
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         FileHandlingMode fileHandlingMode = componentPanel.getFileHandlingMode();
 
         BinaryData oldData = codeArea.getContentData();
-        if (fileHandlingMode == FileHandlingMode.DELTA) {
-            FileDataSource fileSource = segmentsRepository.openFileSource(file, editable ? FileDataSource.EditMode.READ_WRITE : FileDataSource.EditMode.READ_ONLY);
-            DeltaDocument document = segmentsRepository.createDocument(fileSource);
-            componentPanel.setContentData(document);
-            if (oldData != null) {
-                oldData.dispose();
+        if (fileHandlingMode == FileHandlingMode.NATIVE) {
+            FileObject fileObject = FileUtil.toFileObject(FileUtil.normalizeFile(file));
+            if (fileObject == null) {
+                throw new IOException("Unable to access file " + file.getPath());
             }
-        } else {
-            try ( FileInputStream fileStream = new FileInputStream(file)) {
-                BinaryData data = codeArea.getContentData();
-                if (!(data instanceof PagedData)) {
-                    data = new PagedData();
-                    if (oldData != null) {
-                        oldData.dispose();
+            openNativeDocument(fileObject, editable);
+        } else if (fileHandlingMode == FileHandlingMode.DELTA) {
+            FileDataSource fileSource = segmentsRepository.openFileSource(file, editable ? FileDataSource.EditMode.READ_WRITE : FileDataSource.EditMode.READ_ONLY);
+            DeltaDocument document = editable ? new JournaledDeltaDocument(segmentsRepository, fileSource) : segmentsRepository.createDocument(fileSource);
+            fileKey = readFileKey(file);
+            boolean recovered = false;
+            if (editable) {
+                editJournal = new EditJournal(file);
+                if (EditJournal.hasRecoverableChanges(file)) {
+                    int result = JOptionPane.showConfirmDialog(componentPanel, String.format(RECOVERY_QUESTION_FORMAT, file.getName()), RECOVERY_TITLE, JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+                    recovered = result == JOptionPane.YES_OPTION && editJournal.replay(document);
+                    if (!recovered) {
+                        editJournal.discard();
                     }
                 }
-                ((EditableBinaryData) data).loadFromStream(fileStream);
-                componentPanel.setContentData(data);
+                ((JournaledDeltaDocument) document).setJournal(editJournal);
+            }
+            componentPanel.setContentData(document);
+            disposeData(oldData);
+            codeArea.setEditMode(editable ? EditMode.EXPANDING : EditMode.READ_ONLY);
+            if (recovered) {
+                componentPanel.markModified();
             }
+        } else {
+            PagedData data = new PagedData();
+            componentPanel.setContentData(data);
+            disposeData(oldData);
+            startLoading(new FileInputStream(file), file.length(), data, editable, true);
         }
-        codeArea.setEditMode(editable ? EditMode.EXPANDING : EditMode.READ_ONLY);
     }
 
-    public void openDocument(InputStream stream, boolean editable) throws IOException {
+    /**
+     * Opens document from stream.
+     *
+     * Stream is loaded on background thread and closed when loading ends.
+     *
+     * @param stream input stream
+     * @param editable true if document should be editable
+     */
+    public void openDocument(InputStream stream, boolean editable) {
+        MemoryPressureMonitor.getInstance().register(this);
+        cancelLoading();
+        closeJournal();
+        blockHashes = null;
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         setNewData();
         EditableBinaryData data = CodeAreaUtils.requireNonNull((EditableBinaryData) codeArea.getContentData());
-        data.loadFromStream(stream);
+        startLoading(stream, -1, data, editable, false);
+    }
+
+    /**
+     * Opens document using native file wrapper.
+     *
+     * Modifications are written directly to the file.
+     *
+     * @param fileObject file object
+     * @param editable true if document should be editable
+     */
+    private void openNativeDocument(FileObject fileObject, boolean editable) {
+        cancelLoading();
+        closeJournal();
+        blockHashes = null;
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        BinaryData oldData = codeArea.getContentData();
+        BinEdFileDataWrapper wrapper = new BinEdFileDataWrapper(fileObject);
+        wrapper.setWriteListener(() -> {
+            // Own modifications of the file must not be handled as external change
+            if (SwingUtilities.isEventDispatchThread()) {
+                updateKnownFileState();
+            } else {
+                SwingUtilities.invokeLater(this::updateKnownFileState);
+            }
+        });
+        componentPanel.setContentData(wrapper);
+        disposeData(oldData);
         codeArea.setEditMode(editable ? EditMode.EXPANDING : EditMode.READ_ONLY);
-        componentPanel.setContentData(data);
+        componentPanel.notifyDataLoaded();
+    }
+
+    private void startLoading(InputStream stream, long expectedSize, EditableBinaryData data, boolean editable, boolean localFileContent) {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        codeArea.setEditMode(EditMode.READ_ONLY);
+        BackgroundDataLoader loader = new BackgroundDataLoader(stream, expectedSize, data, new BackgroundDataLoader.LoadingListener() {
+            @Override
+            public void chunkLoaded(long loaded, long expectedSize) {
+                codeArea.notifyDataChanged();
+                componentPanel.updateProgress(loaded, expectedSize);
+            }
+
+            @Override
+            public void loadingFinished(long loaded, boolean cancelled) {
+                if (codeArea.getContentData() != data) {
+                    // Superseded by other document
+                    return;
+                }
+
+                // Hashes allow incremental reload of the local file
+                blockHashes = cancelled || !localFileContent ? null : dataLoader.getBlockHashes();
+                dataLoader = null;
+                componentPanel.hideProgress();
+                if (cancelled) {
+                    // Partially loaded document must not be saved over the original file
+                    StatusDisplayer.getDefault().setStatusText(String.format(progressResourceBundle.getString("loadingCancelled"), loaded));
+                } else {
+                    codeArea.setEditMode(editable ? EditMode.EXPANDING : EditMode.READ_ONLY);
+                }
+                componentPanel.notifyDataLoaded();
+            }
+        });
+        dataLoader = loader;
+        componentPanel.showProgress(progressResourceBundle.getString("loadingOperation"), loader::cancel);
+        loader.start();
+    }
+
+    private void cancelLoading() {
+        // Hashing shares progress and edit mode with loading
+        componentPanel.cancelComputeHashes();
+        if (reloader != null) {
+            // Result of running reload is ignored once data are replaced
+            reloader = null;
+            componentPanel.hideProgress();
+        }
+        if (dataLoader != null) {
+            dataLoader.cancel();
+            dataLoader = null;
+            componentPanel.hideProgress();
+        }
+        if (dataSaver != null) {
+            // Saving thread ends on its own and keeps the file untouched
+            dataSaver.cancel();
+        }
+        if (dataConverter != null) {
+            // Released source data are disposed with content when replaced
+            dataConverter.stop();
+            componentPanel.setContentData(dataConverter.getSourceData());
+            disposeData(dataConverter.getTargetData());
+            dataConverter = null;
+            componentPanel.hideProgress();
+        }
+    }
+
+    private void scheduleJournal() {
+        if (editJournal != null) {
+            journalTimer.restart();
+        }
+    }
+
+    /**
+     * Deletes journal when document returned to the state of the file, for
+     * example by undo.
+     */
+    private void discardUnmodifiedJournal() {
+        if (editJournal != null && !isModified()) {
+            editJournal.discard();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactor != null) {
+            compactor.reset();
+        }
+        compactionTimer.setInitialDelay(COMPACTION_IDLE_DELAY);
+        compactionTimer.restart();
+    }
+
+    /**
+     * Performs single step of document compaction and schedules next step if
+     * needed.
+     *
+     * Compaction runs on event dispatch thread in short steps while user is
+     * idle and it is postponed by any change of the document.
+     */
+    private void compactDocument() {
+        BinaryData data = componentPanel.getCodeArea().getContentData();
+        if (!(data instanceof DeltaDocument)) {
+            compactor = null;
+            return;
+        }
+
+        if (compactor == null || compactor.getDocument() != data) {
+            compactor = new DeltaDocumentCompactor((DeltaDocument) data);
+        }
+        if (compactor.isCompactionRecommended() && compactor.compact(COMPACTION_STEP_MERGES)) {
+            compactionTimer.setInitialDelay(COMPACTION_STEP_DELAY);
+            compactionTimer.restart();
+        }
+    }
+
+    private void closeJournal() {
+        journalTimer.stop();
+        if (editJournal != null) {
+            BinaryData data = componentPanel.getCodeArea().getContentData();
+            if (data instanceof JournaledDeltaDocument) {
+                ((JournaledDeltaDocument) data).setJournal(null);
+            }
+            editJournal.discard();
+            editJournal = null;
+        }
+    }
+
+    /**
+     * Starts new journal bound to the current state of the file.
+     *
+     * @param document journaled document
+     */
+    private void restartJournal(JournaledDeltaDocument document) {
+        closeJournal();
+        File localFile = FileUtil.toFile(dataObject.getPrimaryFile());
+        if (localFile != null) {
+            editJournal = new EditJournal(localFile);
+            document.setJournal(editJournal);
+        }
+    }
+
+    private void watchFile() {
+        unwatchFile();
+        fileWatch = FileChangeWatcher.getInstance().watch(dataObject.getPrimaryFile(), this::scheduleFileChange);
+    }
+
+    private void unwatchFile() {
+        fileChangeTimer.stop();
+        fileChangePendingSince = 0;
+        if (fileWatch != null) {
+            fileWatch.cancel();
+            fileWatch = null;
+        }
+    }
+
+    private void scheduleFileChange() {
+        long now = System.currentTimeMillis();
+        if (fileChangePendingSince == 0) {
+            fileChangePendingSince = now;
+        }
+        if (now - fileChangePendingSince >= FILE_CHANGE_MAX_DELAY) {
+            // Continuously growing file, refresh periodically
+            fileChangeTimer.stop();
+            SwingUtilities.invokeLater(this::processFileChange);
+        } else {
+            fileChangeTimer.restart();
+        }
+    }
+
+    /**
+     * Processes change of the file performed outside of the editor.
+     *
+     * Unmodified document is reloaded incrementally, native wrapper only drops
+     * cached pages which are no longer valid.
+     */
+    private void processFileChange() {
+        fileChangeTimer.stop();
+        fileChangePendingSince = 0;
+        if (dataSaver != null) {
+            // File state is updated when saving ends
+            return;
+        }
+        if (dataObject == null) {
+            return;
+        }
+
+        long previousSize = knownFileSize;
+        long previousModified = knownFileModified;
+        FileObject primaryFile = dataObject.getPrimaryFile();
+        primaryFile.refresh();
+        File localFile = FileUtil.toFile(primaryFile);
+        if (!primaryFile.isValid() || (localFile != null && !localFile.exists())) {
+            // Deleted or being replaced, wait for next change
+            return;
+        }
+
+        updateKnownFileState();
+        if (knownFileSize == previousSize && knownFileModified == previousModified) {
+            // Change was caused by the editor itself
+            return;
+        }
+
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        BinaryData data = codeArea.getContentData();
+        if (data instanceof BinEdFileDataWrapper) {
+            ((BinEdFileDataWrapper) data).revalidateCache(previousSize);
+            finishIncrementalReload(-1);
+        } else if (isModified() || dataLoader != null || dataConverter != null || componentPanel.isComputingHashes()) {
+            StatusDisplayer.getDefault().setStatusText(String.format(EXTERNAL_CHANGE_STATUS_FORMAT, primaryFile.getNameExt()));
+        } else if (reloader == null) {
+            reloadFile();
+        }
+    }
+
+    private void updateKnownFileState() {
+        if (dataObject == null) {
+            knownFileSize = -1;
+            knownFileModified = 0;
+            return;
+        }
+
+        FileObject primaryFile = dataObject.getPrimaryFile();
+        File localFile = FileUtil.toFile(primaryFile);
+        if (localFile != null) {
+            knownFileSize = localFile.length();
+            knownFileModified = localFile.lastModified();
+        } else {
+            knownFileSize = primaryFile.getSize();
+            knownFileModified = primaryFile.lastModified().getTime();
+        }
     }
 
     public void reloadFile() {
-        openFile(dataObject);
+        componentPanel.cancelComputeHashes();
+        if (!reloadIncrementally()) {
+            openFile(dataObject);
+        }
     }
 
-    public void saveFile() {
+    /**
+     * Attempts to reload unmodified document updating only changed parts, so
+     * that caret, selection and search state are kept.
+     *
+     * @return true if incremental reload was performed or started
+     */
+    private boolean reloadIncrementally() {
+        if (dataObject == null || isModified() || dataLoader != null || dataConverter != null || dataSaver != null || reloader != null) {
+            return false;
+        }
+        FileObject primaryFile = dataObject.getPrimaryFile();
+        File localFile = FileUtil.toFile(primaryFile);
+        if (localFile == null) {
+            return false;
+        }
+
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         BinaryData data = codeArea.getContentData();
+        long previousSize = data == null ? 0 : data.getDataSize();
+        primaryFile.refresh();
+        updateKnownFileState();
+        if (data instanceof BinEdFileDataWrapper) {
+            ((BinEdFileDataWrapper) data).revalidateCache(previousSize);
+            finishIncrementalReload(-1);
+            return true;
+        }
+
         if (data instanceof DeltaDocument) {
+            DeltaDocument document = (DeltaDocument) data;
+            FileDataSource fileSource = document.getFileSource();
+            if (fileSource == null || !localFile.equals(fileSource.getFile()) || !Objects.equals(fileKey, readFileKey(localFile))) {
+                // File was replaced, opened source doesn't reflect it
+                return false;
+            }
+
+            // Unmodified document matches the file, so single file segment is enough
+            boolean journaled = editJournal != null;
+            closeJournal();
+            fileSource.clearCache();
+            document.clearCache();
+            document.clear();
+            long fileSize = localFile.length();
+            if (fileSize > 0) {
+                document.insertSegment(0, segmentsRepository.createFileSegment(fileSource, 0, fileSize));
+            }
+            if (journaled) {
+                restartJournal((JournaledDeltaDocument) document);
+            }
+            finishIncrementalReload(-1);
+            return true;
+        }
+
+        if (data instanceof PagedData && blockHashes != null) {
+            PagedData pagedData = (PagedData) data;
+            EditMode editMode = codeArea.getEditMode();
+            codeArea.setEditMode(EditMode.READ_ONLY);
+            reloader = new IncrementalReloader(localFile, blockHashes, (changes) -> {
+                if (codeArea.getContentData() != pagedData || reloader == null) {
+                    // Superseded by other document
+                    return;
+                }
+
+                reloader = null;
+                componentPanel.hideProgress();
+                codeArea.setEditMode(editMode);
+                if (changes == null) {
+                    blockHashes = null;
+                    openFile(dataObject);
+                    return;
+                }
+
+                IncrementalReloader.applyChanges(pagedData, changes);
+                blockHashes = changes.getHashes();
+                finishIncrementalReload(changes.getChangedSize());
+            });
+            componentPanel.showProgress(progressResourceBundle.getString("reloadingOperation"), null);
+            reloader.start();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Computes block hashes of saved file on background thread.
+     *
+     * @param file saved file
+     * @param data saved data
+     */
+    private void updateBlockHashes(File file, BinaryData data) {
+        blockHashes = null;
+        Thread hashingThread = new Thread(() -> {
+            try {
+                BlockHashes hashes = BlockHashes.compute(file);
+                SwingUtilities.invokeLater(() -> {
+                    if (componentPanel.getCodeArea().getContentData() == data && !isModified()) {
+                        blockHashes = hashes;
+                    }
+                });
+            } catch (IOException ex) {
+                Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }, "BinEd block hashing");
+        hashingThread.setDaemon(true);
+        hashingThread.start();
+    }
+
+    private void finishIncrementalReload(long changedSize) {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        long dataSize = codeArea.getDataSize();
+        SelectionRange selection = codeArea.getSelection();
+        if (selection.getEnd() > dataSize) {
+            codeArea.clearSelection();
+        }
+        if (codeArea.getDataPosition() > dataSize) {
+            codeArea.setCaretPosition(dataSize);
+        }
+        codeArea.notifyDataChanged();
+        componentPanel.notifyDataLoaded();
+        if (changedSize >= 0) {
+            StatusDisplayer.getDefault().setStatusText(String.format(RELOAD_STATUS_FORMAT, dataObject.getPrimaryFile().getNameExt(), changedSize));
+        }
+    }
+
+    @Nullable
+    private static Object readFileKey(File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves document to its file.
+     *
+     * @return true if document was saved
+     */
+    public boolean saveFile() {
+        if (dataSaver != null) {
+            return false;
+        }
+
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        BinaryData data = codeArea.getContentData();
+        if (data instanceof BinEdFileDataWrapper) {
+            // Native wrapper writes modifications directly to the file
+            dataObject.getPrimaryFile().refresh();
+            updateKnownFileState();
+            return true;
+        } else if (data instanceof DeltaDocument) {
             try {
+                FileDataSource fileSource = ((DeltaDocument) data).getFileSource();
+                if (fileSource != null) {
+                    // Undo snapshots referencing file would be overwritten
+                    DeltaUndoSnapshot.materializeSnapshots(fileSource);
+                }
+                if (data instanceof JournaledDeltaDocument) {
+                    // Saving only rearranges segments, content is not changed
+                    ((JournaledDeltaDocument) data).setJournal(null);
+                }
                 segmentsRepository.saveDocument((DeltaDocument) data);
+                File savedFile = FileUtil.toFile(dataObject.getPrimaryFile());
+                fileKey = savedFile == null ? null : readFileKey(savedFile);
+                updateKnownFileState();
+                if (editJournal != null) {
+                    // Journal is bound to the state of the file before save
+                    restartJournal((JournaledDeltaDocument) data);
+                }
+                return true;
             } catch (IOException ex) {
+                if (data instanceof JournaledDeltaDocument) {
+                    ((JournaledDeltaDocument) data).setJournal(editJournal);
+                }
                 Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
+                return false;
             }
         } else {
+            File localFile = FileUtil.toFile(dataObject.getPrimaryFile());
+            if (localFile != null) {
+                BinaryData contentData = codeArea.getContentData();
+                if (contentData == null) {
+                    return false;
+                }
+
+                return saveLocalFile(localFile, contentData);
+            }
+
             OutputStream stream;
             try {
                 stream = dataObject.getPrimaryFile().getOutputStream();
@@ -226,29 +759,110 @@ public class BinEdFile implements BinEdComponentFileApi {
                         contentData.saveToStream(stream);
                     }
                     stream.flush();
-                } catch (IOException ex) {
-                    Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
                 } finally {
                     if (stream != null) {
                         stream.close();
                     }
                 }
+                updateKnownFileState();
+                return true;
             } catch (IOException ex) {
                 Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, ex);
+                return false;
             }
         }
     }
 
+    /**
+     * Saves data to local file on background thread.
+     * <p>
+     * Events are dispatched meanwhile, so that progress is shown and saving
+     * can be cancelled, but method returns only when saving ends.
+     *
+     * @param localFile local file
+     * @param contentData content data
+     * @return true if file was saved
+     */
+    private boolean saveLocalFile(File localFile, BinaryData contentData) {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        AtomicFileSaver saver = new AtomicFileSaver();
+        Object[] outcome = new Object[1];
+        if (EventQueue.isDispatchThread()) {
+            EditMode editMode = codeArea.getEditMode();
+            // Data must not change while written on background thread
+            codeArea.setEditMode(EditMode.READ_ONLY);
+            dataSaver = saver;
+            componentPanel.showProgress(progressResourceBundle.getString("savingOperation"), saver::cancel);
+            saver.setProgressListener((written, total) -> SwingUtilities.invokeLater(() -> {
+                if (dataSaver == saver) {
+                    componentPanel.updateProgress(written, total);
+                }
+            }));
+            SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+            Thread savingThread = new Thread(() -> {
+                outcome[0] = saveData(saver, localFile, contentData);
+                // Exit is dispatched after loop was entered
+                SwingUtilities.invokeLater(loop::exit);
+            }, "BinEd file saver");
+            savingThread.start();
+            loop.enter();
+            dataSaver = null;
+            componentPanel.hideProgress();
+            codeArea.setEditMode(editMode);
+        } else {
+            outcome[0] = saveData(saver, localFile, contentData);
+        }
+
+        if (outcome[0] instanceof AtomicFileSaver.SaveResult) {
+            AtomicFileSaver.SaveResult result = (AtomicFileSaver.SaveResult) outcome[0];
+            dataObject.getPrimaryFile().refresh();
+            updateKnownFileState();
+            updateBlockHashes(localFile, contentData);
+            StatusDisplayer.getDefault().setStatusText(String.format(SAVE_STATUS_FORMAT, localFile.getName(), result.getSize(), result.getThroughput()));
+            return true;
+        }
+
+        if (saver.isCancelled()) {
+            StatusDisplayer.getDefault().setStatusText(String.format(progressResourceBundle.getString("savingCancelled"), localFile.getName()));
+        } else {
+            Logger.getLogger(BinEdFile.class.getName()).log(Level.SEVERE, null, (Throwable) outcome[0]);
+        }
+        return false;
+    }
+
+    @Nonnull
+    private static Object saveData(AtomicFileSaver saver, File localFile, BinaryData contentData) {
+        try {
+            return saver.save(localFile, contentData);
+        } catch (IOException | RuntimeException ex) {
+            return ex;
+        }
+    }
+
     @Override
     public void closeData() {
+        cancelLoading();
+        closeJournal();
+        compactionTimer.stop();
+        compactor = null;
+        unwatchFile();
+        MemoryPressureMonitor.getInstance().unregister(this);
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         BinaryData data = codeArea.getContentData();
         componentPanel.setContentData(new ByteArrayData());
+        disposeData(data);
+    }
+
+    private void disposeData(@Nullable BinaryData data) {
         if (data instanceof DeltaDocument) {
             FileDataSource fileSource = ((DeltaDocument) data).getFileSource();
             data.dispose();
-            segmentsRepository.detachFileSource(fileSource);
-            segmentsRepository.closeFileSource(fileSource);
+            if (fileSource != null) {
+                segmentsRepository.detachFileSource(fileSource);
+                segmentsRepository.closeFileSource(fileSource);
+            }
+        } else if (data instanceof BinEdFileDataWrapper) {
+            ((BinEdFileDataWrapper) data).close();
         } else {
             if (data != null) {
                 data.dispose();
@@ -257,16 +871,21 @@ public class BinEdFile implements BinEdComponentFileApi {
     }
 
     @Override
-    public void saveDocument() {
+    public boolean saveDocument() {
         if (dataObject == null) {
-            return;
+            return false;
         }
 
-        saveFile();
+        return saveFile();
     }
 
     @Override
     public void switchFileHandlingMode(FileHandlingMode newHandlingMode) {
+        if (dataConverter != null || dataSaver != null) {
+            return;
+        }
+        componentPanel.cancelComputeHashes();
+
         FileHandlingMode fileHandlingMode = componentPanel.getFileHandlingMode();
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         if (newHandlingMode != fileHandlingMode) {
@@ -285,29 +904,137 @@ public class BinEdFile implements BinEdComponentFileApi {
                     openFile(dataObject);
                 }
             } else {
-                // If document unsaved in memory, switch data in code area
-                if (codeArea.getContentData() instanceof DeltaDocument) {
-                    BinaryData oldData = codeArea.getContentData();
-                    PagedData data = new PagedData();
-                    data.insert(0, codeArea.getContentData());
-                    componentPanel.setContentData(data);
-                    if (oldData != null) {
-                        oldData.dispose();
-                    }
+                // If document unsaved in memory, move data to new representation
+                BinaryData oldData = codeArea.getContentData();
+                EditableBinaryData newData = oldData instanceof DeltaDocument ? new PagedData() : segmentsRepository.createDocument();
+                componentPanel.getUndoHandler().clear();
+                componentPanel.setFileHandlingMode(newHandlingMode);
+                if (oldData instanceof EditableBinaryData && !oldData.isEmpty()) {
+                    startConversion((EditableBinaryData) oldData, newData, fileHandlingMode);
                 } else {
-                    BinaryData oldData = codeArea.getContentData();
-                    DeltaDocument document = segmentsRepository.createDocument();
                     if (oldData != null) {
-                        document.insert(0, oldData);
-                        oldData.dispose();
+                        newData.insert(0, oldData);
                     }
-                    componentPanel.setContentData(document);
+                    componentPanel.setContentData(newData);
+                    disposeData(oldData);
                 }
+            }
+        }
+    }
 
-                componentPanel.getUndoHandler().clear();
-                componentPanel.setFileHandlingMode(newHandlingMode);
+    private void startConversion(EditableBinaryData sourceData, EditableBinaryData targetData, FileHandlingMode previousHandlingMode) {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        EditMode editMode = codeArea.getEditMode();
+        // Data are shown by converter view and must not be modified until done
+        codeArea.setEditMode(EditMode.READ_ONLY);
+        ChunkedDataConverter converter = new ChunkedDataConverter(sourceData, targetData, new ChunkedDataConverter.ConversionListener() {
+            @Override
+            public void chunkConverted(long converted, long totalSize) {
+                componentPanel.updateProgress(converted, totalSize);
             }
+
+            @Override
+            public void conversionFinished() {
+                dataConverter = null;
+                componentPanel.hideProgress();
+                replaceShownData(targetData);
+                disposeData(sourceData);
+                codeArea.setEditMode(editMode);
+                codeArea.revealCursor();
+                componentPanel.notifyDataLoaded();
+            }
+        });
+        dataConverter = converter;
+        replaceShownData(converter.getViewData());
+        componentPanel.showProgress(progressResourceBundle.getString("convertingOperation"), () -> {
+            if (dataConverter != converter) {
+                return;
+            }
+
+            // Converted part is moved back to source document
+            converter.cancel();
+            dataConverter = null;
+            replaceShownData(sourceData);
+            disposeData(targetData);
+            componentPanel.hideProgress();
+            componentPanel.setFileHandlingMode(previousHandlingMode);
+            codeArea.setEditMode(editMode);
+        });
+        converter.start();
+    }
+
+    /**
+     * Replaces content data with data of the same content keeping caret and
+     * selection.
+     *
+     * @param data content data
+     */
+    private void replaceShownData(BinaryData data) {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        long caretPosition = codeArea.getDataPosition();
+        SelectionRange selection = codeArea.getSelection();
+        componentPanel.setContentData(data);
+        codeArea.setCaretPosition(Math.min(caretPosition, data.getDataSize()));
+        codeArea.setSelection(selection);
+    }
+
+    /**
+     * Returns memory usage of the document.
+     *
+     * @return memory usage
+     */
+    @Nonnull
+    public DocumentMemoryInfo getMemoryInfo() {
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        BinaryData data = codeArea.getContentData();
+        String fileName = dataObject == null ? "" : dataObject.getPrimaryFile().getNameExt();
+        long fileSize = dataObject == null ? -1 : dataObject.getPrimaryFile().getSize();
+        int segmentsCount = 0;
+        long memoryDataSize = 0;
+        long cacheMemorySize = 0;
+        if (data instanceof DeltaDocument) {
+            DeltaDocumentCompactor.Statistics statistics = DeltaDocumentCompactor.computeStatistics((DeltaDocument) data);
+            segmentsCount = statistics.getSegmentsCount();
+            memoryDataSize = statistics.getMemoryDataSize();
+            if (((DeltaDocument) data).getFileSource() != null) {
+                // File source caches window of two pages
+                cacheMemorySize = 2 * DeltaDataPageWindow.PAGE_SIZE;
+            }
+        } else if (data instanceof BinEdFileDataWrapper) {
+            cacheMemorySize = ((BinEdFileDataWrapper) data).getCacheSize();
+        } else if (data != null) {
+            memoryDataSize = data.getDataSize();
+        }
+        BinaryDataUndoHandler undoHandler = componentPanel.getUndoHandler();
+        long undoMemorySize = undoHandler == null ? 0 : undoHandler.getUsedSize();
+
+        return new DocumentMemoryInfo(fileName, componentPanel.getFileHandlingMode().name(), fileSize, codeArea.getDataSize(), segmentsCount, memoryDataSize, undoMemorySize, cacheMemorySize);
+    }
+
+    /**
+     * Releases memory held by document if possible.
+     *
+     * Unmodified document loaded to memory from local file is switched to
+     * delta mode, which reads data from the file on demand.
+     */
+    public void releaseMemory() {
+        if (dataObject == null || dataLoader != null || dataConverter != null || dataSaver != null || reloader != null || isModified() || componentPanel.isComputingHashes()) {
+            return;
+        }
+        if (componentPanel.getFileHandlingMode() != FileHandlingMode.MEMORY || FileUtil.toFile(dataObject.getPrimaryFile()) == null) {
+            return;
+        }
+
+        ExtCodeArea codeArea = componentPanel.getCodeArea();
+        long caretPosition = codeArea.getDataPosition();
+        SelectionRange selection = codeArea.getSelection();
+        switchFileHandlingMode(FileHandlingMode.DELTA);
+        if (caretPosition <= codeArea.getDataSize()) {
+            codeArea.setCaretPosition(caretPosition);
+            codeArea.setSelection(selection);
+            codeArea.revealCursor();
         }
+        StatusDisplayer.getDefault().setStatusText(String.format(MEMORY_RELEASED_STATUS_FORMAT, dataObject.getPrimaryFile().getNameExt()));
     }
 
     @Override
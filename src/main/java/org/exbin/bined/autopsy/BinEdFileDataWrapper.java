@@ -15,39 +15,80 @@
  */
 package org.exbin.bined.autopsy;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.auxiliary.paged_data.BinaryData;
-import org.exbin.auxiliary.paged_data.ByteArrayData;
 import org.exbin.auxiliary.paged_data.EditableBinaryData;
 import org.exbin.auxiliary.paged_data.OutOfBoundsException;
 import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.framework.bined.operation.LazyCopyCapable;
+import org.exbin.framework.bined.operation.SpillFileBinaryData;
 import org.exbin.xbup.core.util.StreamUtils;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 
 /**
  * File data wrapper for netbeans with caching.
+ * <p>
+ * Reads are guarded by shared read lock and served from immutable cache page
+ * snapshots, so concurrent readers only serialize when a page has to be loaded
+ * from the file. Pages are cached in slots indexed by page number, so that
+ * sequential reader in other part of the file doesn't evict pages used by
+ * painter. Modifications take the exclusive write lock.
+ * <p>
+ * Copies are lazy views of the file range. When the file is about to be
+ * modified while the view is still in use, only part of the view overlapping
+ * the modified range is materialized, large parts are spilled to temporary
+ * file instead of memory.
  *
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class BinEdFileDataWrapper implements EditableBinaryData {
+public class BinEdFileDataWrapper implements EditableBinaryData, LazyCopyCapable {
 
 	public static final String BROKEN_VIRTUAL_FILE = "Broken virtual file";
+    public static final String WRITE_FAILED = "Unable to write modification to file";
     private static final int BUFFER_SIZE = 4096;
     public static final int PAGE_SIZE = 4096;
+    private static final int FILL_BUFFER_SIZE = 65536;
+    private static final int CACHE_PAGES = 32;
+    private static final long SPILL_THRESHOLD = 4 * 1024 * 1024;
 
     private final FileObject file;
 
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object cacheLock = new Object();
     private InputStream cacheInputStream = null;
     private long cachePosition = 0;
-    private final DataPage[] cachePages = new DataPage[]{new DataPage(), new DataPage()};
-    private int nextCachePage = 0;
+    private volatile DataPage[] cachePages = createEmptyCache();
+    private final List<WeakReference<FileDataView>> views = new ArrayList<>();
+    /**
+     * Fully materialized views, kept only to report their memory usage.
+     */
+    private final List<WeakReference<FileDataView>> materializedViews = new ArrayList<>();
+    private byte[] fillBuffer = null;
+    @Nullable
+    private WriteListener writeListener = null;
 
     public BinEdFileDataWrapper(FileObject fileObject) {
         this.file = fileObject;
@@ -64,90 +105,93 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized byte getByte(long position) {
+    public byte getByte(long position) {
         long pageIndex = position / PAGE_SIZE;
         int pageOffset = (int) (position % PAGE_SIZE);
 
-        if (cachePages[0].pageIndex == pageIndex) {
-            return cachePages[0].page[pageOffset];
-        }
-        if (cachePages[1].pageIndex == pageIndex) {
-            return cachePages[1].page[pageOffset];
+        lock.readLock().lock();
+        try {
+            return getPage(pageIndex)[pageOffset];
+        } finally {
+            lock.readLock().unlock();
         }
-        int usedPage = loadPage(pageIndex);
-        return cachePages[usedPage].page[pageOffset];
     }
 
     @Nonnull
     @Override
     public BinaryData copy() {
-        try {
-            return new ByteArrayData(file.asBytes());
-        } catch (IOException e) {
-            throw new IllegalStateException(BROKEN_VIRTUAL_FILE, e);
-        }
+        return copy(0, getDataSize());
     }
 
     @Nonnull
     @Override
-    public synchronized BinaryData copy(long startFrom, long length) {
+    public BinaryData copy(long startFrom, long length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > getDataSize()) {
+            throw new OutOfBoundsException("Copy range is outside of data");
+        }
+
+        FileDataView view = new FileDataView(startFrom, length);
+        synchronized (views) {
+            views.add(new WeakReference<>(view));
+        }
+        return view;
+    }
+
+    /**
+     * Copies given range of the file to memory.
+     *
+     * @param startFrom start position
+     * @param length length
+     * @return data copy
+     */
+    @Nonnull
+    private PagedData copyToMemory(long startFrom, long length) {
         long pageIndex = startFrom / PAGE_SIZE;
         int pageOffset = (int) (startFrom % PAGE_SIZE);
 
         PagedData data = new PagedData();
         long dataPosition = 0;
-        while (length > 0) {
-            int pageLength = length > PAGE_SIZE - pageOffset ? PAGE_SIZE - pageOffset : (int) length;
-            copyTo(data, dataPosition, pageIndex, pageOffset, pageLength);
-            pageIndex++;
-            pageOffset = 0;
-            dataPosition += pageLength;
-            length -= pageLength;
+        lock.readLock().lock();
+        try {
+            while (length > 0) {
+                int pageLength = length > PAGE_SIZE - pageOffset ? PAGE_SIZE - pageOffset : (int) length;
+                data.insert(dataPosition, getPage(pageIndex), pageOffset, pageLength);
+                pageIndex++;
+                pageOffset = 0;
+                dataPosition += pageLength;
+                length -= pageLength;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
 
         return data;
     }
 
-    private void copyTo(PagedData data, long dataPosition, long pageIndex, int pageOffset, int pageLength) {
-        if (cachePages[0].pageIndex == pageIndex) {
-            data.insert(dataPosition, cachePages[0].page, pageOffset, pageLength);
-        } else if (cachePages[1].pageIndex == pageIndex) {
-            data.insert(dataPosition, cachePages[1].page, pageOffset, pageLength);
-        } else {
-            int usedPage = loadPage(pageIndex);
-            data.insert(dataPosition, cachePages[usedPage].page, pageOffset, pageLength);
-        }
-    }
-
     @Override
-    public synchronized void copyToArray(long startFrom, byte[] target, int offset, int length) {
+    public void copyToArray(long startFrom, byte[] target, int offset, int length) {
         long pageIndex = startFrom / PAGE_SIZE;
         int pageOffset = (int) (startFrom % PAGE_SIZE);
 
         int dataPosition = offset;
-        while (length > 0) {
-            int pageLength = Math.min(length, PAGE_SIZE - pageOffset);
-            copyTo(target, dataPosition, pageIndex, pageOffset, pageLength);
-            pageIndex++;
-            pageOffset = 0;
-            dataPosition += pageLength;
-            length -= pageLength;
-        }
-    }
-
-    private void copyTo(byte[] data, int dataPosition, long pageIndex, int pageOffset, int pageLength) {
-        if (cachePages[0].pageIndex == pageIndex) {
-            System.arraycopy(cachePages[0].page, pageOffset, data, dataPosition, pageLength);
-        } else if (cachePages[1].pageIndex == pageIndex) {
-            System.arraycopy(cachePages[1].page, pageOffset, data, dataPosition, pageLength);
-        } else {
-            int usedPage = loadPage(pageIndex);
-            System.arraycopy(cachePages[usedPage].page, pageOffset, data, dataPosition, pageLength);
+        lock.readLock().lock();
+        try {
+            while (length > 0) {
+                int pageLength = Math.min(length, PAGE_SIZE - pageOffset);
+                System.arraycopy(getPage(pageIndex), pageOffset, target, dataPosition, pageLength);
+                pageIndex++;
+                pageOffset = 0;
+                dataPosition += pageLength;
+                length -= pageLength;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     @Override
     public void saveToStream(OutputStream outputStream) throws IOException {
+        lock.readLock().lock();
         try {
             InputStream inputStream = file.getInputStream();
             StreamUtils.copyInputStreamToOutputStream(inputStream, outputStream);
@@ -155,6 +199,8 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
             inputStream.close();
         } catch (IOException e) {
             throw new IllegalStateException(BROKEN_VIRTUAL_FILE, e);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
@@ -175,29 +221,34 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
 
     @Override
     public void setDataSize(long size) {
+        File localFile = FileUtil.toFile(file);
         long fileLength = file.getSize();
+        if (localFile != null) {
+            writeAction(Math.min(size, fileLength), Long.MAX_VALUE, () -> resizeLocalFile(localFile, size));
+            return;
+        }
+
         if (size > fileLength) {
             insert(fileLength, size - fileLength);
-        } else {
-            remove(fileLength, fileLength - size);
+        } else if (size < fileLength) {
+            remove(size, fileLength - size);
         }
     }
 
     @Override
-    public synchronized void setByte(long position, byte value) {
-        writeAction(() -> {
+    public void setByte(long position, byte value) {
+        if (overwriteAction(position, 1, (offset, buffer, length) -> buffer[0] = value)) {
+            return;
+        }
+
+        rewriteAction(position, 1, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, position);
             outputStream.write(value);
             if (fileLength > position + 1) {
                 StreamUtils.skipInputStreamData(inputStream, 1);
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - position - 1);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
@@ -207,23 +258,20 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized void insert(long startFrom, long length) {
-        writeAction(() -> {
+    public void insert(long startFrom, long length) {
+        File localFile = FileUtil.toFile(file);
+        if (localFile != null && startFrom == file.getSize()) {
+            writeAction(startFrom, Long.MAX_VALUE, () -> resizeLocalFile(localFile, startFrom + length));
+            return;
+        }
+
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
-            long remains = length;
-            while (remains > 0) {
-                outputStream.write(0b0);
-                remains--;
-            }
+            writeFill(outputStream, length, (byte) 0);
             if (fileLength > startFrom) {
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
@@ -233,45 +281,33 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized void insert(long startFrom, byte[] insertedData, int insertedDataOffset, int insertedDataLength) {
-        writeAction(() -> {
+    public void insert(long startFrom, byte[] insertedData, int insertedDataOffset, int insertedDataLength) {
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
             outputStream.write(insertedData, insertedDataOffset, insertedDataLength);
             if (fileLength > startFrom) {
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
     @Override
-    public synchronized void insert(long startFrom, BinaryData insertedData) {
-        writeAction(() -> {
+    public void insert(long startFrom, BinaryData insertedData) {
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
             insertedData.saveToStream(outputStream);
             if (fileLength > startFrom) {
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
     @Override
-    public synchronized void insert(long startFrom, BinaryData insertedData, final long insertedDataOffset, final long insertedDataLength) {
-        writeAction(() -> {
+    public void insert(long startFrom, BinaryData insertedData, final long insertedDataOffset, final long insertedDataLength) {
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
             long length = insertedDataLength;
             long offset = insertedDataOffset;
@@ -286,26 +322,18 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
             if (fileLength > startFrom) {
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
     @Override
-    public synchronized long insert(long startFrom, InputStream insertStream, long maximumDataSize) throws IOException {
-        writeAction(() -> {
+    public long insert(long startFrom, InputStream insertStream, long maximumDataSize) throws IOException {
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(insertStream, outputStream, maximumDataSize);
             if (fileLength > startFrom) {
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
 
         return maximumDataSize;
@@ -317,15 +345,16 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized void replace(long targetPosition, BinaryData replacingData, long startFrom, long replacingLength) {
+    public void replace(long targetPosition, BinaryData replacingData, long startFrom, long replacingLength) {
         if (targetPosition + replacingLength > getDataSize()) {
             throw new OutOfBoundsException("Data can be replaced only inside or at the end");
         }
+        if (overwriteAction(targetPosition, replacingLength, (offset, buffer, length) -> replacingData.copyToArray(startFrom + offset, buffer, 0, length))) {
+            return;
+        }
 
-        writeAction(() -> {
+        rewriteAction(targetPosition, replacingLength, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, targetPosition);
             long length = replacingLength;
             long offset = startFrom;
@@ -337,13 +366,10 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
                 length -= toCopy;
                 offset += toCopy;
             }
-            if (fileLength > startFrom + replacingLength) {
+            if (fileLength > targetPosition + replacingLength) {
                 StreamUtils.skipInputStreamData(inputStream, replacingLength);
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - targetPosition - replacingLength);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
@@ -353,24 +379,22 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized void replace(long targetPosition, byte[] replacingData, int replacingDataOffset, int length) {
+    public void replace(long targetPosition, byte[] replacingData, int replacingDataOffset, int length) {
         if (targetPosition + length > getDataSize()) {
             throw new OutOfBoundsException("Data can be replaced only inside or at the end");
         }
+        if (overwriteAction(targetPosition, length, (offset, buffer, chunkLength) -> System.arraycopy(replacingData, replacingDataOffset + (int) offset, buffer, 0, chunkLength))) {
+            return;
+        }
 
-        writeAction(() -> {
+        rewriteAction(targetPosition, length, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, targetPosition);
             outputStream.write(replacingData, replacingDataOffset, length);
             if (fileLength > targetPosition + length) {
                 StreamUtils.skipInputStreamData(inputStream, length);
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - targetPosition - length);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
@@ -380,59 +404,359 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
     }
 
     @Override
-    public synchronized void fillData(long startFrom, long length, byte fill) {
-        writeAction(() -> {
+    public void fillData(long startFrom, long length, byte fill) {
+        if (overwriteAction(startFrom, length, (offset, buffer, chunkLength) -> Arrays.fill(buffer, 0, chunkLength, fill))) {
+            return;
+        }
+
+        rewriteAction(startFrom, length, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
-            for (int i = 0; i < length; i++) {
-                outputStream.write(fill);
-            }
+            writeFill(outputStream, length, fill);
             if (fileLength > startFrom + length) {
                 StreamUtils.skipInputStreamData(inputStream, length);
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom - length);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
     @Override
-    public synchronized void remove(long startFrom, long length) {
-        writeAction(() -> {
+    public void remove(long startFrom, long length) {
+        rewriteAction(startFrom, Long.MAX_VALUE, (inputStream, outputStream) -> {
             long fileLength = file.getSize();
-            InputStream inputStream = file.getInputStream();
-            OutputStream outputStream = file.getOutputStream(null);
             StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, startFrom);
             if (fileLength > startFrom + length) {
                 StreamUtils.skipInputStreamData(inputStream, length);
                 StreamUtils.copyFixedSizeInputStreamToOutputStream(inputStream, outputStream, fileLength - startFrom - length);
             }
-
-            inputStream.close();
-            outputStream.close();
         });
     }
 
     @Override
-    public synchronized void clear() {
-        writeAction(() -> {
-            OutputStream outputStream = file.getOutputStream(null);
-            outputStream.close();
+    public void clear() {
+        rewriteAction(0, Long.MAX_VALUE, (inputStream, outputStream) -> {
+        });
+    }
+
+    /**
+     * Writes given count of fill bytes using reusable pre-filled buffer.
+     *
+     * Must be called with write lock held.
+     *
+     * @param outputStream output stream
+     * @param length count of bytes
+     * @param fill fill value
+     * @throws IOException if write fails
+     */
+    private void writeFill(OutputStream outputStream, long length, byte fill) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+
+        int bufferLength = (int) Math.min(length, FILL_BUFFER_SIZE);
+        if (fillBuffer == null || fillBuffer.length < bufferLength || fillBuffer[0] != fill) {
+            fillBuffer = new byte[Math.max(bufferLength, fillBuffer == null ? 0 : fillBuffer.length)];
+            if (fill != 0) {
+                Arrays.fill(fillBuffer, fill);
+            }
+        }
+
+        long remains = length;
+        while (remains > 0) {
+            int toWrite = (int) Math.min(remains, fillBuffer.length);
+            outputStream.write(fillBuffer, 0, toWrite);
+            remains -= toWrite;
+        }
+    }
+
+    /**
+     * Changes size of file available on local file system in place.
+     *
+     * Shrinking truncates the file and extension writes only last byte, which
+     * leaves the gap as sparse hole where file system supports it.
+     *
+     * @param localFile local file
+     * @param size requested file size
+     * @throws IOException if resize fails
+     */
+    private void resizeLocalFile(File localFile, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(localFile.toPath(), StandardOpenOption.WRITE)) {
+            long fileLength = channel.size();
+            if (size < fileLength) {
+                channel.truncate(size);
+            } else if (size > fileLength) {
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+        }
+        file.refresh();
+    }
+
+    /**
+     * Overwrites range of the file available on local file system in place
+     * using positional writes.
+     *
+     * Used for modifications which don't shift following data, so that small
+     * edits don't require rewrite of the whole file.
+     *
+     * @param position position of overwritten range
+     * @param length length of overwritten range
+     * @param source source of written data
+     * @return false if file is not available on local file system
+     */
+    private boolean overwriteAction(long position, long length, OverwriteSource source) {
+        File localFile = FileUtil.toFile(file);
+        if (localFile == null) {
+            return false;
+        }
+
+        writeAction(position, length, () -> {
+            try (FileChannel channel = FileChannel.open(localFile.toPath(), StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[(int) Math.min(length, FILL_BUFFER_SIZE)];
+                long done = 0;
+                while (done < length) {
+                    int chunkLength = (int) Math.min(buffer.length, length - done);
+                    source.fill(done, buffer, chunkLength);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, chunkLength);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer, position + done + byteBuffer.position());
+                    }
+                    done += chunkLength;
+                }
+            }
+            file.refresh();
+        });
+        return true;
+    }
+
+    /**
+     * Performs modification which rewrites content of the file.
+     *
+     * Files on local file system are rewritten to temporary file which then
+     * atomically replaces original file. Used only for modifications changing
+     * position of following data.
+     *
+     * @param modifiedFrom start of modified range
+     * @param modifiedLength length of modified range, Long.MAX_VALUE if rest
+     * of the file is shifted
+     * @param action rewrite action
+     */
+    private void rewriteAction(long modifiedFrom, long modifiedLength, RewriteRunnable action) {
+        writeAction(modifiedFrom, modifiedLength, () -> {
+            File localFile = FileUtil.toFile(file);
+            if (localFile != null) {
+                AtomicFileSaver saver = new AtomicFileSaver();
+                saver.save(localFile, -1, (outputStream) -> {
+                    try (InputStream inputStream = new FileInputStream(localFile)) {
+                        action.run(inputStream, outputStream);
+                    }
+                });
+                file.refresh();
+            } else {
+                try (InputStream inputStream = file.getInputStream(); OutputStream outputStream = file.getOutputStream(null)) {
+                    action.run(inputStream, outputStream);
+                }
+            }
         });
     }
 
-    private void writeAction(WriteRunnable action) {
+    /**
+     * Performs modification of the file.
+     *
+     * Failure is reported by unchecked exception to the caller performing the
+     * modification, cache is dropped anyway, so that data are read again as
+     * they are stored in the file.
+     *
+     * @param modifiedFrom start of modified range
+     * @param modifiedLength length of modified range
+     * @param action write action
+     * @throws IllegalStateException if modification can't be written
+     */
+    private void writeAction(long modifiedFrom, long modifiedLength, WriteRunnable action) {
+        IOException failure = null;
+        lock.writeLock().lock();
         try {
+            materializeViews(modifiedFrom, modifiedLength);
             action.run();
         } catch (IOException ex) {
+            failure = ex;
+        } finally {
+            resetCache();
+            lock.writeLock().unlock();
+        }
+
+        if (writeListener != null) {
+            // File might be partially modified even if write failed
+            writeListener.dataWritten();
+        }
+        if (failure != null) {
+            throw new IllegalStateException(WRITE_FAILED, failure);
+        }
+    }
+
+    /**
+     * Sets listener notified after each modification written to the file.
+     *
+     * @param writeListener listener or null
+     */
+    public void setWriteListener(@Nullable WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Materializes parts of views still in use which overlap modified range,
+     * so that they are not affected by following modification of the file.
+     *
+     * Must be called with write lock held.
+     *
+     * @param modifiedFrom start of modified range
+     * @param modifiedLength length of modified range
+     */
+    private void materializeViews(long modifiedFrom, long modifiedLength) {
+        long modifiedTo = modifiedLength > Long.MAX_VALUE - modifiedFrom ? Long.MAX_VALUE : modifiedFrom + modifiedLength;
+        synchronized (views) {
+            Iterator<WeakReference<FileDataView>> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                FileDataView view = iterator.next().get();
+                if (view == null) {
+                    iterator.remove();
+                    continue;
+                }
+
+                long overlapFrom = Math.max(view.startFrom, modifiedFrom);
+                long overlapTo = Math.min(view.startFrom + view.length, modifiedTo);
+                if (overlapFrom < overlapTo) {
+                    view.materialize(overlapFrom - view.startFrom, overlapTo - overlapFrom);
+                    if (view.isFullyMaterialized()) {
+                        iterator.remove();
+                        materializedViews.add(new WeakReference<>(view));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies given range of the file to memory or to spill file if large.
+     *
+     * @param startFrom start position
+     * @param length length
+     * @return data copy
+     */
+    @Nonnull
+    private BinaryData copyToStorage(long startFrom, long length) {
+        if (length > SPILL_THRESHOLD) {
+            try {
+                return SpillFileBinaryData.create(this, startFrom, length);
+            } catch (IOException ex) {
+                Logger.getLogger(BinEdFileDataWrapper.class.getName()).log(Level.WARNING, "Unable to spill file view, keeping it in memory", ex);
+            }
+        }
+
+        return copyToMemory(startFrom, length);
+    }
+
+    private void releaseView(FileDataView releasedView) {
+        synchronized (views) {
+            removeView(views, releasedView);
+            removeView(materializedViews, releasedView);
+        }
+    }
+
+    private static void removeView(List<WeakReference<FileDataView>> viewsList, @Nullable FileDataView removedView) {
+        Iterator<WeakReference<FileDataView>> iterator = viewsList.iterator();
+        while (iterator.hasNext()) {
+            FileDataView view = iterator.next().get();
+            if (view == null || view == removedView) {
+                iterator.remove();
+            }
         }
-        resetCache();
     }
 
     public void resetCache() {
+        synchronized (cacheLock) {
+            closeCacheInputStream();
+            cachePages = createEmptyCache();
+        }
+    }
+
+    @Nonnull
+    private static DataPage[] createEmptyCache() {
+        DataPage[] pages = new DataPage[CACHE_PAGES];
+        Arrays.fill(pages, DataPage.EMPTY);
+        return pages;
+    }
+
+    /**
+     * Invalidates cached pages overlapping given range.
+     *
+     * @param startFrom start position
+     * @param length length of the range
+     */
+    public void invalidate(long startFrom, long length) {
+        if (length <= 0) {
+            return;
+        }
+
+        long firstPage = startFrom / PAGE_SIZE;
+        long lastPage = length > Long.MAX_VALUE - startFrom ? Long.MAX_VALUE : (startFrom + length - 1) / PAGE_SIZE;
+        synchronized (cacheLock) {
+            DataPage[] updatedPages = cachePages.clone();
+            for (int i = 0; i < updatedPages.length; i++) {
+                long pageIndex = updatedPages[i].pageIndex;
+                if (pageIndex >= firstPage && pageIndex <= lastPage) {
+                    updatedPages[i] = DataPage.EMPTY;
+                }
+            }
+            cachePages = updatedPages;
+            closeCacheInputStream();
+        }
+    }
+
+    /**
+     * Compares cached pages with current content of the file and invalidates
+     * pages which were changed.
+     *
+     * @param previousSize size of the file before it was changed
+     */
+    public void revalidateCache(long previousSize) {
+        long validSize = Math.min(previousSize, getDataSize());
+        for (DataPage cachedPage : cachePages) {
+            if (cachedPage == DataPage.EMPTY) {
+                continue;
+            }
+
+            long position = cachedPage.pageIndex * PAGE_SIZE;
+            if (position + PAGE_SIZE > validSize) {
+                // Page was partial or file was truncated
+                invalidate(position, PAGE_SIZE);
+                continue;
+            }
+
+            byte[] currentPage = new byte[PAGE_SIZE];
+            try (InputStream inputStream = file.getInputStream()) {
+                StreamUtils.skipInputStreamData(inputStream, position);
+                int done = 0;
+                while (done < PAGE_SIZE) {
+                    int read = inputStream.read(currentPage, done, PAGE_SIZE - done);
+                    if (read < 0) {
+                        break;
+                    }
+                    done += read;
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(BinEdFileDataWrapper.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            if (!Arrays.equals(currentPage, cachedPage.page)) {
+                invalidate(position, PAGE_SIZE);
+            }
+        }
+
+        synchronized (cacheLock) {
+            closeCacheInputStream();
+        }
+    }
+
+    private void closeCacheInputStream() {
         if (cacheInputStream != null) {
             try {
                 cacheInputStream.close();
@@ -441,13 +765,48 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
             }
             cacheInputStream = null;
         }
+    }
 
-        cachePages[0].pageIndex = -1;
-        cachePages[1].pageIndex = -1;
+    /**
+     * Returns amount of memory held by page cache and materialized copies.
+     *
+     * @return size in bytes
+     */
+    public long getCacheSize() {
+        long cacheSize = 0;
+        for (DataPage cachePage : cachePages) {
+            cacheSize += cachePage.page.length;
+        }
+        List<FileDataView> activeViews = new ArrayList<>();
+        synchronized (views) {
+            removeView(materializedViews, null);
+            for (WeakReference<FileDataView> viewReference : views) {
+                FileDataView view = viewReference.get();
+                if (view != null) {
+                    activeViews.add(view);
+                }
+            }
+            for (WeakReference<FileDataView> viewReference : materializedViews) {
+                FileDataView view = viewReference.get();
+                if (view != null) {
+                    activeViews.add(view);
+                }
+            }
+        }
+        // Lock of the view must not be acquired while holding list of views
+        for (FileDataView view : activeViews) {
+            cacheSize += view.getMemorySize();
+        }
+        return cacheSize;
     }
 
-    public synchronized void close() {
-        resetCache();
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            resetCache();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Nonnull
@@ -480,17 +839,51 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
-    private int loadPage(long pageIndex) {
-        int usedPage = nextCachePage;
+    /**
+     * Returns content of page with given index.
+     *
+     * Returned array is never modified afterwards and must not be modified by
+     * caller.
+     *
+     * @param pageIndex page index
+     * @return page data
+     */
+    @Nonnull
+    private byte[] getPage(long pageIndex) {
+        int slot = (int) (pageIndex % CACHE_PAGES);
+        DataPage page = cachePages[slot];
+        if (page.pageIndex == pageIndex) {
+            return page.page;
+        }
+
+        synchronized (cacheLock) {
+            // Page might have been loaded by other reader in the meantime
+            DataPage[] pages = cachePages;
+            page = pages[slot];
+            if (page.pageIndex == pageIndex) {
+                return page.page;
+            }
+
+            DataPage loadedPage = loadPage(pageIndex);
+            DataPage[] updatedPages = pages.clone();
+            updatedPages[slot] = loadedPage;
+            cachePages = updatedPages;
+            return loadedPage.page;
+        }
+    }
+
+    @Nonnull
+    private DataPage loadPage(long pageIndex) {
         long position = pageIndex * PAGE_SIZE;
         long dataSize = getDataSize();
+        byte[] page = new byte[PAGE_SIZE];
         try {
             InputStream inputStream = getInputStream(position);
 
             int done = 0;
             int remains = position + PAGE_SIZE > dataSize ? (int) (dataSize - position) : PAGE_SIZE;
             while (remains > 0) {
-                int copied = inputStream.read(cachePages[usedPage].page, done, remains);
+                int copied = inputStream.read(page, done, remains);
                 if (copied < 0) {
                     throw new IllegalStateException(BROKEN_VIRTUAL_FILE);
                 }
@@ -498,22 +891,289 @@ public class BinEdFileDataWrapper implements EditableBinaryData {
                 remains -= copied;
                 done += copied;
             }
-
-            cachePages[usedPage].pageIndex = pageIndex;
-            nextCachePage = 1 - nextCachePage;
         } catch (IOException e) {
             throw new IllegalStateException(BROKEN_VIRTUAL_FILE, e);
         }
 
-        return usedPage;
+        return new DataPage(pageIndex, page);
+    }
+
+    /**
+     * Read-only view of range of the file.
+     * <p>
+     * Parts of the view which were materialized before modification of the
+     * file are kept in map indexed by position in the view, remaining parts
+     * are read from the file. Parts are accessed under wrapper lock.
+     */
+    @ParametersAreNonnullByDefault
+    private class FileDataView implements BinaryData {
+
+        private final long startFrom;
+        private final long length;
+        private final TreeMap<Long, BinaryData> materializedParts = new TreeMap<>();
+        private long materializedLength = 0;
+
+        FileDataView(long startFrom, long length) {
+            this.startFrom = startFrom;
+            this.length = length;
+        }
+
+        /**
+         * Materializes given range of the view which is not materialized yet.
+         *
+         * Must be called with write lock held.
+         *
+         * @param from start position in the view
+         * @param materializeLength length of the range
+         */
+        private void materialize(long from, long materializeLength) {
+            long position = from;
+            long to = from + materializeLength;
+            while (position < to) {
+                Map.Entry<Long, BinaryData> part = materializedParts.floorEntry(position);
+                if (part != null && part.getKey() + part.getValue().getDataSize() > position) {
+                    position = part.getKey() + part.getValue().getDataSize();
+                    continue;
+                }
+
+                Long nextPart = materializedParts.higherKey(position);
+                long gapEnd = nextPart == null ? to : Math.min(to, nextPart);
+                materializedParts.put(position, copyToStorage(startFrom + position, gapEnd - position));
+                materializedLength += gapEnd - position;
+                position = gapEnd;
+            }
+        }
+
+        private boolean isFullyMaterialized() {
+            return materializedLength == length;
+        }
+
+        /**
+         * Returns amount of materialized data held in memory.
+         *
+         * @return size in bytes
+         */
+        private long getMemorySize() {
+            lock.readLock().lock();
+            try {
+                long memorySize = 0;
+                for (BinaryData part : materializedParts.values()) {
+                    if (!(part instanceof SpillFileBinaryData)) {
+                        memorySize += part.getDataSize();
+                    }
+                }
+                return memorySize;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        @Override
+        public long getDataSize() {
+            return length;
+        }
+
+        @Override
+        public byte getByte(long position) {
+            if (position < 0 || position >= length) {
+                throw new OutOfBoundsException("Position is outside of data");
+            }
+
+            lock.readLock().lock();
+            try {
+                Map.Entry<Long, BinaryData> part = materializedParts.floorEntry(position);
+                if (part != null && part.getKey() + part.getValue().getDataSize() > position) {
+                    return part.getValue().getByte(position - part.getKey());
+                }
+                return BinEdFileDataWrapper.this.getByte(startFrom + position);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy() {
+            return copy(0, length);
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy(long copyStartFrom, long copyLength) {
+            if (copyStartFrom < 0 || copyLength < 0 || copyStartFrom + copyLength > length) {
+                throw new OutOfBoundsException("Copy range is outside of data");
+            }
+
+            lock.readLock().lock();
+            try {
+                Map.Entry<Long, BinaryData> part = materializedParts.floorEntry(copyStartFrom);
+                if (part != null && part.getKey() + part.getValue().getDataSize() >= copyStartFrom + copyLength) {
+                    return part.getValue().copy(copyStartFrom - part.getKey(), copyLength);
+                }
+                boolean overlapsPart = (part != null && part.getKey() + part.getValue().getDataSize() > copyStartFrom)
+                        || materializedParts.subMap(copyStartFrom, copyStartFrom + copyLength).size() > 0;
+                if (!overlapsPart) {
+                    return BinEdFileDataWrapper.this.copy(startFrom + copyStartFrom, copyLength);
+                }
+
+                PagedData data = new PagedData();
+                byte[] buffer = new byte[(int) Math.min(copyLength, FILL_BUFFER_SIZE)];
+                long done = 0;
+                while (done < copyLength) {
+                    int toCopy = (int) Math.min(buffer.length, copyLength - done);
+                    copyToArray(copyStartFrom + done, buffer, 0, toCopy);
+                    data.insert(done, buffer, 0, toCopy);
+                    done += toCopy;
+                }
+                return data;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void copyToArray(long copyStartFrom, byte[] target, int offset, int copyLength) {
+            if (copyStartFrom < 0 || copyLength < 0 || copyStartFrom + copyLength > length) {
+                throw new OutOfBoundsException("Copy range is outside of data");
+            }
+
+            lock.readLock().lock();
+            try {
+                long position = copyStartFrom;
+                int targetOffset = offset;
+                int remains = copyLength;
+                while (remains > 0) {
+                    Map.Entry<Long, BinaryData> part = materializedParts.floorEntry(position);
+                    int toCopy;
+                    if (part != null && part.getKey() + part.getValue().getDataSize() > position) {
+                        toCopy = (int) Math.min(remains, part.getKey() + part.getValue().getDataSize() - position);
+                        part.getValue().copyToArray(position - part.getKey(), target, targetOffset, toCopy);
+                    } else {
+                        Long nextPart = materializedParts.higherKey(position);
+                        toCopy = nextPart == null ? remains : (int) Math.min(remains, nextPart - position);
+                        BinEdFileDataWrapper.this.copyToArray(startFrom + position, target, targetOffset, toCopy);
+                    }
+                    position += toCopy;
+                    targetOffset += toCopy;
+                    remains -= toCopy;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void saveToStream(OutputStream outputStream) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            while (position < length) {
+                int toCopy = (int) Math.min(BUFFER_SIZE, length - position);
+                copyToArray(position, buffer, 0, toCopy);
+                outputStream.write(buffer, 0, toCopy);
+                position += toCopy;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public InputStream getDataInputStream() {
+            return new InputStream() {
+                private long position = 0;
+
+                @Override
+                public int read() throws IOException {
+                    if (position >= length) {
+                        return -1;
+                    }
+
+                    return getByte(position++) & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] target, int offset, int readLength) throws IOException {
+                    if (readLength == 0) {
+                        return 0;
+                    }
+                    if (position >= length) {
+                        return -1;
+                    }
+
+                    int toCopy = (int) Math.min(readLength, length - position);
+                    copyToArray(position, target, offset, toCopy);
+                    position += toCopy;
+                    return toCopy;
+                }
+
+                @Override
+                public int available() throws IOException {
+                    return (int) Math.min(Integer.MAX_VALUE, length - position);
+                }
+            };
+        }
+
+        @Override
+        public void dispose() {
+            releaseView(this);
+            lock.writeLock().lock();
+            try {
+                for (BinaryData part : materializedParts.values()) {
+                    part.dispose();
+                }
+                materializedParts.clear();
+                materializedLength = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
     }
 
+    /**
+     * Immutable cache page.
+     */
     private static class DataPage {
-        long pageIndex = -1;
-        byte[] page = new byte[PAGE_SIZE];
+
+        static final DataPage EMPTY = new DataPage(-1, new byte[0]);
+
+        final long pageIndex;
+        final byte[] page;
+
+        DataPage(long pageIndex, byte[] page) {
+            this.pageIndex = pageIndex;
+            this.page = page;
+        }
     }
 
     public interface WriteRunnable {
         void run() throws IOException;
     }
+
+    public interface OverwriteSource {
+
+        /**
+         * Fills start of the buffer with data to write.
+         *
+         * @param offset offset in overwritten range
+         * @param buffer target buffer
+         * @param length length of data
+         */
+        void fill(long offset, byte[] buffer, int length);
+    }
+
+    public interface WriteListener {
+
+        /**
+         * Reports that modification was written to the file, invoked on the
+         * thread performing modification.
+         */
+        void dataWritten();
+    }
+
+    public interface RewriteRunnable {
+        void run(InputStream inputStream, OutputStream outputStream) throws IOException;
+    }
 }
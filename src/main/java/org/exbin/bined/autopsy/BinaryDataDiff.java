@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.autopsy.contentviewer.ContentBinaryData;
+import org.exbin.framework.bined.DiffRange;
+
+/**
+ * Computation of ranges of differences between two data.
+ * <p>
+ * Both sides are read sequentially in parallel and digested by fixed blocks
+ * using SHA-256, so that equal digests of different blocks cannot be forged.
+ * Only blocks with different digests are read again and compared byte by byte
+ * to produce list of differing ranges. Data are compared at the same
+ * positions, data beyond end of shorter side are reported as single range.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataDiff {
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+    public static final int READ_CHUNK_SIZE = 16 * BLOCK_SIZE;
+    public static final String BLOCK_DIGEST_ALGORITHM = "SHA-256";
+    /**
+     * Length of kept prefix of block digest in bytes.
+     */
+    public static final int BLOCK_DIGEST_LENGTH = 16;
+    /**
+     * Maximum number of reported ranges.
+     */
+    public static final int MAX_RANGES = 100000;
+
+    private final DiffSource leftSource;
+    private final DiffSource rightSource;
+    private final DiffListener listener;
+    private volatile boolean cancelled = false;
+    private Thread diffThread = null;
+
+    /**
+     * Creates new diff computation.
+     *
+     * @param leftSource left side
+     * @param rightSource right side
+     * @param listener diff listener, invoked on event dispatch thread
+     */
+    public BinaryDataDiff(DiffSource leftSource, DiffSource rightSource, DiffListener listener) {
+        this.leftSource = leftSource;
+        this.rightSource = rightSource;
+        this.listener = listener;
+    }
+
+    public void start() {
+        diffThread = new Thread(this::computeDiff, "BinEd diff");
+        diffThread.setDaemon(true);
+        diffThread.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (diffThread != null) {
+            diffThread.interrupt();
+        }
+    }
+
+    private void computeDiff() {
+        ExecutorService executor = Executors.newFixedThreadPool(2, (runnable) -> {
+            Thread thread = new Thread(runnable, "BinEd diff reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        DiffResult result = null;
+        try {
+            Future<BlockDigests> leftDigests = executor.submit(() -> computeDigests(leftSource));
+            Future<BlockDigests> rightDigests = executor.submit(() -> computeDigests(rightSource));
+            result = compareBlocks(leftDigests.get(), rightDigests.get());
+        } catch (InterruptedException ex) {
+            cancelled = true;
+        } catch (IOException | InvocationTargetException | ExecutionException | RuntimeException ex) {
+            if (!cancelled) {
+                Logger.getLogger(BinaryDataDiff.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        } finally {
+            executor.shutdownNow();
+            closeSource(leftSource);
+            closeSource(rightSource);
+        }
+
+        if (cancelled) {
+            return;
+        }
+
+        final DiffResult finishedResult = result;
+        SwingUtilities.invokeLater(() -> {
+            // Computation might be cancelled while result was waiting for dispatch
+            if (!cancelled) {
+                listener.diffComputed(finishedResult);
+            }
+        });
+    }
+
+    @Nonnull
+    private BlockDigests computeDigests(DiffSource source) throws IOException, InterruptedException, InvocationTargetException, NoSuchAlgorithmException {
+        long dataSize = source.getDataSize();
+        byte[] buffer = new byte[(int) Math.min(READ_CHUNK_SIZE, Math.max(dataSize, 1))];
+        MessageDigest digest = MessageDigest.getInstance(BLOCK_DIGEST_ALGORITHM);
+        BlockDigests digests = new BlockDigests(dataSize);
+        long position = 0;
+        int blockIndex = 0;
+        while (position < dataSize) {
+            if (cancelled || Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            int chunkLength = (int) Math.min(buffer.length, dataSize - position);
+            source.read(position, buffer, chunkLength);
+            // Chunk consists of whole blocks except for the last one
+            for (int offset = 0; offset < chunkLength; offset += BLOCK_SIZE) {
+                digest.update(buffer, offset, Math.min(BLOCK_SIZE, chunkLength - offset));
+                digests.setDigest(blockIndex, digest.digest());
+                blockIndex++;
+            }
+            position += chunkLength;
+        }
+        return digests;
+    }
+
+    /**
+     * Compares digests of blocks and refines differing blocks.
+     *
+     * @param leftDigests digests of left side
+     * @param rightDigests digests of right side
+     * @return diff result
+     */
+    @Nonnull
+    private DiffResult compareBlocks(BlockDigests leftDigests, BlockDigests rightDigests) throws IOException, InterruptedException, InvocationTargetException {
+        long leftSize = leftDigests.dataSize;
+        long rightSize = rightDigests.dataSize;
+        long commonSize = Math.min(leftSize, rightSize);
+        int commonBlocks = (int) ((commonSize + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        RangesBuilder ranges = new RangesBuilder();
+        byte[] leftBlock = new byte[BLOCK_SIZE];
+        byte[] rightBlock = new byte[BLOCK_SIZE];
+        for (int blockIndex = 0; blockIndex < commonBlocks && !ranges.isLimitReached(); blockIndex++) {
+            if (cancelled) {
+                throw new InterruptedException();
+            }
+            long blockPosition = (long) blockIndex * BLOCK_SIZE;
+            int blockLength = (int) Math.min(BLOCK_SIZE, commonSize - blockPosition);
+            // Digests are comparable only if both blocks have the same length
+            boolean sameLength = Math.min(BLOCK_SIZE, leftSize - blockPosition) == Math.min(BLOCK_SIZE, rightSize - blockPosition);
+            if (sameLength && leftDigests.equalsDigest(rightDigests, blockIndex)) {
+                ranges.closeRange(blockPosition);
+                continue;
+            }
+
+            leftSource.read(blockPosition, leftBlock, blockLength);
+            rightSource.read(blockPosition, rightBlock, blockLength);
+            for (int i = 0; i < blockLength; i++) {
+                if (leftBlock[i] != rightBlock[i]) {
+                    ranges.openRange(blockPosition + i);
+                } else {
+                    ranges.closeRange(blockPosition + i);
+                }
+            }
+        }
+
+        if (!ranges.isLimitReached()) {
+            ranges.openRange(commonSize);
+            ranges.closeRange(Math.max(leftSize, rightSize));
+        }
+        return new DiffResult(ranges.ranges, leftSize, rightSize, !ranges.isLimitReached());
+    }
+
+    private static void closeSource(DiffSource source) {
+        try {
+            source.close();
+        } catch (IOException ex) {
+            Logger.getLogger(BinaryDataDiff.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Creates source reading binary data.
+     *
+     * @param data binary data
+     * @param readOnEventThread true if data are not safe to access outside of
+     * event dispatch thread
+     * @return diff source
+     */
+    @Nonnull
+    public static DiffSource createDataSource(BinaryData data, boolean readOnEventThread) {
+        long dataSize = data.getDataSize();
+        return new DiffSource() {
+            @Override
+            public long getDataSize() {
+                return dataSize;
+            }
+
+            @Override
+            public void read(long position, byte[] buffer, int length) throws InterruptedException, InvocationTargetException {
+                if (readOnEventThread) {
+                    SwingUtilities.invokeAndWait(() -> data.copyToArray(position, buffer, 0, length));
+                } else if (data instanceof ContentBinaryData) {
+                    // Bulk read bypasses page cache used by painter
+                    ((ContentBinaryData) data).readData(position, buffer, 0, length);
+                } else {
+                    data.copyToArray(position, buffer, 0, length);
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Creates source reading file using positional reads of its own channel.
+     *
+     * @param file file
+     * @return diff source
+     */
+    @Nonnull
+    public static DiffSource createFileSource(File file) {
+        long fileSize = file.length();
+        return new DiffSource() {
+            private FileChannel channel = null;
+
+            @Override
+            public long getDataSize() {
+                return fileSize;
+            }
+
+            @Override
+            public void read(long position, byte[] buffer, int length) throws IOException {
+                if (channel == null) {
+                    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+                while (byteBuffer.hasRemaining()) {
+                    if (channel.read(byteBuffer, position + byteBuffer.position()) < 0) {
+                        throw new IOException("Unexpected end of file");
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Truncated digests of blocks of data.
+     */
+    private static class BlockDigests {
+
+        private final long dataSize;
+        private final byte[] digests;
+
+        private BlockDigests(long dataSize) {
+            this.dataSize = dataSize;
+            long blocksCount = (dataSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            digests = new byte[(int) (blocksCount * BLOCK_DIGEST_LENGTH)];
+        }
+
+        private void setDigest(int blockIndex, byte[] digest) {
+            System.arraycopy(digest, 0, digests, blockIndex * BLOCK_DIGEST_LENGTH, BLOCK_DIGEST_LENGTH);
+        }
+
+        private boolean equalsDigest(BlockDigests other, int blockIndex) {
+            int offset = blockIndex * BLOCK_DIGEST_LENGTH;
+            for (int i = offset; i < offset + BLOCK_DIGEST_LENGTH; i++) {
+                if (digests[i] != other.digests[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Builder of ranges merging adjacent differing positions.
+     */
+    private static class RangesBuilder {
+
+        private final List<DiffRange> ranges = new ArrayList<>();
+        private long rangeStart = -1;
+
+        private void openRange(long position) {
+            if (rangeStart < 0) {
+                rangeStart = position;
+            }
+        }
+
+        private void closeRange(long position) {
+            if (rangeStart >= 0) {
+                if (position > rangeStart && ranges.size() < MAX_RANGES) {
+                    ranges.add(new DiffRange(rangeStart, position - rangeStart));
+                }
+                rangeStart = -1;
+            }
+        }
+
+        private boolean isLimitReached() {
+            return ranges.size() >= MAX_RANGES;
+        }
+    }
+
+    /**
+     * Source of compared data.
+     */
+    public interface DiffSource extends Closeable {
+
+        long getDataSize();
+
+        /**
+         * Reads data to the start of given buffer.
+         *
+         * @param position data position
+         * @param buffer target buffer
+         * @param length length of data
+         * @throws IOException if reading fails
+         * @throws InterruptedException if interrupted
+         * @throws InvocationTargetException if reading on event dispatch
+         * thread fails
+         */
+        void read(long position, byte[] buffer, int length) throws IOException, InterruptedException, InvocationTargetException;
+    }
+
+    /**
+     * Result of diff computation.
+     */
+    @ParametersAreNonnullByDefault
+    public static class DiffResult {
+
+        private final List<DiffRange> ranges;
+        private final long leftDataSize;
+        private final long rightDataSize;
+        private final boolean complete;
+
+        private DiffResult(List<DiffRange> ranges, long leftDataSize, long rightDataSize, boolean complete) {
+            this.ranges = Collections.unmodifiableList(ranges);
+            this.leftDataSize = leftDataSize;
+            this.rightDataSize = rightDataSize;
+            this.complete = complete;
+        }
+
+        @Nonnull
+        public List<DiffRange> getRanges() {
+            return ranges;
+        }
+
+        public long getLeftDataSize() {
+            return leftDataSize;
+        }
+
+        public long getRightDataSize() {
+            return rightDataSize;
+        }
+
+        /**
+         * Returns false if computation stopped after reaching maximum number
+         * of ranges.
+         *
+         * @return true if all differences are included
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * Listener for diff computation.
+     */
+    public interface DiffListener {
+
+        /**
+         * Reports computed differences.
+         *
+         * @param result result or null if computation failed
+         */
+        void diffComputed(@Nullable DiffResult result);
+    }
+}
@@ -112,7 +112,8 @@ public final class BinaryEditorTopComponent extends TopComponent implements Mult
         }
 
         if (choice == JOptionPane.YES_OPTION) {
-            editorFile.saveDocument();
+            // Failed or cancelled save keeps editor open
+            return editorFile.saveDocument();
         }
 
         return true;
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.undo.UndoableEdit;
+import org.openide.awt.UndoRedo;
+
+/**
+ * Undo manager allowing to drop oldest edits when undo history grows too
+ * large.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryUndoRedoManager extends UndoRedo.Manager {
+
+    public BinaryUndoRedoManager() {
+    }
+
+    /**
+     * Discards oldest edit of the history.
+     *
+     * Most recent undoable edit is always kept.
+     *
+     * @return true if edit was discarded
+     */
+    public synchronized boolean trimOldestEdit() {
+        UndoableEdit editToBeUndone = editToBeUndone();
+        if (edits.isEmpty() || editToBeUndone == null || edits.firstElement() == editToBeUndone) {
+            return false;
+        }
+
+        trimEdits(0, 0);
+        return true;
+    }
+}
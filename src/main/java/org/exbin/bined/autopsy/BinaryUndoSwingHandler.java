@@ -21,15 +21,20 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Timer;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoableEdit;
+import org.exbin.bined.capability.CaretCapable;
+import org.exbin.bined.capability.SelectionCapable;
 import org.exbin.bined.operation.BinaryDataCommand;
 import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.swing.command.EditDataCommand;
 import org.exbin.bined.operation.undo.BinaryDataUndoHandler;
 import org.exbin.bined.operation.undo.BinaryDataUndoUpdateListener;
 import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.framework.bined.operation.UndoDataSizeCapable;
 import org.openide.awt.UndoRedo;
 
 /**
@@ -40,11 +45,33 @@ import org.openide.awt.UndoRedo;
 @ParametersAreNonnullByDefault
 public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
 
+    /**
+     * Default maximum size of undo data held in memory.
+     */
+    public static final long DEFAULT_UNDO_MAXIMUM_SIZE = 256 * 1024 * 1024;
+    /**
+     * Maximum delay between typing commands merged into single undo step.
+     */
+    public static final int COALESCE_WINDOW = 1000;
+    private static final long COALESCE_MAXIMUM_SIZE = 4096;
+    private static final long COMMAND_SIZE_ESTIMATE = 64;
+    private static final int NOTIFICATION_DELAY = 16;
+
     private final CodeAreaCore codeArea;
     private final List<BinaryDataUndoUpdateListener> listeners = new ArrayList<>();
     private final UndoRedo.Manager undoManager;
     private long commandPosition;
     private long syncPointPosition = -1;
+    private long undoMaximumSize = DEFAULT_UNDO_MAXIMUM_SIZE;
+    private long usedSize = 0;
+    private CommandEdit openEdit = null;
+    private long lastCommandTime = 0;
+    private long lastEditPosition = -1;
+    private long typingStartPosition = -1;
+    private long typingStartDataSize = -1;
+    private final Timer notificationTimer;
+    private boolean positionChangedPending = false;
+    private BinaryDataCommand addedCommandPending = null;
 
     /**
      * Creates a new instance.
@@ -55,10 +82,17 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
     public BinaryUndoSwingHandler(CodeAreaCore codeArea, UndoRedo.Manager undoManager) {
         this.codeArea = codeArea;
         this.undoManager = undoManager;
+        notificationTimer = new Timer(NOTIFICATION_DELAY, (event) -> fireNotifications());
+        notificationTimer.setRepeats(false);
+        // Typing commands are extended without notifying undo handler
+        codeArea.addDataChangedListener(this::dataChanged);
         init();
     }
 
     private void init() {
+        openEdit = null;
+        undoManager.discardAllEdits();
+        usedSize = 0;
         commandPosition = 0;
         setSyncPoint(0);
     }
@@ -71,92 +105,99 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
      */
     @Override
     public void execute(BinaryDataCommand command) throws BinaryDataOperationException {
+        openEdit = null;
+        long dataSize = codeArea.getDataSize();
+        long caretPosition = getCaretDataPosition();
+        long selectionLength = codeArea instanceof SelectionCapable ? ((SelectionCapable) codeArea).getSelection().getLength() : 0;
         command.execute();
-        commandAdded(command);
+        // Command usually keeps both original and new data of affected range
+        long affectedLength = Math.max(Math.abs(codeArea.getDataSize() - dataSize), selectionLength);
+        if (caretPosition >= 0) {
+            affectedLength = Math.max(affectedLength, Math.abs(getCaretDataPosition() - caretPosition));
+        }
+        commandAdded(command, 2 * affectedLength, -1);
     }
 
     @Override
     public void addCommand(BinaryDataCommand command) {
+        // Typing command is added before its first edit is applied
+        long startPosition = getCaretDataPosition();
         command.use();
-        commandAdded(command);
+        commandAdded(command, 0, startPosition);
+        typingStartPosition = startPosition;
+        typingStartDataSize = codeArea.getDataSize();
     }
 
-    private void commandAdded(final BinaryDataCommand command) {
-        UndoableEdit edit = new UndoableEdit() {
-            @Override
-            public void undo() throws CannotUndoException {
-                commandPosition--;
-                try {
-                    command.undo();
-                } catch (BinaryDataOperationException ex) {
-                    Logger.getLogger(BinaryUndoSwingHandler.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                undoUpdated();
-            }
-
-            @Override
-            public boolean canUndo() {
-                return command.canUndo();
-            }
-
-            @Override
-            public void redo() throws CannotRedoException {
-                commandPosition++;
-                try {
-                    command.redo();
-                } catch (BinaryDataOperationException ex) {
-                    Logger.getLogger(BinaryUndoSwingHandler.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                undoUpdated();
-            }
-
-            @Override
-            public boolean canRedo() {
-                return command.canUndo();
-            }
-
-            @Override
-            public void die() {
-            }
+    /**
+     * Updates size estimate of open typing command as it is extended.
+     */
+    private void dataChanged() {
+        lastEditPosition = getCaretDataPosition();
+        if (openEdit == null || typingStartDataSize < 0) {
+            return;
+        }
 
-            @Override
-            public boolean addEdit(UndoableEdit anEdit) {
-                return false;
-            }
+        // Typing command keeps both original and typed data
+        long typedLength = Math.abs(codeArea.getDataSize() - typingStartDataSize);
+        if (typingStartPosition >= 0 && lastEditPosition >= 0) {
+            typedLength = Math.max(typedLength, Math.abs(lastEditPosition - typingStartPosition));
+        }
+        openEdit.updateLastEstimate(2 * typedLength);
+        trimToMaximumSize();
+    }
 
-            @Override
-            public boolean replaceEdit(UndoableEdit anEdit) {
-                return false;
-            }
+    /**
+     * Adds command to the history.
+     *
+     * Only typing commands are merged into last undo step and only if they
+     * continue where last typing ended.
+     *
+     * @param command command
+     * @param dataSizeEstimate estimated size of data kept by command
+     * @param startPosition caret position before typing command or -1
+     */
+    private void commandAdded(final BinaryDataCommand command, long dataSizeEstimate, long startPosition) {
+        long now = System.currentTimeMillis();
+        boolean typing = command instanceof EditDataCommand;
+        if (typing && openEdit != null && now - lastCommandTime <= COALESCE_WINDOW
+                && openEdit.getDataSize() + getCommandDataSize(command, dataSizeEstimate) <= COALESCE_MAXIMUM_SIZE
+                && startPosition >= 0 && startPosition == lastEditPosition && openEdit.canAppend((EditDataCommand) command)) {
+            openEdit.appendCommand(command, dataSizeEstimate);
+        } else {
+            CommandEdit edit = new CommandEdit(command, dataSizeEstimate);
+            undoManager.undoableEditHappened(new UndoableEditEvent(codeArea, edit));
+            usedSize += edit.size;
+            commandPosition++;
+            openEdit = typing ? edit : null;
+        }
+        typingStartDataSize = -1;
+        trimToMaximumSize();
+        lastCommandTime = now;
 
-            @Override
-            public boolean isSignificant() {
-                return true;
-            }
+        addedCommandPending = command;
+        undoUpdated();
+    }
 
-            @Nonnull
-            @Override
-            public String getPresentationName() {
-                return command.getCaption();
-            }
+    private long getCaretDataPosition() {
+        return codeArea instanceof CaretCapable ? ((CaretCapable) codeArea).getDataPosition() : -1;
+    }
 
-            @Nonnull
-            @Override
-            public String getUndoPresentationName() {
-                return "";
-            }
+    private static long getCommandDataSize(BinaryDataCommand command, long dataSizeEstimate) {
+        return command instanceof UndoDataSizeCapable ? ((UndoDataSizeCapable) command).getUndoDataSize() : dataSizeEstimate;
+    }
 
-            @Nonnull
-            @Override
-            public String getRedoPresentationName() {
-                return "";
-            }
-        };
-        undoManager.undoableEditHappened(new UndoableEditEvent(codeArea, edit));
+    /**
+     * Discards oldest edits until used size fits into maximum size.
+     */
+    private void trimToMaximumSize() {
+        if (!(undoManager instanceof BinaryUndoRedoManager)) {
+            return;
+        }
 
-        commandPosition++;
-        undoUpdated();
-        listeners.forEach((listener) -> listener.undoCommandAdded(command));
+        BinaryUndoRedoManager binaryUndoManager = (BinaryUndoRedoManager) undoManager;
+        while (usedSize > undoMaximumSize && binaryUndoManager.trimOldestEdit()) {
+            // Size is updated when trimmed edit dies
+        }
     }
 
     /**
@@ -232,7 +273,7 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
 
     @Override
     public long getMaximumUndo() {
-        return 0;
+        return undoManager.getLimit();
     }
 
     @Override
@@ -251,21 +292,35 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
     }
 
     public void setUndoMaxCount(long maxUndo) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        undoManager.setLimit((int) Math.min(Integer.MAX_VALUE, maxUndo));
     }
 
     @Override
     public long getUndoMaximumSize() {
-        return 0;
+        return undoMaximumSize;
     }
 
+    /**
+     * Sets maximum size of undo data held in memory.
+     *
+     * Oldest steps are discarded when limit is exceeded, most recent step is
+     * always kept.
+     *
+     * @param maxSize maximum size in bytes
+     */
     public void setUndoMaximumSize(long maxSize) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        undoMaximumSize = maxSize;
+        trimToMaximumSize();
     }
 
+    /**
+     * Returns estimated size of undo data held in memory.
+     *
+     * @return size in bytes
+     */
     @Override
     public long getUsedSize() {
-        return 0;
+        return usedSize;
     }
 
     @Override
@@ -276,11 +331,14 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
     @Override
     public void setSyncPoint(long syncPoint) {
         this.syncPointPosition = syncPoint;
+        openEdit = null;
     }
 
     @Override
     public void setSyncPoint() {
         this.syncPointPosition = commandPosition;
+        // Edits after save must not be merged with edits before it
+        openEdit = null;
     }
 
     @Nonnull
@@ -304,9 +362,30 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
         }
     }
 
+    /**
+     * Notifies code area and schedules notification of listeners.
+     *
+     * Listener notifications are coalesced, so that burst of commands causes
+     * single update per frame.
+     */
     private void undoUpdated() {
         codeArea.notifyDataChanged();
-        listeners.forEach((listener) -> listener.undoCommandPositionChanged());
+        positionChangedPending = true;
+        if (!notificationTimer.isRunning()) {
+            notificationTimer.start();
+        }
+    }
+
+    private void fireNotifications() {
+        if (positionChangedPending) {
+            positionChangedPending = false;
+            listeners.forEach((listener) -> listener.undoCommandPositionChanged());
+        }
+        if (addedCommandPending != null) {
+            BinaryDataCommand command = addedCommandPending;
+            addedCommandPending = null;
+            listeners.forEach((listener) -> listener.undoCommandAdded(command));
+        }
     }
 
     @Override
@@ -318,4 +397,160 @@ public class BinaryUndoSwingHandler implements BinaryDataUndoHandler {
     public void removeUndoUpdateListener(BinaryDataUndoUpdateListener listener) {
         listeners.remove(listener);
     }
+
+    /**
+     * Undoable edit wrapping sequence of binary data commands.
+     */
+    private class CommandEdit implements UndoableEdit {
+
+        private final List<BinaryDataCommand> commands = new ArrayList<>();
+        private final List<Long> dataSizeEstimates = new ArrayList<>();
+        private long size;
+        private boolean alive = true;
+        private boolean done = true;
+
+        public CommandEdit(BinaryDataCommand command, long dataSizeEstimate) {
+            commands.add(command);
+            dataSizeEstimates.add(dataSizeEstimate);
+            size = computeSize();
+        }
+
+        private boolean canAppend(EditDataCommand command) {
+            BinaryDataCommand lastCommand = commands.get(commands.size() - 1);
+            return lastCommand instanceof EditDataCommand && ((EditDataCommand) lastCommand).getCommandType() == command.getCommandType();
+        }
+
+        private void appendCommand(BinaryDataCommand command, long dataSizeEstimate) {
+            commands.add(command);
+            dataSizeEstimates.add(dataSizeEstimate);
+            updateSize();
+        }
+
+        private void updateLastEstimate(long dataSizeEstimate) {
+            dataSizeEstimates.set(dataSizeEstimates.size() - 1, dataSizeEstimate);
+            updateSize();
+        }
+
+        private long getDataSize() {
+            long dataSize = 0;
+            for (int i = 0; i < commands.size(); i++) {
+                dataSize += getCommandDataSize(commands.get(i), dataSizeEstimates.get(i));
+            }
+            return dataSize;
+        }
+
+        private long computeSize() {
+            return getDataSize() + commands.size() * COMMAND_SIZE_ESTIMATE;
+        }
+
+        private void updateSize() {
+            long newSize = computeSize();
+            usedSize += newSize - size;
+            size = newSize;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            openEdit = null;
+            done = false;
+            commandPosition--;
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                try {
+                    commands.get(i).undo();
+                } catch (BinaryDataOperationException ex) {
+                    Logger.getLogger(BinaryUndoSwingHandler.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            updateSize();
+            undoUpdated();
+        }
+
+        @Override
+        public boolean canUndo() {
+            return commands.stream().allMatch(BinaryDataCommand::canUndo);
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            openEdit = null;
+            done = true;
+            commandPosition++;
+            for (BinaryDataCommand command : commands) {
+                try {
+                    command.redo();
+                } catch (BinaryDataOperationException ex) {
+                    Logger.getLogger(BinaryUndoSwingHandler.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            updateSize();
+            undoUpdated();
+        }
+
+        @Override
+        public boolean canRedo() {
+            return canUndo();
+        }
+
+        @Override
+        public void die() {
+            if (!alive) {
+                return;
+            }
+
+            alive = false;
+            if (openEdit == this) {
+                openEdit = null;
+            }
+            usedSize -= size;
+            size = 0;
+            if (done) {
+                // Oldest edit was trimmed, positions are counted from first kept edit
+                commandPosition--;
+                if (syncPointPosition >= 0) {
+                    syncPointPosition--;
+                }
+            }
+            for (BinaryDataCommand command : commands) {
+                try {
+                    // Releases undo data including spill files
+                    command.dispose();
+                } catch (BinaryDataOperationException ex) {
+                    Logger.getLogger(BinaryUndoSwingHandler.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+
+        @Override
+        public boolean addEdit(UndoableEdit anEdit) {
+            return false;
+        }
+
+        @Override
+        public boolean replaceEdit(UndoableEdit anEdit) {
+            return false;
+        }
+
+        @Override
+        public boolean isSignificant() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public String getPresentationName() {
+            return commands.get(0).getCaption();
+        }
+
+        @Nonnull
+        @Override
+        public String getUndoPresentationName() {
+            return "";
+        }
+
+        @Nonnull
+        @Override
+        public String getRedoPresentationName() {
+            return "";
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Hashes of fixed size blocks of data.
+ * <p>
+ * Used to detect which regions of a file were changed by comparing hashes of
+ * its blocks before and after the change.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BlockHashes {
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    private final long dataSize;
+    private final long[] hashes;
+
+    public BlockHashes(long dataSize, long[] hashes) {
+        this.dataSize = dataSize;
+        this.hashes = hashes;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public int getBlocksCount() {
+        return hashes.length;
+    }
+
+    public long getHash(int blockIndex) {
+        return hashes[blockIndex];
+    }
+
+    /**
+     * Returns blocks of this data which differ from given previous hashes.
+     * <p>
+     * Blocks beyond the end of previous data are always included.
+     *
+     * @param previous previous hashes
+     * @return set of changed block indexes
+     */
+    @Nonnull
+    public BitSet getChangedBlocks(BlockHashes previous) {
+        BitSet changedBlocks = new BitSet(hashes.length);
+        for (int blockIndex = 0; blockIndex < hashes.length; blockIndex++) {
+            if (blockIndex >= previous.hashes.length || hashes[blockIndex] != previous.hashes[blockIndex]) {
+                changedBlocks.set(blockIndex);
+            }
+        }
+        return changedBlocks;
+    }
+
+    /**
+     * Computes hash of single block.
+     *
+     * @param data data
+     * @param offset block offset
+     * @param length block length
+     * @return hash
+     */
+    public static long hashBlock(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        Adler32 adler = new Adler32();
+        adler.update(data, offset, length);
+        return (crc.getValue() << 32) | adler.getValue();
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Computes block hashes of the file.
+     * <p>
+     * Blocks are read by positional reads and hashed in parallel.
+     *
+     * @param file file
+     * @return block hashes
+     * @throws IOException if reading fails
+     */
+    @Nonnull
+    public static BlockHashes compute(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int blocksCount = (int) ((fileSize + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            long[] hashes = new long[blocksCount];
+            try {
+                IntStream.range(0, blocksCount).parallel().forEach((blockIndex) -> {
+                    try {
+                        byte[] block = readBlock(channel, fileSize, blockIndex);
+                        hashes[blockIndex] = hashBlock(block, 0, block.length);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            return new BlockHashes(fileSize, hashes);
+        }
+    }
+
+    /**
+     * Reads single block of the file.
+     *
+     * @param channel file channel
+     * @param fileSize size of the file
+     * @param blockIndex block index
+     * @return block data, shorter for the last block
+     * @throws IOException if reading fails
+     */
+    @Nonnull
+    public static byte[] readBlock(FileChannel channel, long fileSize, int blockIndex) throws IOException {
+        long position = (long) blockIndex * BLOCK_SIZE;
+        byte[] block = new byte[(int) Math.min(BLOCK_SIZE, fileSize - position)];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Builder computing block hashes from sequentially provided data.
+     */
+    @ParametersAreNonnullByDefault
+    public static class Builder {
+
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private int blockUsed = 0;
+        private long[] hashes = new long[16];
+        private int blocksCount = 0;
+        private long dataSize = 0;
+
+        private Builder() {
+        }
+
+        public void update(byte[] data, int offset, int length) {
+            dataSize += length;
+            while (length > 0) {
+                if (blockUsed == 0 && length >= BLOCK_SIZE) {
+                    addHash(hashBlock(data, offset, BLOCK_SIZE));
+                    offset += BLOCK_SIZE;
+                    length -= BLOCK_SIZE;
+                    continue;
+                }
+
+                int toCopy = Math.min(length, BLOCK_SIZE - blockUsed);
+                System.arraycopy(data, offset, block, blockUsed, toCopy);
+                blockUsed += toCopy;
+                offset += toCopy;
+                length -= toCopy;
+                if (blockUsed == BLOCK_SIZE) {
+                    addHash(hashBlock(block, 0, BLOCK_SIZE));
+                    blockUsed = 0;
+                }
+            }
+        }
+
+        @Nonnull
+        public BlockHashes build() {
+            if (blockUsed > 0) {
+                addHash(hashBlock(block, 0, blockUsed));
+                blockUsed = 0;
+            }
+            return new BlockHashes(dataSize, Arrays.copyOf(hashes, blocksCount));
+        }
+
+        private void addHash(long hash) {
+            if (blocksCount == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            hashes[blocksCount++] = hash;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Timer;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.ByteArrayData;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DataSegment;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.MemoryDataSource;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+
+/**
+ * Converter moving data between binary data representations in chunks.
+ * <p>
+ * Chunks are read from the front of the source data and appended to the
+ * target data. Memory of converted part of the source is released after each
+ * chunk: whole pages of paged data are replaced by shared empty page and
+ * converted part of delta document is removed and its memory sources closed.
+ * Data are shown using {@link #getViewData()} during conversion. Chunks are
+ * processed in separate events of the event dispatch thread to keep user
+ * interface responsive.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ChunkedDataConverter {
+
+    public static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final EditableBinaryData sourceData;
+    private final EditableBinaryData targetData;
+    private final ConversionListener listener;
+    private final long totalSize;
+    private final byte[] buffer;
+    private final Timer timer;
+    private final ConversionViewData viewData = new ConversionViewData();
+    private long position = 0;
+    private boolean stopped = false;
+
+    /**
+     * Count of pages of paged source data released so far.
+     */
+    private int releasedPages = 0;
+    private ByteArrayData emptyPage = null;
+    /**
+     * Length of converted part removed from delta source document.
+     */
+    private long removedLength = 0;
+    private Map<MemoryDataSource, Integer> sourceReferences = null;
+
+    /**
+     * Creates new converter.
+     *
+     * @param sourceData source data, must not be modified during conversion
+     * @param targetData target data to append converted data to
+     * @param listener conversion listener, invoked on event dispatch thread
+     */
+    public ChunkedDataConverter(EditableBinaryData sourceData, EditableBinaryData targetData, ConversionListener listener) {
+        this.sourceData = sourceData;
+        this.targetData = targetData;
+        this.listener = listener;
+        totalSize = sourceData.getDataSize();
+        buffer = new byte[(int) Math.min(CHUNK_SIZE, totalSize)];
+        timer = new Timer(0, (event) -> convertChunk());
+        timer.setRepeats(true);
+        if (sourceData instanceof DeltaDocument) {
+            sourceReferences = countMemoryReferences((DeltaDocument) sourceData);
+        }
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops conversion.
+     * <p>
+     * Converted part of source data is already released, so source data
+     * should be only disposed afterwards, target data keeps converted part.
+     */
+    public void stop() {
+        stopped = true;
+        timer.stop();
+    }
+
+    /**
+     * Stops conversion and moves converted part back to source data.
+     * <p>
+     * Target data can be disposed afterwards.
+     */
+    public void cancel() {
+        stop();
+        if (sourceData instanceof PagedData) {
+            restorePages((PagedData) sourceData);
+        } else if (sourceData instanceof DeltaDocument) {
+            restoreSegments((DeltaDocument) sourceData);
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Nonnull
+    public EditableBinaryData getSourceData() {
+        return sourceData;
+    }
+
+    @Nonnull
+    public EditableBinaryData getTargetData() {
+        return targetData;
+    }
+
+    /**
+     * Returns read-only data combining converted part of target data with
+     * rest of source data.
+     *
+     * @return view data
+     */
+    @Nonnull
+    public BinaryData getViewData() {
+        return viewData;
+    }
+
+    private void convertChunk() {
+        if (stopped) {
+            return;
+        }
+
+        if (position < totalSize) {
+            int chunkLength = (int) Math.min(buffer.length, totalSize - position);
+            sourceData.copyToArray(position - removedLength, buffer, 0, chunkLength);
+            // Ranged array insert is not reliable for delta document
+            targetData.insert(targetData.getDataSize(), chunkLength == buffer.length ? buffer : Arrays.copyOf(buffer, chunkLength));
+            position += chunkLength;
+            releaseConverted();
+            listener.chunkConverted(position, totalSize);
+        }
+
+        if (position == totalSize) {
+            stopped = true;
+            timer.stop();
+            listener.conversionFinished();
+        }
+    }
+
+    /**
+     * Releases memory of source data already copied to target data.
+     * <p>
+     * Source is released from the front, because target data can be only
+     * appended to: inserting at the beginning of paged data shifts all pages.
+     */
+    private void releaseConverted() {
+        if (sourceData instanceof PagedData) {
+            PagedData pagedData = (PagedData) sourceData;
+            int pageSize = pagedData.getPageSize();
+            if (emptyPage == null) {
+                emptyPage = new ByteArrayData(new byte[pageSize]);
+            }
+            // Last page is kept as data size depends on its length
+            int convertedPages = (int) Math.min(position / pageSize, pagedData.getPagesCount() - 1);
+            while (releasedPages < convertedPages) {
+                pagedData.setPage(releasedPages, emptyPage);
+                releasedPages++;
+            }
+        } else if (sourceData instanceof DeltaDocument) {
+            DeltaDocument document = (DeltaDocument) sourceData;
+            long convertedLength = position - removedLength;
+            List<MemoryDataSource> releasedSources = new ArrayList<>();
+            long segmentPosition = 0;
+            DataSegment segment = document.getSegments().first();
+            while (segment != null && segmentPosition + segment.getLength() <= convertedLength) {
+                if (segment instanceof MemorySegment) {
+                    releasedSources.add(((MemorySegment) segment).getSource());
+                }
+                segmentPosition += segment.getLength();
+                segment = document.getSegments().nextTo(segment);
+            }
+            document.remove(0, convertedLength);
+            removedLength = position;
+            releaseMemorySources(document.getRepository(), releasedSources, sourceReferences);
+        }
+    }
+
+    private void restorePages(PagedData pagedData) {
+        int pageSize = pagedData.getPageSize();
+        MemorySourcesRelease targetRelease = targetData instanceof DeltaDocument ? new MemorySourcesRelease((DeltaDocument) targetData) : null;
+        for (int pageIndex = 0; pageIndex < releasedPages; pageIndex++) {
+            byte[] page = new byte[pageSize];
+            long pagePosition = (long) pageIndex * pageSize;
+            targetData.copyToArray(pagePosition, page, 0, pageSize);
+            pagedData.setPage(pageIndex, new ByteArrayData(page));
+            if (targetRelease != null) {
+                targetRelease.releaseTo(pagePosition + pageSize);
+            }
+        }
+        releasedPages = 0;
+    }
+
+    private void restoreSegments(DeltaDocument document) {
+        // Restored from the back, so that converted target can be shortened at its end
+        SegmentsRepository repository = document.getRepository();
+        long end = removedLength;
+        while (end > 0) {
+            int chunkLength = (int) Math.min(CHUNK_SIZE, end);
+            long start = end - chunkLength;
+            byte[] chunk = new byte[chunkLength];
+            targetData.copyToArray(start, chunk, 0, chunkLength);
+            MemorySegment segment = repository.createMemorySegment();
+            repository.insertMemoryData(segment, 0, chunk);
+            document.insertSegment(0, segment);
+            targetData.remove(start, chunkLength);
+            end = start;
+        }
+        removedLength = 0;
+    }
+
+    @Nonnull
+    private static Map<MemoryDataSource, Integer> countMemoryReferences(DeltaDocument document) {
+        Map<MemoryDataSource, Integer> references = new HashMap<>();
+        for (DataSegment segment : document.getSegments()) {
+            if (segment instanceof MemorySegment) {
+                references.merge(((MemorySegment) segment).getSource(), 1, Integer::sum);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Closes memory sources no longer referenced by any segment.
+     */
+    private static void releaseMemorySources(SegmentsRepository repository, List<MemoryDataSource> releasedSources, Map<MemoryDataSource, Integer> references) {
+        for (MemoryDataSource source : releasedSources) {
+            int count = references.getOrDefault(source, 1) - 1;
+            if (count > 0) {
+                references.put(source, count);
+            } else {
+                references.remove(source);
+                repository.closeMemorySource(source);
+            }
+        }
+    }
+
+    /**
+     * Release of memory sources of delta document from its beginning.
+     */
+    private static class MemorySourcesRelease {
+
+        private final DeltaDocument document;
+        private final Map<MemoryDataSource, Integer> references;
+        private DataSegment segment;
+        private long segmentPosition = 0;
+
+        public MemorySourcesRelease(DeltaDocument document) {
+            this.document = document;
+            references = countMemoryReferences(document);
+            segment = document.getSegments().first();
+        }
+
+        public void releaseTo(long position) {
+            List<MemoryDataSource> releasedSources = new ArrayList<>();
+            while (segment != null && segmentPosition + segment.getLength() <= position) {
+                if (segment instanceof MemorySegment) {
+                    releasedSources.add(((MemorySegment) segment).getSource());
+                }
+                segmentPosition += segment.getLength();
+                segment = document.getSegments().nextTo(segment);
+            }
+            releaseMemorySources(document.getRepository(), releasedSources, references);
+        }
+    }
+
+    /**
+     * Read-only data showing converted part from target data and remaining
+     * part from source data.
+     */
+    private class ConversionViewData implements BinaryData {
+
+        @Override
+        public boolean isEmpty() {
+            return totalSize == 0;
+        }
+
+        @Override
+        public long getDataSize() {
+            return totalSize;
+        }
+
+        @Override
+        public byte getByte(long dataPosition) {
+            return dataPosition < position ? targetData.getByte(dataPosition) : sourceData.getByte(dataPosition - removedLength);
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy() {
+            return copy(0, totalSize);
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy(long startFrom, long length) {
+            PagedData result = new PagedData();
+            byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, length)];
+            while (length > 0) {
+                int chunkLength = (int) Math.min(chunk.length, length);
+                copyToArray(startFrom, chunk, 0, chunkLength);
+                result.insert(result.getDataSize(), chunk, 0, chunkLength);
+                startFrom += chunkLength;
+                length -= chunkLength;
+            }
+            return result;
+        }
+
+        @Override
+        public void copyToArray(long startFrom, byte[] target, int offset, int length) {
+            if (startFrom < position) {
+                int targetLength = (int) Math.min(length, position - startFrom);
+                targetData.copyToArray(startFrom, target, offset, targetLength);
+                startFrom += targetLength;
+                offset += targetLength;
+                length -= targetLength;
+            }
+            if (length > 0) {
+                sourceData.copyToArray(startFrom - removedLength, target, offset, length);
+            }
+        }
+
+        @Override
+        public void saveToStream(OutputStream outputStream) throws IOException {
+            byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, totalSize)];
+            long dataPosition = 0;
+            while (dataPosition < totalSize) {
+                int chunkLength = (int) Math.min(chunk.length, totalSize - dataPosition);
+                copyToArray(dataPosition, chunk, 0, chunkLength);
+                outputStream.write(chunk, 0, chunkLength);
+                dataPosition += chunkLength;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public InputStream getDataInputStream() {
+            return new InputStream() {
+                private long dataPosition = 0;
+
+                @Override
+                public int read() {
+                    return dataPosition < totalSize ? getByte(dataPosition++) & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] output, int offset, int length) {
+                    if (length == 0) {
+                        return 0;
+                    }
+                    if (dataPosition >= totalSize) {
+                        return -1;
+                    }
+
+                    int readLength = (int) Math.min(length, totalSize - dataPosition);
+                    copyToArray(dataPosition, output, offset, readLength);
+                    dataPosition += readLength;
+                    return readLength;
+                }
+            };
+        }
+
+        @Override
+        public void dispose() {
+            // Source and target data are disposed by owner of converter
+        }
+    }
+
+    /**
+     * Listener for conversion progress.
+     */
+    public interface ConversionListener {
+
+        /**
+         * Reports that next chunk was moved to target data.
+         *
+         * @param converted converted size
+         * @param totalSize total size
+         */
+        void chunkConverted(long converted, long totalSize);
+
+        /**
+         * Reports end of conversion.
+         *
+         * Source data can be disposed afterwards.
+         */
+        void conversionFinished();
+    }
+}
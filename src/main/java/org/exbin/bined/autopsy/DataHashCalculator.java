@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.autopsy.contentviewer.ContentBinaryData;
+
+/**
+ * Calculator of hashes and checksums of range of binary data.
+ * <p>
+ * Data are read once in chunks on background thread and all digests are
+ * updated from the same buffer in parallel, while the next chunk is read.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DataHashCalculator {
+
+    public static final int CHUNK_SIZE = 1024 * 1024;
+    public static final String CRC32_ALGORITHM = "CRC32";
+    public static final String[] DIGEST_ALGORITHMS = {"MD5", "SHA-1", "SHA-256"};
+    private static final long PROGRESS_INTERVAL = 100;
+
+    private final BinaryData data;
+    private final long startPosition;
+    private final long length;
+    private final boolean readOnEventThread;
+    private final CalculationListener listener;
+    private volatile boolean cancelled = false;
+    private Thread calculationThread = null;
+
+    /**
+     * Creates new calculator.
+     *
+     * @param data source data
+     * @param startPosition start position
+     * @param length length of hashed range
+     * @param readOnEventThread true if data are not safe to access outside of
+     * event dispatch thread
+     * @param listener calculation listener, invoked on event dispatch thread
+     */
+    public DataHashCalculator(BinaryData data, long startPosition, long length, boolean readOnEventThread, CalculationListener listener) {
+        this.data = data;
+        this.startPosition = startPosition;
+        this.length = length;
+        this.readOnEventThread = readOnEventThread;
+        this.listener = listener;
+    }
+
+    public void start() {
+        calculationThread = new Thread(this::calculate, "BinEd hash calculator");
+        calculationThread.setDaemon(true);
+        calculationThread.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (calculationThread != null) {
+            calculationThread.interrupt();
+        }
+    }
+
+    private void calculate() {
+        CRC32 crc = new CRC32();
+        List<MessageDigest> digests = new ArrayList<>();
+        try {
+            for (String algorithm : DIGEST_ALGORITHMS) {
+                digests.add(MessageDigest.getInstance(algorithm));
+            }
+        } catch (NoSuchAlgorithmException ex) {
+            Logger.getLogger(DataHashCalculator.class.getName()).log(Level.SEVERE, null, ex);
+            finish(null, 0);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(digests.size() + 1, (runnable) -> {
+            Thread thread = new Thread(runnable, "BinEd hash digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startTime = System.nanoTime();
+        try {
+            byte[][] buffers = new byte[2][(int) Math.min(CHUNK_SIZE, length)];
+            List<Future<?>> pending = new ArrayList<>();
+            long lastProgress = 0;
+            long done = 0;
+            int bufferIndex = 0;
+            while (done < length && !cancelled) {
+                byte[] buffer = buffers[bufferIndex];
+                int chunkLength = (int) Math.min(buffer.length, length - done);
+                readChunk(startPosition + done, buffer, chunkLength);
+                // Previous chunk has to be processed before digests accept next one
+                waitFor(pending);
+                pending.add(executor.submit(() -> crc.update(buffer, 0, chunkLength)));
+                for (MessageDigest digest : digests) {
+                    pending.add(executor.submit(() -> digest.update(buffer, 0, chunkLength)));
+                }
+                done += chunkLength;
+                bufferIndex = 1 - bufferIndex;
+
+                long now = System.currentTimeMillis();
+                if (now - lastProgress >= PROGRESS_INTERVAL) {
+                    lastProgress = now;
+                    final long processed = done;
+                    final double throughput = getThroughput(processed, startTime);
+                    SwingUtilities.invokeLater(() -> listener.progress(processed, length, throughput));
+                }
+            }
+            waitFor(pending);
+        } catch (InterruptedException ex) {
+            cancelled = true;
+        } catch (InvocationTargetException | ExecutionException | RuntimeException ex) {
+            Logger.getLogger(DataHashCalculator.class.getName()).log(Level.SEVERE, null, ex);
+            cancelled = true;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (cancelled) {
+            finish(null, 0);
+            return;
+        }
+
+        Map<String, String> hashes = new LinkedHashMap<>();
+        hashes.put(CRC32_ALGORITHM, String.format("%08x", crc.getValue()));
+        for (MessageDigest digest : digests) {
+            hashes.put(digest.getAlgorithm(), toHex(digest.digest()));
+        }
+        finish(hashes, getThroughput(length, startTime));
+    }
+
+    private void readChunk(long position, byte[] buffer, int chunkLength) throws InterruptedException, InvocationTargetException {
+        if (readOnEventThread) {
+            SwingUtilities.invokeAndWait(() -> {
+                // Data might be already replaced or disposed when cancelled
+                if (!cancelled) {
+                    data.copyToArray(position, buffer, 0, chunkLength);
+                }
+            });
+        } else if (data instanceof ContentBinaryData) {
+            ((ContentBinaryData) data).readData(position, buffer, 0, chunkLength);
+        } else {
+            data.copyToArray(position, buffer, 0, chunkLength);
+        }
+    }
+
+    private static void waitFor(List<Future<?>> pending) throws InterruptedException, ExecutionException {
+        for (Future<?> future : pending) {
+            future.get();
+        }
+        pending.clear();
+    }
+
+    private static double getThroughput(long processed, long startTime) {
+        long elapsed = Math.max(1, System.nanoTime() - startTime);
+        return processed / (1024.0 * 1024.0) * 1_000_000_000L / elapsed;
+    }
+
+    @Nonnull
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes) {
+            builder.append(String.format("%02x", value & 0xFF));
+        }
+        return builder.toString();
+    }
+
+    private void finish(@Nullable Map<String, String> hashes, double throughput) {
+        SwingUtilities.invokeLater(() -> listener.calculationFinished(hashes, throughput));
+    }
+
+    /**
+     * Listener for calculation progress.
+     */
+    public interface CalculationListener {
+
+        /**
+         * Reports progress of calculation.
+         *
+         * @param processed processed size
+         * @param total total size
+         * @param throughput throughput in MiB per second
+         */
+        void progress(long processed, long total, double throughput);
+
+        /**
+         * Reports end of calculation.
+         *
+         * @param hashes hashes in hexadecimal form ordered as computed or null
+         * if calculation was cancelled or failed
+         * @param throughput average throughput in MiB per second
+         */
+        void calculationFinished(@Nullable Map<String, String> hashes, double throughput);
+    }
+}
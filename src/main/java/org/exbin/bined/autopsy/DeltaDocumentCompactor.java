@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.delta.DataSegment;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.FileDataSource;
+import org.exbin.auxiliary.paged_data.delta.FileSegment;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+
+/**
+ * Compactor of fragmented delta document segments.
+ * <p>
+ * Runs of adjacent memory segments and small file segments are replaced by
+ * single memory segment and adjacent file segments continuing in the same
+ * file are replaced by single file segment. Content of the document is not
+ * changed.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DeltaDocumentCompactor {
+
+    /**
+     * Maximum length of file segment which is copied to memory when merged
+     * with neighbouring segments.
+     */
+    public static final long SMALL_SEGMENT_LENGTH = 4096;
+    /**
+     * Maximum length of memory segment created by merging.
+     */
+    public static final int MAX_MERGED_LENGTH = 1024 * 1024;
+    /**
+     * Minimum count of segments for compaction to be worth it.
+     */
+    public static final int MIN_SEGMENTS_COUNT = 64;
+
+    private final DeltaDocument document;
+    @Nullable
+    private DataSegment resumeSegment = null;
+    private long resumePosition = 0;
+
+    public DeltaDocumentCompactor(DeltaDocument document) {
+        this.document = document;
+    }
+
+    @Nonnull
+    public DeltaDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Checks whether document is fragmented enough for compaction.
+     *
+     * @return true if compaction is recommended
+     */
+    public boolean isCompactionRecommended() {
+        return document.getSegments().size() >= MIN_SEGMENTS_COUNT;
+    }
+
+    /**
+     * Restarts compaction from the start of the document.
+     * <p>
+     * Has to be called whenever document is changed by other means than
+     * compaction, as it invalidates resume segment.
+     */
+    public void reset() {
+        resumeSegment = null;
+        resumePosition = 0;
+    }
+
+    /**
+     * Performs limited count of merges.
+     *
+     * @param maxMerges maximum count of merges
+     * @return true if end of document was not reached
+     */
+    public boolean compact(int maxMerges) {
+        // Merges don't change content, so they are not recorded to the journal
+        EditJournal journal = null;
+        if (document instanceof JournaledDeltaDocument) {
+            journal = ((JournaledDeltaDocument) document).getJournal();
+            ((JournaledDeltaDocument) document).setJournal(null);
+        }
+        try {
+            int merges = 0;
+            while (merges < maxMerges) {
+                if (!mergeNextRun()) {
+                    reset();
+                    return false;
+                }
+                merges++;
+            }
+
+            return true;
+        } finally {
+            if (journal != null) {
+                ((JournaledDeltaDocument) document).setJournal(journal);
+            }
+        }
+    }
+
+    /**
+     * Finds and merges next run of segments starting at resume segment.
+     *
+     * @return false if there is no more run to merge
+     */
+    private boolean mergeNextRun() {
+        long position = resumePosition;
+        DataSegment segment = resumeSegment;
+        if (segment == null) {
+            if (position > 0) {
+                // Last merge reached end of the document
+                return false;
+            }
+            segment = document.getSegments().first();
+        }
+        while (segment != null) {
+            long segmentLength = segment.getLength();
+            int runCount = 1;
+            long runLength = segmentLength;
+            DataSegment runEnd = segment;
+            if (isMemoryMergeable(segment)) {
+                DataSegment next = runEnd.getNext();
+                while (next != null && isMemoryMergeable(next) && runLength + next.getLength() <= MAX_MERGED_LENGTH) {
+                    runLength += next.getLength();
+                    runCount++;
+                    runEnd = next;
+                    next = next.getNext();
+                }
+
+                if (runCount > 1) {
+                    byte[] data = new byte[(int) runLength];
+                    document.copyToArray(position, data, 0, data.length);
+                    document.remove(position, runLength);
+                    document.insert(position, data);
+                    moveResumeCursor(position + runLength);
+                    return true;
+                }
+            } else if (segment instanceof FileSegment) {
+                FileSegment fileSegment = (FileSegment) segment;
+                FileDataSource source = fileSegment.getSource();
+                DataSegment next = runEnd.getNext();
+                while (isFileContinuation(runEnd, next, source)) {
+                    runLength += next.getLength();
+                    runCount++;
+                    runEnd = next;
+                    next = next.getNext();
+                }
+
+                if (runCount > 1) {
+                    long startPosition = fileSegment.getStartPosition();
+                    document.remove(position, runLength);
+                    document.insertSegment(position, document.getRepository().createFileSegment(source, startPosition, runLength));
+                    moveResumeCursor(position + runLength);
+                    return true;
+                }
+            }
+
+            position += runLength;
+            segment = runEnd.getNext();
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets resume segment to the segment starting at given position.
+     * <p>
+     * Segment following merged run might be joined with the merged data, so it
+     * is located again using document pointer, which is positioned nearby
+     * after the merge.
+     *
+     * @param position position after merged run
+     */
+    private void moveResumeCursor(long position) {
+        if (position >= document.getDataSize()) {
+            resumeSegment = null;
+            resumePosition = position;
+            return;
+        }
+
+        DataSegment segment = document.getSegment(position);
+        if (position > 0 && document.getSegment(position - 1) == segment) {
+            // Segment doesn't start at given position, start over
+            reset();
+            return;
+        }
+
+        resumeSegment = segment;
+        resumePosition = position;
+    }
+
+    private static boolean isMemoryMergeable(DataSegment segment) {
+        return segment instanceof MemorySegment || segment.getLength() <= SMALL_SEGMENT_LENGTH;
+    }
+
+    private static boolean isFileContinuation(DataSegment segment, @Nullable DataSegment next, FileDataSource source) {
+        return next instanceof FileSegment && ((FileSegment) next).getSource() == source
+                && next.getStartPosition() == segment.getStartPosition() + segment.getLength();
+    }
+
+    /**
+     * Computes segment statistics of the document.
+     *
+     * @param document delta document
+     * @return statistics
+     */
+    @Nonnull
+    public static Statistics computeStatistics(DeltaDocument document) {
+        Statistics statistics = new Statistics();
+        for (DataSegment segment : document.getSegments()) {
+            if (segment instanceof MemorySegment) {
+                statistics.memorySegmentsCount++;
+                statistics.memoryDataSize += segment.getLength();
+            } else {
+                statistics.fileSegmentsCount++;
+            }
+        }
+        statistics.dataSize = document.getDataSize();
+        return statistics;
+    }
+
+    /**
+     * Segment statistics of the document.
+     */
+    public static class Statistics {
+
+        private long dataSize;
+        private int fileSegmentsCount;
+        private int memorySegmentsCount;
+        private long memoryDataSize;
+
+        public long getDataSize() {
+            return dataSize;
+        }
+
+        public int getSegmentsCount() {
+            return fileSegmentsCount + memorySegmentsCount;
+        }
+
+        public int getFileSegmentsCount() {
+            return fileSegmentsCount;
+        }
+
+        public int getMemorySegmentsCount() {
+            return memorySegmentsCount;
+        }
+
+        public long getMemoryDataSize() {
+            return memoryDataSize;
+        }
+
+        public long getAverageSegmentSize() {
+            int segmentsCount = getSegmentsCount();
+            return segmentsCount == 0 ? 0 : dataSize / segmentsCount;
+        }
+    }
+}
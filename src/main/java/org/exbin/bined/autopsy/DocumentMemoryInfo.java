@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.beans.ConstructorProperties;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Memory usage of single opened document.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DocumentMemoryInfo {
+
+    private final String fileName;
+    private final String handlingMode;
+    private final long fileSize;
+    private final long dataSize;
+    private final int segmentsCount;
+    private final long memoryDataSize;
+    private final long undoMemorySize;
+    private final long cacheMemorySize;
+
+    @ConstructorProperties({"fileName", "handlingMode", "fileSize", "dataSize", "segmentsCount", "memoryDataSize", "undoMemorySize", "cacheMemorySize"})
+    public DocumentMemoryInfo(String fileName, String handlingMode, long fileSize, long dataSize, int segmentsCount, long memoryDataSize, long undoMemorySize, long cacheMemorySize) {
+        this.fileName = fileName;
+        this.handlingMode = handlingMode;
+        this.fileSize = fileSize;
+        this.dataSize = dataSize;
+        this.segmentsCount = segmentsCount;
+        this.memoryDataSize = memoryDataSize;
+        this.undoMemorySize = undoMemorySize;
+        this.cacheMemorySize = cacheMemorySize;
+    }
+
+    @Nonnull
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Nonnull
+    public String getHandlingMode() {
+        return handlingMode;
+    }
+
+    /**
+     * Returns size of the file on storage.
+     *
+     * @return size or -1 if document has no file
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    /**
+     * Returns count of delta document segments.
+     *
+     * @return count or 0 if document is not segmented
+     */
+    public int getSegmentsCount() {
+        return segmentsCount;
+    }
+
+    /**
+     * Returns size of document data held in heap.
+     *
+     * @return size in bytes
+     */
+    public long getMemoryDataSize() {
+        return memoryDataSize;
+    }
+
+    public long getUndoMemorySize() {
+        return undoMemorySize;
+    }
+
+    public long getCacheMemorySize() {
+        return cacheMemorySize;
+    }
+
+    public long getTotalMemorySize() {
+        return memoryDataSize + undoMemorySize + cacheMemorySize;
+    }
+}
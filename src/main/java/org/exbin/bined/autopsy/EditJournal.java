@@ -0,0 +1,641 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.delta.DataSegment;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.FileDataSource;
+import org.exbin.auxiliary.paged_data.delta.FileSegment;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+
+/**
+ * Crash recovery journal of delta document.
+ * <p>
+ * Journal is append-only file of records, each describing single modification
+ * of the document: removed range, inserted or overwritten bytes, or inserted
+ * range of the original file. Records are written on shared background thread,
+ * records queued meanwhile are written together, and forced to the storage
+ * device periodically. Recording waits when too much data is queued. When journal grows too large,
+ * it is rewritten on the same thread to the current segment layout. Journal is
+ * bound to the size and modification time of the original file, so it is only
+ * replayed over the same file content it was recorded for.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class EditJournal {
+
+    private static final long MAGIC = 0x42696e45644a6e6cL;
+    private static final int VERSION = 2;
+    private static final byte RECORD_INSERT_DATA = 0;
+    private static final byte RECORD_INSERT_FILE = 1;
+    private static final byte RECORD_INSERT_EMPTY = 2;
+    private static final byte RECORD_OVERWRITE_DATA = 3;
+    private static final byte RECORD_FILL = 4;
+    private static final byte RECORD_REMOVE = 5;
+    private static final byte RECORD_CLEAR = 6;
+    private static final int RECORD_HEADER_SIZE = 1 + 8 + 8 + 8;
+    private static final int RECORD_CHECKSUM_SIZE = 8;
+    private static final int BUFFER_SIZE = 65536;
+    private static final int BATCH_SIZE = 4 * BUFFER_SIZE;
+    private static final long MAXIMUM_QUEUED_SIZE = 16 * 1024 * 1024;
+    private static final long FORCE_INTERVAL = 2000;
+    private static final long COMPACT_SIZE = 64 * 1024 * 1024;
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "BinEd edit journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File targetFile;
+    private final File journalFile;
+    private final long fileSize;
+    private final long fileModified;
+
+    private final Object queueLock = new Object();
+    // Guarded by queue lock
+    private long queuedSize = 0;
+
+    // Accessed only from writer thread
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_SIZE);
+    private FileChannel channel = null;
+    private long recoveredLength = -1;
+    private long compactSize = COMPACT_SIZE;
+    private boolean failed = false;
+    private boolean forcePending = false;
+
+    public EditJournal(File targetFile) {
+        this.targetFile = targetFile.getAbsoluteFile();
+        journalFile = getJournalFile(this.targetFile);
+        fileSize = targetFile.length();
+        fileModified = targetFile.lastModified();
+    }
+
+    /**
+     * Records insertion of bytes.
+     *
+     * @param position document position
+     * @param data data
+     * @param offset offset in data
+     * @param length length of data
+     */
+    public void recordInsert(long position, byte[] data, int offset, int length) {
+        while (length > 0) {
+            int chunkLength = Math.min(length, BUFFER_SIZE);
+            append(encodeRecord(RECORD_INSERT_DATA, position, chunkLength, 0, data, offset));
+            position += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    /**
+     * Records insertion of bytes copied from given data.
+     *
+     * @param position document position
+     * @param data source data
+     * @param startFrom position in source data
+     * @param length length of inserted data
+     */
+    public void recordInsert(long position, BinaryData data, long startFrom, long length) {
+        while (length > 0) {
+            int chunkLength = (int) Math.min(length, BUFFER_SIZE);
+            byte[] chunk = new byte[chunkLength];
+            data.copyToArray(startFrom, chunk, 0, chunkLength);
+            append(encodeRecord(RECORD_INSERT_DATA, position, chunkLength, 0, chunk, 0));
+            position += chunkLength;
+            startFrom += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    /**
+     * Records insertion of range of the original file.
+     *
+     * @param position document position
+     * @param fileStartPosition position in file
+     * @param length length of range
+     */
+    public void recordInsertFile(long position, long fileStartPosition, long length) {
+        append(encodeRecord(RECORD_INSERT_FILE, position, length, fileStartPosition, null, 0));
+    }
+
+    public void recordInsertEmpty(long position, long length) {
+        append(encodeRecord(RECORD_INSERT_EMPTY, position, length, 0, null, 0));
+    }
+
+    public void recordOverwrite(long position, byte[] data, int offset, int length) {
+        while (length > 0) {
+            int chunkLength = Math.min(length, BUFFER_SIZE);
+            append(encodeRecord(RECORD_OVERWRITE_DATA, position, chunkLength, 0, data, offset));
+            position += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    public void recordFill(long position, long length, byte value) {
+        append(encodeRecord(RECORD_FILL, position, length, value, null, 0));
+    }
+
+    public void recordRemove(long position, long length) {
+        append(encodeRecord(RECORD_REMOVE, position, length, 0, null, 0));
+    }
+
+    public void recordClear() {
+        append(encodeRecord(RECORD_CLEAR, 0, 0, 0, null, 0));
+    }
+
+    /**
+     * Deletes journal, typically after document was saved or changes were
+     * discarded.
+     * <p>
+     * Journal can be used further for modifications of the document matching
+     * content of the file.
+     */
+    public void discard() {
+        writer.execute(() -> {
+            // Records written so far are deleted with the journal
+            batch.clear();
+            closeChannel();
+            recoveredLength = -1;
+            compactSize = COMPACT_SIZE;
+            failed = false;
+            try {
+                Files.deleteIfExists(journalFile.toPath());
+            } catch (IOException ex) {
+                Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        });
+    }
+
+    /**
+     * Encodes record with checksum on calling thread, so that passed data
+     * can be reused.
+     */
+    @Nonnull
+    private static ByteBuffer encodeRecord(byte type, long position, long length, long argument, @Nullable byte[] data, int offset) {
+        int dataLength = data == null ? 0 : (int) length;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + dataLength + RECORD_CHECKSUM_SIZE);
+        buffer.put(type);
+        buffer.putLong(position);
+        buffer.putLong(length);
+        buffer.putLong(argument);
+        if (data != null) {
+            buffer.put(data, offset, dataLength);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(checksum.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Queues record for writing.
+     * <p>
+     * Waits while too much data is queued, so that memory used by records
+     * copied from large modifications stays bounded.
+     */
+    private void append(ByteBuffer record) {
+        int recordSize = record.remaining();
+        synchronized (queueLock) {
+            while (queuedSize > 0 && queuedSize + recordSize > MAXIMUM_QUEUED_SIZE) {
+                try {
+                    queueLock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            queuedSize += recordSize;
+        }
+
+        writer.execute(() -> {
+            boolean lastQueued;
+            synchronized (queueLock) {
+                queuedSize -= recordSize;
+                lastQueued = queuedSize == 0;
+                queueLock.notifyAll();
+            }
+            if (failed) {
+                return;
+            }
+
+            if (batch.remaining() < recordSize) {
+                writeBatch();
+            }
+            batch.put(record);
+            if (lastQueued) {
+                writeBatch();
+            }
+        });
+    }
+
+    /**
+     * Writes records collected in batch by single write.
+     */
+    private void writeBatch() {
+        if (failed || batch.position() == 0) {
+            return;
+        }
+
+        try {
+            if (channel == null) {
+                openChannel();
+            }
+
+            batch.flip();
+            writeFully(channel, batch);
+            batch.clear();
+            if (channel.size() > compactSize) {
+                compactJournal();
+            } else if (!forcePending) {
+                forcePending = true;
+                writer.schedule(this::forceChannel, FORCE_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException ex) {
+            // Journal missing any record can't be replayed
+            Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, ex);
+            failed = true;
+            batch.clear();
+            closeChannel();
+            try {
+                Files.deleteIfExists(journalFile.toPath());
+            } catch (IOException deleteEx) {
+                Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, deleteEx);
+            }
+        }
+    }
+
+    private void openChannel() throws IOException {
+        Path journalPath = journalFile.toPath();
+        if (recoveredLength >= 0) {
+            // Continue after last valid replayed record
+            channel = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+            channel.truncate(recoveredLength);
+            channel.position(recoveredLength);
+            recoveredLength = -1;
+            return;
+        }
+
+        journalFile.getParentFile().mkdirs();
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(channel);
+    }
+
+    /**
+     * Rewrites journal to the current segment layout of the document.
+     * <p>
+     * Layout is obtained by replaying journal to the private document.
+     */
+    private void compactJournal() throws IOException {
+        channel.force(false);
+        Path journalPath = journalFile.toPath();
+        Path tempPath = journalPath.resolveSibling(journalFile.getName() + ".tmp");
+        SegmentsRepository repository = new SegmentsRepository();
+        FileDataSource fileSource = repository.openFileSource(targetFile, FileDataSource.EditMode.READ_ONLY);
+        try {
+            DeltaDocument document = repository.createDocument(fileSource);
+            try {
+                readRecords(journalFile, null, (record) -> applyRecord(document, fileSource, record));
+                try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeHeader(tempChannel);
+                    writeLayout(tempChannel, document);
+                    tempChannel.force(true);
+                }
+            } finally {
+                document.dispose();
+            }
+        } finally {
+            repository.closeFileSource(fileSource);
+        }
+
+        closeChannel();
+        try {
+            Files.move(tempPath, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Don't compact again until journal grows significantly
+        compactSize = Math.max(COMPACT_SIZE, channel.size() * 2);
+    }
+
+    private void writeHeader(FileChannel targetChannel) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(targetChannel), BUFFER_SIZE));
+        output.writeLong(MAGIC);
+        output.writeInt(VERSION);
+        output.writeUTF(targetFile.getPath());
+        output.writeLong(fileSize);
+        output.writeLong(fileModified);
+        output.flush();
+    }
+
+    private static void writeLayout(FileChannel targetChannel, DeltaDocument document) throws IOException {
+        writeFully(targetChannel, encodeRecord(RECORD_CLEAR, 0, 0, 0, null, 0));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long position = 0;
+        for (DataSegment segment : document.getSegments()) {
+            long length = segment.getLength();
+            if (segment instanceof FileSegment) {
+                writeFully(targetChannel, encodeRecord(RECORD_INSERT_FILE, position, length, segment.getStartPosition(), null, 0));
+            } else {
+                BinaryData source = ((MemorySegment) segment).getSource();
+                long offset = 0;
+                while (offset < length) {
+                    int chunkLength = (int) Math.min(buffer.length, length - offset);
+                    source.copyToArray(segment.getStartPosition() + offset, buffer, 0, chunkLength);
+                    writeFully(targetChannel, encodeRecord(RECORD_INSERT_DATA, position + offset, chunkLength, 0, buffer, 0));
+                    offset += chunkLength;
+                }
+            }
+            position += length;
+        }
+    }
+
+    private static void writeFully(FileChannel targetChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            targetChannel.write(buffer);
+        }
+    }
+
+    private void forceChannel() {
+        forcePending = false;
+        writeBatch();
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } catch (IOException ex) {
+                Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Checks whether journal with recoverable changes exists for given file.
+     *
+     * @param targetFile target file
+     * @return true if journal matching current file exists
+     */
+    public static boolean hasRecoverableChanges(File targetFile) {
+        File journalFile = getJournalFile(targetFile.getAbsoluteFile());
+        if (!journalFile.isFile()) {
+            return false;
+        }
+
+        try {
+            boolean[] hasRecord = new boolean[1];
+            readRecords(journalFile, targetFile.getAbsoluteFile(), (record) -> hasRecord[0] = true);
+            return hasRecord[0];
+        } catch (IOException ex) {
+            Logger.getLogger(EditJournal.class.getName()).log(Level.WARNING, null, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Replays recorded modifications to the document.
+     * <p>
+     * Further records are appended after the last replayed record.
+     *
+     * @param document delta document opened for the target file
+     * @return true if modifications were recovered
+     */
+    public boolean replay(DeltaDocument document) {
+        FileDataSource fileSource = document.getFileSource();
+        if (fileSource == null) {
+            return false;
+        }
+
+        try {
+            long[] recordsCount = new long[1];
+            long validLength = readRecords(journalFile, targetFile, (record) -> {
+                applyRecord(document, fileSource, record);
+                recordsCount[0]++;
+            });
+            if (recordsCount[0] == 0) {
+                return false;
+            }
+
+            writer.execute(() -> recoveredLength = validLength);
+            return true;
+        } catch (IOException ex) {
+            Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
+        }
+    }
+
+    private static void applyRecord(DeltaDocument document, FileDataSource fileSource, JournalRecord record) {
+        switch (record.type) {
+            case RECORD_INSERT_DATA:
+                // Ranged array insert doesn't update memory segment length correctly
+                document.insert(record.position, record.data);
+                break;
+            case RECORD_INSERT_FILE:
+                document.insertSegment(record.position, document.getRepository().createFileSegment(fileSource, record.argument, record.length));
+                break;
+            case RECORD_INSERT_EMPTY:
+                document.insert(record.position, record.length);
+                break;
+            case RECORD_OVERWRITE_DATA:
+                document.replace(record.position, record.data);
+                break;
+            case RECORD_FILL:
+                document.fillData(record.position, record.length, (byte) record.argument);
+                break;
+            case RECORD_REMOVE:
+                document.remove(record.position, record.length);
+                break;
+            case RECORD_CLEAR:
+                document.clear();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected record type " + record.type);
+        }
+    }
+
+    /**
+     * Reads complete records of the journal.
+     *
+     * @param journalFile journal file
+     * @param targetFile target file to check header against or null to skip
+     * check
+     * @param consumer records consumer
+     * @return length of the journal up to the end of the last complete record
+     * or -1 if journal doesn't match target file
+     */
+    private static long readRecords(File journalFile, @Nullable File targetFile, RecordConsumer consumer) throws IOException {
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(journalFile.toPath()), BUFFER_SIZE))) {
+            DataInputStream input = new DataInputStream(counting);
+            try {
+                if (input.readLong() != MAGIC || input.readInt() != VERSION) {
+                    return -1;
+                }
+                String path = input.readUTF();
+                long recordedSize = input.readLong();
+                long recordedModified = input.readLong();
+                if (targetFile != null && (!targetFile.getPath().equals(path) || recordedSize != targetFile.length() || recordedModified != targetFile.lastModified())) {
+                    // Original file was changed since journal was written
+                    return -1;
+                }
+            } catch (EOFException ex) {
+                return -1;
+            }
+
+            long validLength = counting.count;
+            try {
+                while (true) {
+                    CheckedInputStream checkedInput = new CheckedInputStream(counting, new CRC32());
+                    DataInputStream recordInput = new DataInputStream(checkedInput);
+                    JournalRecord record = new JournalRecord();
+                    record.type = recordInput.readByte();
+                    record.position = recordInput.readLong();
+                    record.length = recordInput.readLong();
+                    record.argument = recordInput.readLong();
+                    if (record.type < RECORD_INSERT_DATA || record.type > RECORD_CLEAR || record.position < 0 || record.length < 0) {
+                        break;
+                    }
+                    if (record.type == RECORD_INSERT_DATA || record.type == RECORD_OVERWRITE_DATA) {
+                        if (record.length > BUFFER_SIZE) {
+                            break;
+                        }
+                        record.data = new byte[(int) record.length];
+                        recordInput.readFully(record.data);
+                    }
+                    long checksum = checkedInput.getChecksum().getValue();
+                    if (input.readLong() != checksum) {
+                        break;
+                    }
+                    consumer.accept(record);
+                    validLength = counting.count;
+                }
+            } catch (EOFException ex) {
+                // Incomplete last record
+            }
+            return validLength;
+        }
+    }
+
+    @Nonnull
+    private static File getJournalFile(File targetFile) {
+        CRC32 pathHash = new CRC32();
+        pathHash.update(targetFile.getPath().getBytes(StandardCharsets.UTF_8));
+        String name = targetFile.getName() + "-" + Long.toHexString(pathHash.getValue()) + JOURNAL_SUFFIX;
+        return new File(getJournalDirectory(), name);
+    }
+
+    @Nonnull
+    private static File getJournalDirectory() {
+        String userDirectory = System.getProperty("netbeans.user");
+        if (userDirectory != null) {
+            return new File(userDirectory, "var" + File.separator + "bined" + File.separator + "journal");
+        }
+
+        return new File(System.getProperty("java.io.tmpdir"), "bined-journal");
+    }
+
+    private static class JournalRecord {
+
+        private byte type;
+        private long position;
+        private long length;
+        private long argument;
+        private byte[] data;
+    }
+
+    private interface RecordConsumer {
+
+        void accept(JournalRecord record);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        public CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            long skipped = super.skip(length);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Watcher for changes of opened files performed outside of the editor.
+ * <p>
+ * Local files are watched using single shared watch service registered on
+ * parent directories, other files fall back to file object listeners.
+ * Listeners are notified on event dispatch thread.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FileChangeWatcher {
+
+    private static FileChangeWatcher instance = null;
+
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> directoryKeys = new HashMap<>();
+    private final Map<Path, List<Runnable>> fileListeners = new HashMap<>();
+
+    private FileChangeWatcher() {
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            Logger.getLogger(FileChangeWatcher.class.getName()).log(Level.INFO, "Watch service not available", ex);
+        }
+        watchService = service;
+
+        if (watchService != null) {
+            Thread watchThread = new Thread(this::processEvents, "BinEd file watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+    }
+
+    @Nonnull
+    public static synchronized FileChangeWatcher getInstance() {
+        if (instance == null) {
+            instance = new FileChangeWatcher();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Starts watching given file for changes.
+     *
+     * @param fileObject watched file
+     * @param listener listener invoked on event dispatch thread
+     * @return registration to cancel watching
+     */
+    @Nonnull
+    public Registration watch(FileObject fileObject, Runnable listener) {
+        File file = FileUtil.toFile(fileObject);
+        if (file != null && watchService != null) {
+            Registration registration = watchPath(file.toPath().toAbsolutePath(), listener);
+            if (registration != null) {
+                return registration;
+            }
+        }
+
+        FileChangeListener fileChangeListener = new FileChangeAdapter() {
+            @Override
+            public void fileChanged(FileEvent fe) {
+                SwingUtilities.invokeLater(listener);
+            }
+
+            @Override
+            public void fileDeleted(FileEvent fe) {
+                SwingUtilities.invokeLater(listener);
+            }
+
+            @Override
+            public void fileRenamed(FileRenameEvent fe) {
+                SwingUtilities.invokeLater(listener);
+            }
+
+            @Override
+            public void fileAttributeChanged(FileAttributeEvent fe) {
+            }
+        };
+        fileObject.addFileChangeListener(fileChangeListener);
+        return () -> fileObject.removeFileChangeListener(fileChangeListener);
+    }
+
+    @Nullable
+    private synchronized Registration watchPath(Path path, Runnable listener) {
+        Path directory = path.getParent();
+        if (directory == null) {
+            return null;
+        }
+
+        if (!directoryKeys.containsKey(directory)) {
+            try {
+                WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+                directoryKeys.put(directory, key);
+            } catch (IOException | UnsupportedOperationException ex) {
+                Logger.getLogger(FileChangeWatcher.class.getName()).log(Level.FINE, null, ex);
+                return null;
+            }
+        }
+
+        fileListeners.computeIfAbsent(path, p -> new ArrayList<>()).add(listener);
+        return () -> unwatchPath(path, listener);
+    }
+
+    private synchronized void unwatchPath(Path path, Runnable listener) {
+        List<Runnable> listeners = fileListeners.get(path);
+        if (listeners == null || !listeners.remove(listener)) {
+            return;
+        }
+
+        if (listeners.isEmpty()) {
+            fileListeners.remove(path);
+            Path directory = path.getParent();
+            boolean directoryUsed = false;
+            for (Path watchedPath : fileListeners.keySet()) {
+                if (directory.equals(watchedPath.getParent())) {
+                    directoryUsed = true;
+                    break;
+                }
+            }
+            if (!directoryUsed) {
+                WatchKey key = directoryKeys.remove(directory);
+                if (key != null) {
+                    key.cancel();
+                }
+            }
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            List<Runnable> notified = new ArrayList<>();
+            synchronized (this) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost, notify all files in directory
+                        fileListeners.forEach((path, listeners) -> {
+                            if (directory.equals(path.getParent())) {
+                                addMissing(notified, listeners);
+                            }
+                        });
+                    } else {
+                        List<Runnable> listeners = fileListeners.get(directory.resolve((Path) event.context()));
+                        if (listeners != null) {
+                            addMissing(notified, listeners);
+                        }
+                    }
+                }
+
+                if (!key.reset()) {
+                    directoryKeys.remove(directory);
+                }
+            }
+
+            notified.forEach(SwingUtilities::invokeLater);
+        }
+    }
+
+    private static void addMissing(List<Runnable> target, List<Runnable> listeners) {
+        for (Runnable listener : listeners) {
+            if (!target.contains(listener)) {
+                target.add(listener);
+            }
+        }
+    }
+
+    /**
+     * Registration of watched file.
+     */
+    public interface Registration {
+
+        /**
+         * Stops watching of the file.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+
+/**
+ * Reloader of in-memory document updating only changed blocks.
+ * <p>
+ * Block hashes of the file are computed in parallel on background thread and
+ * compared with hashes of the data loaded previously. Only changed blocks are
+ * read and then written to the document on event dispatch thread.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class IncrementalReloader {
+
+    /**
+     * Maximum size of changed blocks for which incremental reload is used.
+     */
+    public static final long MAX_CHANGED_SIZE = 64 * 1024 * 1024;
+
+    private final File file;
+    private final BlockHashes previousHashes;
+    private final ReloadListener listener;
+
+    public IncrementalReloader(File file, BlockHashes previousHashes, ReloadListener listener) {
+        this.file = file;
+        this.previousHashes = previousHashes;
+        this.listener = listener;
+    }
+
+    public void start() {
+        Thread reloadThread = new Thread(() -> {
+            Changes changes = null;
+            try {
+                changes = computeChanges();
+            } catch (IOException ex) {
+                Logger.getLogger(IncrementalReloader.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            final Changes finishedChanges = changes;
+            SwingUtilities.invokeLater(() -> listener.changesComputed(finishedChanges));
+        }, "BinEd incremental reload");
+        reloadThread.setDaemon(true);
+        reloadThread.start();
+    }
+
+    /**
+     * Computes changes of the file.
+     *
+     * @return changes or null if too much of the file was changed
+     * @throws IOException if reading fails
+     */
+    @Nullable
+    private Changes computeChanges() throws IOException {
+        BlockHashes currentHashes = BlockHashes.compute(file);
+        BitSet changedBlocks = currentHashes.getChangedBlocks(previousHashes);
+        if ((long) changedBlocks.cardinality() * BlockHashes.BLOCK_SIZE > MAX_CHANGED_SIZE) {
+            return null;
+        }
+
+        List<ChangedBlock> blocks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = currentHashes.getDataSize();
+            if (channel.size() != fileSize) {
+                // File is still being written
+                return null;
+            }
+
+            for (int blockIndex = changedBlocks.nextSetBit(0); blockIndex >= 0; blockIndex = changedBlocks.nextSetBit(blockIndex + 1)) {
+                byte[] block = BlockHashes.readBlock(channel, fileSize, blockIndex);
+                if (BlockHashes.hashBlock(block, 0, block.length) != currentHashes.getHash(blockIndex)) {
+                    return null;
+                }
+                blocks.add(new ChangedBlock((long) blockIndex * BlockHashes.BLOCK_SIZE, block));
+            }
+        }
+
+        return new Changes(currentHashes, blocks);
+    }
+
+    /**
+     * Applies changes to the data.
+     * <p>
+     * Data must match the content of the file for which previous hashes were
+     * computed.
+     *
+     * @param data target data
+     * @param changes changes
+     */
+    public static void applyChanges(EditableBinaryData data, Changes changes) {
+        for (ChangedBlock block : changes.blocks) {
+            long position = block.position;
+            byte[] blockData = block.data;
+            int overlap = (int) Math.max(0, Math.min(blockData.length, data.getDataSize() - position));
+            if (overlap > 0) {
+                data.replace(position, blockData, 0, overlap);
+            }
+            if (overlap < blockData.length) {
+                data.insert(position + overlap, blockData, overlap, blockData.length - overlap);
+            }
+        }
+
+        long newSize = changes.hashes.getDataSize();
+        if (data.getDataSize() > newSize) {
+            data.remove(newSize, data.getDataSize() - newSize);
+        }
+    }
+
+    /**
+     * Changes of the file.
+     */
+    @ParametersAreNonnullByDefault
+    public static class Changes {
+
+        private final BlockHashes hashes;
+        private final List<ChangedBlock> blocks;
+
+        private Changes(BlockHashes hashes, List<ChangedBlock> blocks) {
+            this.hashes = hashes;
+            this.blocks = blocks;
+        }
+
+        @Nonnull
+        public BlockHashes getHashes() {
+            return hashes;
+        }
+
+        public long getChangedSize() {
+            long changedSize = 0;
+            for (ChangedBlock block : blocks) {
+                changedSize += block.data.length;
+            }
+            return changedSize;
+        }
+    }
+
+    private static class ChangedBlock {
+
+        private final long position;
+        private final byte[] data;
+
+        public ChangedBlock(long position, byte[] data) {
+            this.position = position;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Listener for reload result.
+     */
+    public interface ReloadListener {
+
+        /**
+         * Reports computed changes, invoked on event dispatch thread.
+         *
+         * @param changes changes or null if incremental reload is not possible
+         */
+        void changesComputed(@Nullable Changes changes);
+    }
+}
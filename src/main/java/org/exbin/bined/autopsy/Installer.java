@@ -28,9 +28,11 @@ public class Installer extends ModuleInstall {
 
     @Override
     public void restored() {
+        BinEdDiagnostics.register();
     }
 
     @Override
     public void uninstalled() {
+        BinEdDiagnostics.unregister();
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.delta.DataSegment;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.FileDataSource;
+import org.exbin.auxiliary.paged_data.delta.FileSegment;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+
+/**
+ * Delta document reporting each modification to the edit journal.
+ * <p>
+ * Only basic modifications are recorded, compound ones like replace are
+ * recorded as sequence of basic modifications they are performed by. Data
+ * inserted from the original file are recorded as file ranges.
+ * <p>
+ * Document is not registered in segments repository, so it has to be the only
+ * document opened for its file source.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JournaledDeltaDocument extends DeltaDocument {
+
+    @Nullable
+    private EditJournal journal = null;
+
+    public JournaledDeltaDocument(SegmentsRepository repository, FileDataSource fileSource) throws IOException {
+        super(repository, fileSource);
+    }
+
+    @Nullable
+    public EditJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets journal to record modifications to.
+     *
+     * @param journal journal or null to stop recording
+     */
+    public void setJournal(@Nullable EditJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void setByte(long position, byte value) {
+        super.setByte(position, value);
+        if (journal != null) {
+            journal.recordOverwrite(position, new byte[]{value}, 0, 1);
+        }
+    }
+
+    @Override
+    public void insertUninitialized(long position, long length) {
+        super.insertUninitialized(position, length);
+        if (journal != null) {
+            journal.recordInsertEmpty(position, length);
+        }
+    }
+
+    @Override
+    public void insert(long position, long length) {
+        super.insert(position, length);
+        if (journal != null) {
+            journal.recordInsertEmpty(position, length);
+        }
+    }
+
+    @Override
+    public void insert(long position, byte[] data) {
+        super.insert(position, data);
+        if (journal != null) {
+            journal.recordInsert(position, data, 0, data.length);
+        }
+    }
+
+    @Override
+    public void insert(long position, byte[] data, int offset, int length) {
+        super.insert(position, data, offset, length);
+        if (journal != null) {
+            journal.recordInsert(position, data, offset, length);
+        }
+    }
+
+    @Override
+    public void insert(long position, BinaryData data) {
+        if (journal != null) {
+            // Inserted data might be this document
+            recordInsert(journal, position, data, 0, data.getDataSize());
+        }
+        super.insert(position, data);
+    }
+
+    @Override
+    public void insert(long position, BinaryData data, long startFrom, long length) {
+        if (journal != null) {
+            recordInsert(journal, position, data, startFrom, length);
+        }
+        super.insert(position, data, startFrom, length);
+    }
+
+    @Override
+    public void insertSegment(long position, DataSegment segment) {
+        super.insertSegment(position, segment);
+        if (journal != null && !recordSegment(journal, position, segment, 0, segment.getLength())) {
+            journal.recordInsert(position, this, position, segment.getLength());
+        }
+    }
+
+    @Override
+    public long insert(long position, InputStream stream, long maximumDataSize) throws IOException {
+        long length = super.insert(position, stream, maximumDataSize);
+        if (journal != null) {
+            journal.recordInsert(position, this, position, length);
+        }
+        return length;
+    }
+
+    @Override
+    public void fillData(long position, long length, byte value) {
+        super.fillData(position, length, value);
+        if (journal != null) {
+            journal.recordFill(position, length, value);
+        }
+    }
+
+    @Override
+    public void remove(long position, long length) {
+        super.remove(position, length);
+        if (journal != null) {
+            journal.recordRemove(position, length);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (journal != null) {
+            journal.recordClear();
+        }
+    }
+
+    @Override
+    public void loadFromStream(InputStream stream) throws IOException {
+        EditJournal activeJournal = journal;
+        // Loaded data are not inserted using public methods, record them at once
+        journal = null;
+        try {
+            super.loadFromStream(stream);
+        } finally {
+            journal = activeJournal;
+        }
+        if (journal != null) {
+            journal.recordClear();
+            journal.recordInsert(0, this, 0, getDataSize());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        journal = null;
+        super.dispose();
+    }
+
+    private void recordInsert(EditJournal targetJournal, long position, BinaryData data, long startFrom, long length) {
+        if (!(data instanceof DeltaDocument)) {
+            targetJournal.recordInsert(position, data, startFrom, length);
+            return;
+        }
+
+        long segmentPosition = 0;
+        long endPosition = startFrom + length;
+        DataSegment segment = ((DeltaDocument) data).getSegments().first();
+        while (segment != null && segmentPosition < endPosition) {
+            long segmentEnd = segmentPosition + segment.getLength();
+            if (segmentEnd > startFrom) {
+                long offset = Math.max(startFrom - segmentPosition, 0);
+                long partLength = Math.min(segmentEnd, endPosition) - segmentPosition - offset;
+                if (!recordSegment(targetJournal, position, segment, offset, partLength)) {
+                    targetJournal.recordInsert(position, data, segmentPosition + offset, partLength);
+                }
+                position += partLength;
+            }
+            segmentPosition = segmentEnd;
+            segment = segment.getNext();
+        }
+    }
+
+    /**
+     * Records part of the segment if its content can be referenced.
+     *
+     * @return false if segment belongs to other file
+     */
+    private boolean recordSegment(EditJournal targetJournal, long position, DataSegment segment, long offset, long length) {
+        if (segment instanceof MemorySegment) {
+            targetJournal.recordInsert(position, ((MemorySegment) segment).getSource(), segment.getStartPosition() + offset, length);
+            return true;
+        }
+        if (((FileSegment) segment).getSource() == getFileSource()) {
+            targetJournal.recordInsertFile(position, segment.getStartPosition() + offset, length);
+            return true;
+        }
+
+        return false;
+    }
+}
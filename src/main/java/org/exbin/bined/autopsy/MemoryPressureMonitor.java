@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.management.NotificationEmitter;
+import javax.swing.SwingUtilities;
+
+/**
+ * Monitor of heap memory pressure.
+ * <p>
+ * Checks usage of heap memory pools after each garbage collection and when it
+ * exceeds threshold, asks opened files to release memory by switching
+ * unmodified documents from memory to delta mode. Thresholds of memory pools
+ * are process-wide settings and they are left untouched.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class MemoryPressureMonitor {
+
+    /**
+     * Fraction of maximum pool size which is considered as low memory.
+     */
+    public static final double USAGE_THRESHOLD = 0.8;
+
+    private static MemoryPressureMonitor instance = null;
+
+    private final Set<BinEdFile> files = Collections.newSetFromMap(new WeakHashMap<>());
+    private boolean installed = false;
+    private boolean demotionPending = false;
+
+    private MemoryPressureMonitor() {
+    }
+
+    @Nonnull
+    public static synchronized MemoryPressureMonitor getInstance() {
+        if (instance == null) {
+            instance = new MemoryPressureMonitor();
+        }
+
+        return instance;
+    }
+
+    public synchronized void register(BinEdFile file) {
+        files.add(file);
+        if (!installed) {
+            install();
+        }
+    }
+
+    public synchronized void unregister(BinEdFile file) {
+        files.remove(file);
+    }
+
+    /**
+     * Returns currently registered files.
+     *
+     * @return list of files
+     */
+    @Nonnull
+    public synchronized List<BinEdFile> getFiles() {
+        return new ArrayList<>(files);
+    }
+
+    private void install() {
+        installed = true;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> checkMemoryUsage(), null, null);
+            }
+        }
+    }
+
+    /**
+     * Checks usage of heap pools after garbage collection.
+     *
+     * Usage after garbage collection avoids reacting to collectable garbage.
+     * Only pools supporting usage threshold are checked, which excludes young
+     * generation pools which are small and expected to be full.
+     */
+    private void checkMemoryUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0 && usage.getUsed() > usage.getMax() * USAGE_THRESHOLD) {
+                scheduleDemotion();
+                return;
+            }
+        }
+    }
+
+    private synchronized void scheduleDemotion() {
+        if (demotionPending) {
+            return;
+        }
+
+        demotionPending = true;
+        SwingUtilities.invokeLater(this::demoteDocuments);
+    }
+
+    private void demoteDocuments() {
+        List<BinEdFile> demotedFiles;
+        synchronized (this) {
+            demotionPending = false;
+            demotedFiles = new ArrayList<>(files);
+        }
+
+        for (BinEdFile file : demotedFiles) {
+            file.releaseMemory();
+        }
+    }
+}
@@ -79,6 +79,8 @@ class Savable extends AbstractSavable {
 
     @Override
     protected void handleSave() throws IOException {
-        fileApi.saveDocument();
+        if (!fileApi.saveDocument()) {
+            throw new IOException("Document was not saved");
+        }
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.action;
+
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.event.ActionEvent;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.undo.BinaryDataUndoHandler;
+import org.exbin.bined.swing.extended.ExtCodeArea;
+import org.exbin.framework.bined.gui.BitwiseOperationPanel;
+import org.exbin.framework.bined.operation.BitwiseDataOperation;
+import org.exbin.framework.bined.operation.BitwiseDataOperation.BitwiseOperationType;
+import org.exbin.framework.bined.operation.TransformDataCommand;
+import org.exbin.framework.utils.WindowUtils;
+import org.exbin.framework.utils.WindowUtils.DialogWrapper;
+import org.exbin.framework.utils.handler.DefaultControlHandler;
+import org.exbin.framework.utils.handler.DefaultControlHandler.ControlActionType;
+import org.exbin.framework.utils.gui.DefaultControlPanel;
+
+/**
+ * Bitwise operation over selection action.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BitwiseOperationAction extends AbstractAction {
+
+    private final ExtCodeArea codeArea;
+    private BinaryDataUndoHandler undoHandler;
+
+    public BitwiseOperationAction(ExtCodeArea codeArea) {
+        this.codeArea = codeArea;
+    }
+
+    public void setUndoHandler(BinaryDataUndoHandler undoHandler) {
+        this.undoHandler = undoHandler;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        if (!codeArea.hasSelection()) {
+            return;
+        }
+
+        final BitwiseOperationPanel bitwiseOperationPanel = new BitwiseOperationPanel();
+        DefaultControlPanel controlPanel = new DefaultControlPanel(bitwiseOperationPanel.getResourceBundle());
+        JPanel dialogPanel = WindowUtils.createDialogPanel(bitwiseOperationPanel, controlPanel);
+        final DialogWrapper dialog = WindowUtils.createDialog(dialogPanel, (Component) event.getSource(), bitwiseOperationPanel.getResourceBundle().getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+        controlPanel.setHandler((DefaultControlHandler.ControlActionType actionType) -> {
+            if (actionType == ControlActionType.OK) {
+                BitwiseOperationType operationType = bitwiseOperationPanel.getOperationType();
+                byte[] key;
+                try {
+                    key = bitwiseOperationPanel.getKey();
+                    if (key.length == 0 && (operationType == BitwiseOperationType.XOR || operationType == BitwiseOperationType.AND || operationType == BitwiseOperationType.OR)) {
+                        throw new IllegalArgumentException(bitwiseOperationPanel.getResourceBundle().getString("invalidKey.message"));
+                    }
+                } catch (IllegalArgumentException ex) {
+                    JOptionPane.showMessageDialog(dialog.getWindow(), ex.getMessage(), bitwiseOperationPanel.getResourceBundle().getString("dialog.title"), JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                SelectionRange selection = codeArea.getSelection();
+                BitwiseDataOperation operation = new BitwiseDataOperation(codeArea, selection.getFirst(), selection.getLength(), operationType, key, bitwiseOperationPanel.getRotateBits());
+                try {
+                    undoHandler.execute(new TransformDataCommand(operation));
+                } catch (BinaryDataOperationException ex) {
+                    Logger.getLogger(BitwiseOperationAction.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+
+            dialog.close();
+            dialog.dispose();
+        });
+        SwingUtilities.invokeLater(bitwiseOperationPanel::initFocus);
+        dialog.showCentered((Component) event.getSource());
+    }
+}
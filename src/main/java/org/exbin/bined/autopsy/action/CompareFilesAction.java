@@ -20,10 +20,11 @@ import java.awt.Dialog;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,7 +37,12 @@ import javax.swing.JPanel;
 import org.exbin.bined.swing.extended.ExtCodeArea;
 import org.exbin.auxiliary.paged_data.BinaryData;
 import org.exbin.auxiliary.paged_data.ByteArrayData;
-import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.FileDataSource;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+import org.exbin.bined.autopsy.BinEdFile;
+import org.exbin.bined.autopsy.BinaryDataDiff;
+import org.exbin.bined.autopsy.contentviewer.ContentBinaryData;
 import org.exbin.framework.bined.gui.CompareFilesPanel;
 import org.exbin.framework.utils.WindowUtils;
 import org.exbin.framework.utils.gui.CloseControlPanel;
@@ -50,6 +56,8 @@ import org.exbin.framework.utils.gui.CloseControlPanel;
 public class CompareFilesAction extends AbstractAction {
 
     private final ExtCodeArea codeArea;
+    private final Map<DeltaDocument, File> loadedFiles = new IdentityHashMap<>();
+    private BinaryDataDiff diff = null;
 
     public CompareFilesAction(ExtCodeArea codeArea) {
         this.codeArea = codeArea;
@@ -82,10 +90,13 @@ public class CompareFilesAction extends AbstractAction {
                     return null;
                 }
 
-                try ( FileInputStream stream = new FileInputStream(result[0])) {
-                    PagedData pagedData = new PagedData();
-                    pagedData.loadFromStream(stream);
-                    return new CompareFilesPanel.FileRecord(result[0].getAbsolutePath(), pagedData);
+                try {
+                    // File is accessed lazily instead of loading it to memory
+                    SegmentsRepository segmentsRepository = BinEdFile.getSegmentsRepository();
+                    FileDataSource fileSource = segmentsRepository.openFileSource(result[0], FileDataSource.EditMode.READ_ONLY);
+                    DeltaDocument document = segmentsRepository.createDocument(fileSource);
+                    loadedFiles.put(document, result[0]);
+                    return new CompareFilesPanel.FileRecord(result[0].getAbsolutePath(), document);
                 } catch (IOException ex) {
                     Logger.getLogger(CompareFilesAction.class.getName()).log(Level.SEVERE, null, ex);
                 }
@@ -98,9 +109,59 @@ public class CompareFilesAction extends AbstractAction {
                 BinaryData contentData = codeArea.getContentData();
                 return contentData != null ? contentData : new ByteArrayData();
             }
+
+            @Override
+            public void computeDiff(BinaryData leftData, BinaryData rightData) {
+                cancelDiff();
+                if (leftData == rightData) {
+                    compareFilesPanel.setDiffRanges(new ArrayList<>(), true);
+                    return;
+                }
+
+                diff = new BinaryDataDiff(createDiffSource(leftData), createDiffSource(rightData), (result) -> {
+                    diff = null;
+                    compareFilesPanel.setDiffRanges(result == null ? null : result.getRanges(), result == null || result.isComplete());
+                });
+                diff.start();
+            }
         });
         compareFilesPanel.setAvailableFiles(availableFiles);
         compareFilesPanel.setLeftIndex(1);
         dialog.showCentered((Component) event.getSource());
+
+        cancelDiff();
+        disposeLoadedFiles();
+    }
+
+    @Nonnull
+    private BinaryDataDiff.DiffSource createDiffSource(BinaryData data) {
+        File file = loadedFiles.get(data);
+        if (file != null) {
+            // Loaded file is read using separate channel so that it is not shared with painting
+            return BinaryDataDiff.createFileSource(file);
+        }
+
+        // Content from case data source is read-only and safe to read in background
+        return BinaryDataDiff.createDataSource(data, !(data instanceof ContentBinaryData));
+    }
+
+    private void cancelDiff() {
+        if (diff != null) {
+            diff.cancel();
+            diff = null;
+        }
+    }
+
+    private void disposeLoadedFiles() {
+        SegmentsRepository segmentsRepository = BinEdFile.getSegmentsRepository();
+        for (DeltaDocument document : loadedFiles.keySet()) {
+            FileDataSource fileSource = document.getFileSource();
+            document.dispose();
+            if (fileSource != null) {
+                segmentsRepository.detachFileSource(fileSource);
+                segmentsRepository.closeFileSource(fileSource);
+            }
+        }
+        loadedFiles.clear();
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.action;
+
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.JTextArea;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.EditMode;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.autopsy.DataHashCalculator;
+import org.exbin.bined.autopsy.contentviewer.ContentBinaryData;
+import org.exbin.bined.swing.extended.ExtCodeArea;
+
+/**
+ * Compute hashes of selection or whole content action.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ComputeHashesAction extends AbstractAction {
+
+    private static final String OPERATION_TEXT = "Computing hashes...";
+    private static final String PROGRESS_TEXT_FORMAT = "Computing hashes (%.1f MB/s)...";
+    private static final String RESULT_TITLE = "Hashes";
+    private static final String RESULT_HEADER_FORMAT = "Range: 0x%X - 0x%X (%d bytes)%nThroughput: %.1f MB/s%n%n";
+
+    private final ExtCodeArea codeArea;
+    private final ProgressHandler progressHandler;
+    private DataHashCalculator calculator = null;
+    private Runnable restoreHandler = null;
+
+    public ComputeHashesAction(ExtCodeArea codeArea, ProgressHandler progressHandler) {
+        this.codeArea = codeArea;
+        this.progressHandler = progressHandler;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        BinaryData data = codeArea.getContentData();
+        if (data == null || calculator != null || progressHandler.isProgressShown()) {
+            // Other operation like loading or conversion is running
+            return;
+        }
+
+        long startPosition;
+        long length;
+        if (codeArea.hasSelection()) {
+            SelectionRange selection = codeArea.getSelection();
+            startPosition = selection.getFirst();
+            length = selection.getLength();
+        } else {
+            startPosition = 0;
+            length = data.getDataSize();
+        }
+
+        // Content from case data source is read-only and safe to read in background
+        boolean readOnEventThread = !(data instanceof ContentBinaryData);
+        EditMode editMode = codeArea.getEditMode();
+        if (readOnEventThread) {
+            // Hashed range must not change during calculation
+            codeArea.setEditMode(EditMode.READ_ONLY);
+        }
+
+        DataHashCalculator[] runningCalculator = new DataHashCalculator[1];
+        runningCalculator[0] = new DataHashCalculator(data, startPosition, length, readOnEventThread, new DataHashCalculator.CalculationListener() {
+            @Override
+            public void progress(long processed, long total, double throughput) {
+                if (calculator == runningCalculator[0]) {
+                    progressHandler.updateProgress(processed, total, String.format(PROGRESS_TEXT_FORMAT, throughput));
+                }
+            }
+
+            @Override
+            public void calculationFinished(@Nullable Map<String, String> hashes, double throughput) {
+                if (calculator != runningCalculator[0]) {
+                    // Already cancelled
+                    return;
+                }
+
+                finishCalculation();
+                if (hashes != null) {
+                    showResult(hashes, startPosition, length, throughput);
+                }
+            }
+        });
+        calculator = runningCalculator[0];
+        restoreHandler = () -> {
+            if (readOnEventThread) {
+                codeArea.setEditMode(editMode);
+            }
+        };
+        progressHandler.showProgress(OPERATION_TEXT, this::cancel);
+        calculator.start();
+    }
+
+    public boolean isRunning() {
+        return calculator != null;
+    }
+
+    /**
+     * Cancels running calculation.
+     *
+     * Progress is hidden and edit mode restored immediately, so that other
+     * operation can be started right after.
+     */
+    public void cancel() {
+        if (calculator != null) {
+            calculator.cancel();
+            finishCalculation();
+        }
+    }
+
+    private void finishCalculation() {
+        calculator = null;
+        progressHandler.hideProgress();
+        restoreHandler.run();
+        restoreHandler = null;
+    }
+
+    private void showResult(Map<String, String> hashes, long startPosition, long length, double throughput) {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format(RESULT_HEADER_FORMAT, startPosition, startPosition + length - 1, length, throughput));
+        hashes.forEach((algorithm, hash) -> result.append(String.format("%-8s %s%n", algorithm, hash)));
+        JTextArea resultTextArea = new JTextArea(result.toString().trim());
+        resultTextArea.setEditable(false);
+        resultTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JOptionPane.showMessageDialog(codeArea, resultTextArea, RESULT_TITLE, JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Handler for displaying progress of calculation.
+     */
+    public interface ProgressHandler {
+
+        /**
+         * Returns true if progress of other operation is shown.
+         *
+         * @return true if progress is shown
+         */
+        boolean isProgressShown();
+
+        void showProgress(String operationText, Runnable cancelHandler);
+
+        void updateProgress(long done, long total, String operationText);
+
+        void hideProgress();
+    }
+}
@@ -133,7 +133,7 @@ public final class SearchAction implements ActionListener {
                     SearchCondition replaceCondition = replaceParameters.getCondition();
                     ExtendedHighlightCodeAreaPainter painter = (ExtendedHighlightCodeAreaPainter) codeArea.getPainter();
                     ExtendedHighlightCodeAreaPainter.SearchMatch currentMatch = painter.getCurrentMatch();
-                    if (currentMatch != null) {
+                    if (currentMatch != null && codeArea.isEditable()) {
                         EditableBinaryData editableData = ((EditableBinaryData) codeArea.getContentData());
                         editableData.remove(currentMatch.getPosition(), currentMatch.getLength());
                         if (replaceCondition.getSearchMode() == SearchCondition.SearchMode.BINARY) {
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.action;
+
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractAction;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.swing.extended.ExtCodeArea;
+import org.exbin.framework.bined.gui.StructTemplatePanel;
+import org.exbin.framework.bined.template.StructTemplates;
+import org.exbin.framework.bined.template.TemplateFieldsCodeAreaPainter;
+import org.exbin.framework.bined.template.TemplateNode;
+import org.exbin.framework.utils.WindowUtils;
+import org.exbin.framework.utils.gui.CloseControlPanel;
+
+/**
+ * Structure template view action.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StructTemplateAction extends AbstractAction {
+
+    private final ExtCodeArea codeArea;
+    private StructTemplates builtInTemplates = null;
+
+    public StructTemplateAction(ExtCodeArea codeArea) {
+        this.codeArea = codeArea;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        final StructTemplatePanel structTemplatePanel = new StructTemplatePanel();
+        ResourceBundle panelResourceBundle = structTemplatePanel.getResourceBundle();
+        CloseControlPanel controlPanel = new CloseControlPanel(panelResourceBundle);
+        JPanel dialogPanel = WindowUtils.createDialogPanel(structTemplatePanel, controlPanel);
+        Dimension preferredSize = dialogPanel.getPreferredSize();
+        dialogPanel.setPreferredSize(new Dimension(preferredSize.width, preferredSize.height + 300));
+        final WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(dialogPanel, (Component) event.getSource(), panelResourceBundle.getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+        controlPanel.setHandler(dialog::close);
+
+        structTemplatePanel.setController(new StructTemplatePanel.Controller() {
+            @Nullable
+            @Override
+            public StructTemplates openTemplates() {
+                JFileChooser fileChooser = new JFileChooser();
+                int dialogResult = fileChooser.showOpenDialog(structTemplatePanel);
+                if (dialogResult != JFileChooser.APPROVE_OPTION) {
+                    return null;
+                }
+
+                try (InputStream stream = new FileInputStream(fileChooser.getSelectedFile())) {
+                    return StructTemplates.load(stream);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(structTemplatePanel, ex.getMessage(), "Unable to load templates", JOptionPane.ERROR_MESSAGE);
+                    return null;
+                }
+            }
+
+            @Override
+            public void highlightFields(List<TemplateNode> visibleFields, @Nullable TemplateNode selectedField) {
+                if (codeArea.getPainter() instanceof TemplateFieldsCodeAreaPainter) {
+                    ((TemplateFieldsCodeAreaPainter) codeArea.getPainter()).setFields(visibleFields, selectedField);
+                }
+            }
+        });
+
+        if (builtInTemplates == null) {
+            try {
+                builtInTemplates = StructTemplates.loadBuiltInTemplates();
+            } catch (IOException ex) {
+                Logger.getLogger(StructTemplateAction.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        if (builtInTemplates != null) {
+            structTemplatePanel.addTemplates(builtInTemplates);
+        }
+
+        BinaryData contentData = codeArea.getContentData();
+        long startPosition = codeArea.hasSelection() ? codeArea.getSelection().getFirst() : codeArea.getDataPosition();
+        structTemplatePanel.setData(contentData, startPosition);
+        dialog.showCentered((Component) event.getSource());
+
+        if (codeArea.getPainter() instanceof TemplateFieldsCodeAreaPainter) {
+            // Search matches are kept as they are highlighted separately
+            ((TemplateFieldsCodeAreaPainter) codeArea.getPainter()).clearFields();
+        }
+    }
+}
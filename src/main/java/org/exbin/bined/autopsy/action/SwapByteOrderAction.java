@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.action;
+
+import java.awt.event.ActionEvent;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractAction;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.undo.BinaryDataUndoHandler;
+import org.exbin.bined.swing.extended.ExtCodeArea;
+import org.exbin.framework.bined.operation.SwapByteOrderOperation;
+import org.exbin.framework.bined.operation.TransformDataCommand;
+
+/**
+ * Swap byte order of selection action.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class SwapByteOrderAction extends AbstractAction {
+
+    private final ExtCodeArea codeArea;
+    private final int unitSize;
+    private BinaryDataUndoHandler undoHandler;
+
+    public SwapByteOrderAction(ExtCodeArea codeArea, int unitSize) {
+        this.codeArea = codeArea;
+        this.unitSize = unitSize;
+    }
+
+    public void setUndoHandler(BinaryDataUndoHandler undoHandler) {
+        this.undoHandler = undoHandler;
+    }
+
+    public int getUnitSize() {
+        return unitSize;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        if (!codeArea.hasSelection()) {
+            return;
+        }
+
+        SelectionRange selection = codeArea.getSelection();
+        SwapByteOrderOperation operation = new SwapByteOrderOperation(codeArea, selection.getFirst(), selection.getLength(), unitSize);
+        try {
+            undoHandler.execute(new TransformDataCommand(operation));
+        } catch (BinaryDataOperationException ex) {
+            Logger.getLogger(SwapByteOrderAction.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+}
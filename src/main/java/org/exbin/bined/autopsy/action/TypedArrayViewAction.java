@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.action;
+
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.util.ResourceBundle;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractAction;
+import javax.swing.JPanel;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.swing.extended.ExtCodeArea;
+import org.exbin.framework.bined.gui.TypedArrayPanel;
+import org.exbin.framework.utils.WindowUtils;
+import org.exbin.framework.utils.gui.CloseControlPanel;
+
+/**
+ * View selection as typed array action.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TypedArrayViewAction extends AbstractAction {
+
+    private final ExtCodeArea codeArea;
+
+    public TypedArrayViewAction(ExtCodeArea codeArea) {
+        this.codeArea = codeArea;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        if (!codeArea.hasSelection()) {
+            return;
+        }
+
+        final TypedArrayPanel typedArrayPanel = new TypedArrayPanel();
+        SelectionRange selection = codeArea.getSelection();
+        typedArrayPanel.setData(codeArea.getContentData(), selection.getFirst(), selection.getLength());
+        ResourceBundle panelResourceBundle = typedArrayPanel.getResourceBundle();
+        CloseControlPanel controlPanel = new CloseControlPanel(panelResourceBundle);
+        JPanel dialogPanel = WindowUtils.createDialogPanel(typedArrayPanel, controlPanel);
+        Dimension preferredSize = dialogPanel.getPreferredSize();
+        dialogPanel.setPreferredSize(new Dimension(preferredSize.width, preferredSize.height + 200));
+        final WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(dialogPanel, (Component) event.getSource(), panelResourceBundle.getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+        controlPanel.setHandler(dialog::close);
+        dialog.showCentered((Component) event.getSource());
+    }
+}
@@ -27,6 +27,11 @@ import org.sleuthkit.datamodel.TskCoreException;
 
 /**
  * Content binary data.
+ * <p>
+ * Small reads of user interface go through cache of two pages, lock guards
+ * only the cache, not reading of the data source. Background readers should
+ * use {@link #readData(long, byte[], int, int)} which reads data source
+ * directly.
  */
 @ParametersAreNonnullByDefault
 public class ContentBinaryData implements BinaryData {
@@ -58,29 +63,12 @@ public class ContentBinaryData implements BinaryData {
     public byte getByte(long position) {
         long pageIndex = position / PAGE_SIZE;
         int pageOffset = (int) (position % PAGE_SIZE);
-        CachePage page;
-
-        if (pages[0].index == pageIndex && pages[0].data != null) {
-            page = pages[0];
-        } else if (pages[1].index == pageIndex && pages[1].data != null) {
-            page = pages[1];
-        } else {
-            byte[] data = getPage(pageIndex);
-            if (data == null) {
-                return -1;
-            }
-
-            pages[nextPage].data = data;
-            pages[nextPage].index = pageIndex;
-            page = pages[nextPage];
-            nextPage = 1 - nextPage;
-        }
-
-        if (pageOffset >= page.data.length) {
+        byte[] page = getCachedPage(pageIndex);
+        if (pageOffset >= page.length) {
             return -1;
         }
 
-        return page.data[pageOffset];
+        return page[pageOffset];
     }
 
     @Nonnull
@@ -99,37 +87,20 @@ public class ContentBinaryData implements BinaryData {
         while (length > 0) {
             long pageIndex = startFrom / PAGE_SIZE;
             int pageOffset = (int) (startFrom % PAGE_SIZE);
-            CachePage page;
-
-            if (pages[0].index == pageIndex && pages[0].data != null) {
-                page = pages[0];
-            } else if (pages[1].index == pageIndex && pages[1].data != null) {
-                page = pages[1];
-            } else {
-                byte[] data = getPage(pageIndex);
-                if (data == null) {
-                    throw createIndexOutOfBoundsException();
-                }
-
-                pages[nextPage].data = data;
-                pages[nextPage].index = pageIndex;
-                page = pages[nextPage];
-                nextPage = 1 - nextPage;
-            }
-
-            if (pageOffset >= page.data.length) {
+            byte[] page = getCachedPage(pageIndex);
+            if (pageOffset >= page.length) {
                 throw createIndexOutOfBoundsException();
             }
 
             int copyLength = length > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) length;
-            if (pageOffset + copyLength > page.data.length) {
-                copyLength = page.data.length - pageOffset;
+            if (pageOffset + copyLength > page.length) {
+                copyLength = page.length - pageOffset;
             }
             if (copyLength == 0) {
                 throw createIndexOutOfBoundsException();
             }
 
-            result.replace(offset, page.data, pageOffset, copyLength);
+            result.replace(offset, page, pageOffset, copyLength);
             startFrom += copyLength;
             offset += copyLength;
             length -= copyLength;
@@ -143,43 +114,74 @@ public class ContentBinaryData implements BinaryData {
         while (length > 0) {
             long pageIndex = startFrom / PAGE_SIZE;
             int pageOffset = (int) (startFrom % PAGE_SIZE);
-            CachePage page;
-
-            if (pages[0].index == pageIndex && pages[0].data != null) {
-                page = pages[0];
-            } else if (pages[1].index == pageIndex && pages[1].data != null) {
-                page = pages[1];
-            } else {
-                byte[] data = getPage(pageIndex);
-                if (data == null) {
-                    throw createIndexOutOfBoundsException();
-                }
-
-                pages[nextPage].data = data;
-                pages[nextPage].index = pageIndex;
-                page = pages[nextPage];
-                nextPage = 1 - nextPage;
-            }
-
-            if (pageOffset >= page.data.length) {
+            byte[] page = getCachedPage(pageIndex);
+            if (pageOffset >= page.length) {
                 throw createIndexOutOfBoundsException();
             }
 
             int copyLength = length;
-            if (pageOffset + copyLength > page.data.length) {
-                copyLength = page.data.length - pageOffset;
+            if (pageOffset + copyLength > page.length) {
+                copyLength = page.length - pageOffset;
             }
             if (copyLength == 0) {
                 throw createIndexOutOfBoundsException();
             }
 
-            System.arraycopy(page.data, pageOffset, target, offset, copyLength);
+            System.arraycopy(page, pageOffset, target, offset, copyLength);
             startFrom += copyLength;
             offset += copyLength;
             length -= copyLength;
         }
     }
 
+    /**
+     * Reads data directly from data source without using page cache.
+     * <p>
+     * Intended for large sequential reads of background threads.
+     *
+     * @param startFrom start position
+     * @param target target array
+     * @param offset offset in target array
+     * @param length length of data
+     */
+    public void readData(long startFrom, byte[] target, int offset, int length) {
+        // Content fills buffer from its beginning
+        byte[] buffer = offset == 0 ? target : new byte[length];
+        int read;
+        try {
+            read = dataSource.read(buffer, startFrom, length);
+        } catch (TskCoreException ex) {
+            throw new TskReadException("Error when trying to read data", ex, startFrom, length);
+        }
+        if (read < length) {
+            throw createIndexOutOfBoundsException();
+        }
+        if (buffer != target) {
+            System.arraycopy(buffer, 0, target, offset, length);
+        }
+    }
+
+    @Nonnull
+    private byte[] getCachedPage(long pageIndex) {
+        synchronized (pages) {
+            if (pages[0].index == pageIndex && pages[0].data != null) {
+                return pages[0].data;
+            } else if (pages[1].index == pageIndex && pages[1].data != null) {
+                return pages[1].data;
+            }
+        }
+
+        // Data source is read outside of lock
+        byte[] data = getPage(pageIndex);
+        synchronized (pages) {
+            pages[nextPage].data = data;
+            pages[nextPage].index = pageIndex;
+            nextPage = 1 - nextPage;
+        }
+        return data;
+    }
+
+    @Nonnull
     private byte[] getPage(long pageIndex) {
         long position = pageIndex * PAGE_SIZE;
         long size = dataSource.getSize();
@@ -217,8 +219,10 @@ public class ContentBinaryData implements BinaryData {
     }
 
     public void clearCache() {
-        pages[0].clear();
-        pages[1].clear();
+        synchronized (pages) {
+            pages[0].clear();
+            pages[1].clear();
+        }
     }
 
     private static class CachePage {
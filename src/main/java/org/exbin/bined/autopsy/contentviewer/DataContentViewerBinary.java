@@ -30,9 +30,9 @@ import javax.swing.JMenuItem;
 import org.exbin.bined.EditMode;
 import org.exbin.bined.autopsy.gui.BinEdComponentFileApi;
 import org.exbin.bined.autopsy.gui.BinEdComponentPanel;
-import org.exbin.bined.highlight.swing.extended.ExtendedHighlightNonAsciiCodeAreaPainter;
 import org.exbin.bined.swing.extended.ExtCodeArea;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.template.TemplateFieldsCodeAreaPainter;
 import org.exbin.framework.utils.LanguageUtils;
 import org.openide.nodes.Node;
 import org.openide.util.NbBundle.Messages;
@@ -74,7 +74,7 @@ public class DataContentViewerBinary extends javax.swing.JPanel implements DataC
             }
 
             @Override
-            public void saveDocument() {
+            public boolean saveDocument() {
                 throw new IllegalStateException();
             }
 
@@ -90,7 +90,7 @@ public class DataContentViewerBinary extends javax.swing.JPanel implements DataC
         });
         ExtCodeArea codeArea = componentPanel.getCodeArea();
         codeArea.setEditMode(EditMode.READ_ONLY);
-        codeArea.setPainter(new ExtendedHighlightNonAsciiCodeAreaPainter(codeArea) {
+        codeArea.setPainter(new TemplateFieldsCodeAreaPainter(codeArea) {
             @Override
             public void paintComponent(Graphics g) {
                 try {
@@ -28,7 +28,12 @@ public interface BinEdComponentFileApi {
 
     boolean isSaveSupported();
 
-    void saveDocument();
+    /**
+     * Saves document.
+     *
+     * @return true if document was saved
+     */
+    boolean saveDocument();
 
     void switchFileHandlingMode(FileHandlingMode newHandlingMode);
 
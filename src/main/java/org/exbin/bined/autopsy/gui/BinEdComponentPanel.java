@@ -42,6 +42,7 @@ import javax.swing.JSeparator;
 import javax.swing.JViewport;
 import javax.swing.KeyStroke;
 import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
 import org.exbin.bined.CodeAreaCaretPosition;
 import org.exbin.bined.EditMode;
 import org.exbin.bined.EditOperation;
@@ -49,14 +50,20 @@ import org.exbin.bined.PositionCodeType;
 import org.exbin.bined.basic.BasicCodeAreaZone;
 import org.exbin.bined.capability.CharsetCapable;
 import org.exbin.bined.extended.layout.ExtendedCodeAreaLayoutProfile;
-import org.exbin.bined.highlight.swing.extended.ExtendedHighlightNonAsciiCodeAreaPainter;
 import org.exbin.bined.autopsy.BinEdApplyOptions;
+import org.exbin.bined.autopsy.BinEdDiagnostics;
 import org.exbin.bined.autopsy.BinEdFile;
+import org.exbin.bined.autopsy.DeltaDocumentCompactor;
 import org.exbin.bined.autopsy.action.CompareFilesAction;
+import org.exbin.bined.autopsy.action.BitwiseOperationAction;
+import org.exbin.bined.autopsy.action.ComputeHashesAction;
 import org.exbin.bined.autopsy.action.EditSelectionAction;
+import org.exbin.bined.autopsy.action.SwapByteOrderAction;
 import org.exbin.bined.autopsy.action.GoToPositionAction;
 import org.exbin.bined.autopsy.action.InsertDataAction;
 import org.exbin.bined.autopsy.action.SearchAction;
+import org.exbin.bined.autopsy.action.StructTemplateAction;
+import org.exbin.bined.autopsy.action.TypedArrayViewAction;
 import org.exbin.bined.autopsy.contentviewer.ContentBinaryData;
 import org.exbin.bined.operation.BinaryDataCommand;
 import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
@@ -68,6 +75,7 @@ import org.exbin.bined.swing.extended.ExtCodeArea;
 import org.exbin.bined.swing.extended.theme.ExtendedCodeAreaThemeProfile;
 import org.exbin.framework.bined.BinaryStatusApi;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.FileHandlingModePolicy;
 import org.exbin.framework.bined.options.CodeAreaColorOptions;
 import org.exbin.framework.bined.options.CodeAreaLayoutOptions;
 import org.exbin.framework.bined.options.CodeAreaOptions;
@@ -78,6 +86,7 @@ import org.exbin.framework.bined.options.impl.CodeAreaOptionsImpl;
 import org.exbin.framework.bined.gui.BinaryStatusPanel;
 import org.exbin.framework.bined.gui.ValuesPanel;
 import org.exbin.framework.bined.preferences.BinaryEditorPreferences;
+import org.exbin.framework.bined.template.TemplateFieldsCodeAreaPainter;
 import org.exbin.framework.editor.text.EncodingsHandler;
 import org.exbin.framework.editor.text.TextEncodingStatusApi;
 import org.exbin.framework.editor.text.options.TextEncodingOptions;
@@ -123,6 +132,11 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
     private final GoToPositionAction goToPositionAction;
     private final InsertDataAction insertDataAction;
     private final EditSelectionAction editSelectionAction;
+    private final BitwiseOperationAction bitwiseOperationAction;
+    private final ComputeHashesAction computeHashesAction;
+    private final TypedArrayViewAction typedArrayViewAction;
+    private final StructTemplateAction structTemplateAction;
+    private final SwapByteOrderAction[] swapByteOrderActions;
     private final CompareFilesAction compareFilesAction;
     private final AbstractAction showHeaderAction;
     private final AbstractAction showRowNumbersAction;
@@ -131,6 +145,7 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
     private ValuesPanel valuesPanel = null;
     private JScrollPane valuesPanelScrollPane = null;
     private boolean valuesPanelVisible = false;
+    private BinEdProgressPanel progressPanel = null;
 
     private FileHandlingMode fileHandlingMode = DEFAULT_FILE_HANDLING_MODE;
     private final Font defaultFont;
@@ -142,7 +157,7 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         preferences = new BinaryEditorPreferences(new PreferencesWrapper(NbPreferences.forModule(BinaryEditorPreferences.class)));
 
         codeArea = new ExtCodeArea();
-        codeArea.setPainter(new ExtendedHighlightNonAsciiCodeAreaPainter(codeArea));
+        codeArea.setPainter(new TemplateFieldsCodeAreaPainter(codeArea));
         defaultFont = new Font(Font.MONOSPACED, Font.PLAIN, 12);
         codeArea.setCodeFont(defaultFont);
         codeArea.getCaret().setBlinkRate(300);
@@ -155,6 +170,31 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
 
         insertDataAction = new InsertDataAction(codeArea);
         editSelectionAction = new EditSelectionAction(codeArea);
+        bitwiseOperationAction = new BitwiseOperationAction(codeArea);
+        swapByteOrderActions = new SwapByteOrderAction[]{new SwapByteOrderAction(codeArea, Short.BYTES), new SwapByteOrderAction(codeArea, Integer.BYTES), new SwapByteOrderAction(codeArea, Long.BYTES)};
+        computeHashesAction = new ComputeHashesAction(codeArea, new ComputeHashesAction.ProgressHandler() {
+            @Override
+            public boolean isProgressShown() {
+                return BinEdComponentPanel.this.isProgressShown();
+            }
+
+            @Override
+            public void showProgress(String operationText, Runnable cancelHandler) {
+                BinEdComponentPanel.this.showProgress(operationText, cancelHandler);
+            }
+
+            @Override
+            public void updateProgress(long done, long total, String operationText) {
+                BinEdComponentPanel.this.updateProgress(done, total, operationText);
+            }
+
+            @Override
+            public void hideProgress() {
+                BinEdComponentPanel.this.hideProgress();
+            }
+        });
+        typedArrayViewAction = new TypedArrayViewAction(codeArea);
+        structTemplateAction = new StructTemplateAction(codeArea);
         compareFilesAction = new CompareFilesAction(codeArea);
         showHeaderAction = new AbstractAction() {
             @Override
@@ -383,7 +423,9 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
     }
 
     private void saveDocument() {
-        fileApi.saveDocument();
+        if (!fileApi.saveDocument()) {
+            return;
+        }
 
         if (undoHandler != null) {
             undoHandler.setSyncPoint();
@@ -409,6 +451,22 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         updateCurrentMemoryMode();
     }
 
+    /**
+     * Selects file handling mode for newly opened file if automatic selection
+     * is enabled.
+     *
+     * @param fileSize file size
+     * @param localFile true if file is available on local file system
+     * @param editable true if file is editable
+     */
+    public void selectAutomaticFileHandlingMode(long fileSize, boolean localFile, boolean editable) {
+        EditorOptions editorOptions = preferences.getEditorPreferences();
+        if (editorOptions.isAutomaticFileHandlingMode()) {
+            FileHandlingModePolicy policy = new FileHandlingModePolicy(editorOptions.getMemoryModeSizeLimit());
+            setFileHandlingMode(policy.selectMode(fileSize, localFile, editable));
+        }
+    }
+
     private void updateCurrentMemoryMode() {
         BinaryStatusApi.MemoryMode memoryMode = BinaryStatusApi.MemoryMode.RAM_MEMORY;
         if (codeArea.getEditMode() == EditMode.READ_ONLY) {
@@ -424,6 +482,17 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Marks document as modified without any undoable command, for example
+     * when content was recovered.
+     */
+    public void markModified() {
+        if (undoHandler != null) {
+            undoHandler.setSyncPoint(-1);
+        }
+        notifyModified();
+    }
+
     private void notifyModified() {
         if (modifiedChangeListener != null) {
             modifiedChangeListener.modifiedChanged();
@@ -559,6 +628,21 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
                 JMenuItem insertDataMenuItem = createInsertDataMenuItem();
                 menu.add(insertDataMenuItem);
 
+                JMenuItem bitwiseOperationMenuItem = createBitwiseOperationMenuItem();
+                menu.add(bitwiseOperationMenuItem);
+
+                JMenuItem swapByteOrderMenuItem = createSwapByteOrderMenuItem();
+                menu.add(swapByteOrderMenuItem);
+
+                JMenuItem computeHashesMenuItem = createComputeHashesMenuItem();
+                menu.add(computeHashesMenuItem);
+
+                JMenuItem typedArrayViewMenuItem = createTypedArrayViewMenuItem();
+                menu.add(typedArrayViewMenuItem);
+
+                JMenuItem structTemplateMenuItem = createStructTemplateMenuItem();
+                menu.add(structTemplateMenuItem);
+
                 JMenuItem goToMenuItem = createGoToMenuItem();
                 menu.add(goToMenuItem);
 
@@ -602,6 +686,14 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         JMenuItem compareFilesMenuItem = createCompareFilesMenuItem();
         menu.add(compareFilesMenuItem);
 
+        final JMenuItem diagnosticsMenuItem = new JMenuItem("Document Diagnostics...");
+        diagnosticsMenuItem.addActionListener(createDocumentDiagnosticsAction());
+        menu.add(diagnosticsMenuItem);
+
+        final JMenuItem memoryUsageMenuItem = new JMenuItem("Memory Usage...");
+        memoryUsageMenuItem.addActionListener(createMemoryUsageAction());
+        menu.add(memoryUsageMenuItem);
+
         final JMenuItem optionsMenuItem = new JMenuItem("Options...");
         optionsMenuItem.setIcon(new ImageIcon(getClass().getResource("/org/exbin/framework/options/gui/resources/icons/Preferences16.gif")));
         optionsMenuItem.addActionListener(createOptionsAction());
@@ -710,6 +802,62 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         };
     }
 
+    @Nonnull
+    private AbstractAction createDocumentDiagnosticsAction() {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                final DocumentDiagnosticsPanel diagnosticsPanel = new DocumentDiagnosticsPanel();
+                diagnosticsPanel.setHandlingMode(fileHandlingMode.name());
+                updateDocumentDiagnostics(diagnosticsPanel);
+                CloseControlPanel closeControlPanel = new CloseControlPanel();
+                JPanel dialogPanel = WindowUtils.createDialogPanel(diagnosticsPanel, closeControlPanel);
+                WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(dialogPanel, (Component) e.getSource(), diagnosticsPanel.getResourceBundle().getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+                closeControlPanel.setHandler(() -> {
+                    dialog.close();
+                });
+                dialog.showCentered((Component) e.getSource());
+                dialog.dispose();
+            }
+        };
+    }
+
+    @Nonnull
+    private AbstractAction createMemoryUsageAction() {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                final DocumentsMemoryPanel memoryPanel = new DocumentsMemoryPanel();
+                memoryPanel.setDiagnostics(new BinEdDiagnostics());
+                CloseControlPanel closeControlPanel = new CloseControlPanel();
+                JPanel dialogPanel = WindowUtils.createDialogPanel(memoryPanel, closeControlPanel);
+                WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(dialogPanel, (Component) e.getSource(), memoryPanel.getResourceBundle().getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+                closeControlPanel.setHandler(() -> {
+                    dialog.close();
+                });
+                dialog.showCentered((Component) e.getSource());
+                dialog.dispose();
+            }
+        };
+    }
+
+    private void updateDocumentDiagnostics(DocumentDiagnosticsPanel diagnosticsPanel) {
+        BinaryData contentData = codeArea.getContentData();
+        if (contentData instanceof DeltaDocument) {
+            DeltaDocument document = (DeltaDocument) contentData;
+            diagnosticsPanel.setStatistics(DeltaDocumentCompactor.computeStatistics(document));
+            diagnosticsPanel.setCompactHandler(() -> {
+                DeltaDocumentCompactor compactor = new DeltaDocumentCompactor(document);
+                compactor.compact(Integer.MAX_VALUE);
+                updateDocumentDiagnostics(diagnosticsPanel);
+            });
+        } else {
+            diagnosticsPanel.setDataSize(codeArea.getDataSize());
+            diagnosticsPanel.setStatistics(null);
+            diagnosticsPanel.setCompactHandler(null);
+        }
+    }
+
     @Nonnull
     private AbstractAction createOnlineHelpAction() {
         return new AbstractAction() {
@@ -743,6 +891,48 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         return insertDataMenuItem;
     }
 
+    @Nonnull
+    private JMenuItem createBitwiseOperationMenuItem() {
+        final JMenuItem bitwiseOperationMenuItem = new JMenuItem("Bitwise Operation...");
+        bitwiseOperationMenuItem.setEnabled(codeArea.hasSelection() && codeArea.isEditable());
+        bitwiseOperationMenuItem.addActionListener(bitwiseOperationAction);
+        return bitwiseOperationMenuItem;
+    }
+
+    @Nonnull
+    private JMenuItem createSwapByteOrderMenuItem() {
+        JMenu menu = new JMenu("Swap Byte Order");
+        menu.setEnabled(codeArea.hasSelection() && codeArea.isEditable());
+        for (SwapByteOrderAction swapByteOrderAction : swapByteOrderActions) {
+            final JMenuItem unitMenuItem = new JMenuItem((swapByteOrderAction.getUnitSize() * 8) + "-bit Units");
+            unitMenuItem.addActionListener(swapByteOrderAction);
+            menu.add(unitMenuItem);
+        }
+        return menu;
+    }
+
+    @Nonnull
+    private JMenuItem createComputeHashesMenuItem() {
+        final JMenuItem computeHashesMenuItem = new JMenuItem("Compute Hashes...");
+        computeHashesMenuItem.addActionListener(computeHashesAction);
+        return computeHashesMenuItem;
+    }
+
+    @Nonnull
+    private JMenuItem createTypedArrayViewMenuItem() {
+        final JMenuItem typedArrayViewMenuItem = new JMenuItem("View as Typed Array...");
+        typedArrayViewMenuItem.setEnabled(codeArea.hasSelection());
+        typedArrayViewMenuItem.addActionListener(typedArrayViewAction);
+        return typedArrayViewMenuItem;
+    }
+
+    @Nonnull
+    private JMenuItem createStructTemplateMenuItem() {
+        final JMenuItem structTemplateMenuItem = new JMenuItem("Structure Template...");
+        structTemplateMenuItem.addActionListener(structTemplateAction);
+        return structTemplateMenuItem;
+    }
+
     @Nonnull
     private JMenuItem createCompareFilesMenuItem() {
         final JMenuItem compareFilesMenuItem = new JMenuItem("Compare Files...");
@@ -880,6 +1070,59 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Shows progress of background operation above code area.
+     *
+     * @param operationText operation description
+     * @param cancelHandler cancel handler or null if not cancellable
+     */
+    public void showProgress(String operationText, @Nullable Runnable cancelHandler) {
+        if (progressPanel == null) {
+            progressPanel = new BinEdProgressPanel();
+        }
+        progressPanel.setOperationText(operationText);
+        progressPanel.setCancelHandler(cancelHandler);
+        progressPanel.setProgress(0, -1);
+        codeAreaPanel.add(progressPanel, BorderLayout.NORTH);
+        codeAreaPanel.revalidate();
+    }
+
+    public void updateProgress(long done, long total) {
+        if (progressPanel != null) {
+            progressPanel.setProgress(done, total);
+        }
+    }
+
+    public void updateProgress(long done, long total, String operationText) {
+        if (progressPanel != null) {
+            progressPanel.setOperationText(operationText);
+            progressPanel.setProgress(done, total);
+        }
+    }
+
+    public boolean isProgressShown() {
+        return progressPanel != null && progressPanel.getParent() == codeAreaPanel;
+    }
+
+    public boolean isComputingHashes() {
+        return computeHashesAction.isRunning();
+    }
+
+    /**
+     * Cancels computation of hashes if running.
+     */
+    public void cancelComputeHashes() {
+        computeHashesAction.cancel();
+    }
+
+    public void hideProgress() {
+        if (progressPanel != null) {
+            codeAreaPanel.remove(progressPanel);
+            codeAreaPanel.revalidate();
+            codeAreaPanel.repaint();
+        }
+    }
+
     public void hideValuesPanel() {
         if (valuesPanelVisible) {
             valuesPanelVisible = false;
@@ -967,6 +1210,10 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
             valuesPanel.setCodeArea(codeArea, undoHandler);
         }
         insertDataAction.setUndoHandler(undoHandler);
+        bitwiseOperationAction.setUndoHandler(undoHandler);
+        for (SwapByteOrderAction swapByteOrderAction : swapByteOrderActions) {
+            swapByteOrderAction.setUndoHandler(undoHandler);
+        }
         // TODO set ENTER KEY mode in apply options
 
         undoHandler.addUndoUpdateListener(new BinaryDataUndoUpdateListener() {
@@ -1002,6 +1249,15 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         updateCurrentMemoryMode();
     }
 
+    /**
+     * Notifies that content data was fully loaded in background.
+     */
+    public void notifyDataLoaded() {
+        documentOriginalSize = codeArea.getDataSize();
+        updateCurrentDocumentSize();
+        updateCurrentMemoryMode();
+    }
+
     public interface CharsetChangeListener {
 
         void charsetChanged();
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.gui;
+
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Progress panel for long running background operations.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdProgressPanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(BinEdProgressPanel.class);
+
+    private static final int PROGRESS_MAXIMUM = 1000;
+
+    private Runnable cancelHandler = null;
+
+    public BinEdProgressPanel() {
+        initComponents();
+        progressBar.setMaximum(PROGRESS_MAXIMUM);
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    public void setOperationText(String text) {
+        operationLabel.setText(text);
+    }
+
+    /**
+     * Sets handler for cancel button.
+     *
+     * @param cancelHandler cancel handler or null if operation cannot be
+     * cancelled
+     */
+    public void setCancelHandler(@Nullable Runnable cancelHandler) {
+        this.cancelHandler = cancelHandler;
+        cancelButton.setVisible(cancelHandler != null);
+        cancelButton.setEnabled(true);
+    }
+
+    /**
+     * Updates progress.
+     *
+     * @param done processed amount
+     * @param total total amount or -1 if unknown
+     */
+    public void setProgress(long done, long total) {
+        if (total <= 0) {
+            progressBar.setIndeterminate(true);
+            progressBar.setStringPainted(false);
+            return;
+        }
+
+        progressBar.setIndeterminate(false);
+        progressBar.setStringPainted(true);
+        progressBar.setValue((int) (Math.min(done, total) * PROGRESS_MAXIMUM / total));
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        operationLabel = new javax.swing.JLabel();
+        progressBar = new javax.swing.JProgressBar();
+        cancelButton = new javax.swing.JButton();
+
+        setBorder(javax.swing.BorderFactory.createEmptyBorder(2, 4, 2, 4));
+        setLayout(new java.awt.BorderLayout(5, 0));
+
+        operationLabel.setText(resourceBundle.getString("operationLabel.text")); // NOI18N
+        add(operationLabel, java.awt.BorderLayout.LINE_START);
+        add(progressBar, java.awt.BorderLayout.CENTER);
+
+        cancelButton.setText(resourceBundle.getString("cancelButton.text")); // NOI18N
+        cancelButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cancelButtonActionPerformed(evt);
+            }
+        });
+        add(cancelButton, java.awt.BorderLayout.LINE_END);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void cancelButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelButtonActionPerformed
+        if (cancelHandler != null) {
+            cancelButton.setEnabled(false);
+            cancelHandler.run();
+        }
+    }//GEN-LAST:event_cancelButtonActionPerformed
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new BinEdProgressPanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton cancelButton;
+    private javax.swing.JLabel operationLabel;
+    private javax.swing.JProgressBar progressBar;
+    // End of variables declaration//GEN-END:variables
+}
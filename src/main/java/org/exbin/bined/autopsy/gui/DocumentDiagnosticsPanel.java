@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.gui;
+
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.autopsy.DeltaDocumentCompactor;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Panel showing diagnostics of document data structure.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DocumentDiagnosticsPanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(DocumentDiagnosticsPanel.class);
+
+    private Runnable compactHandler = null;
+
+    public DocumentDiagnosticsPanel() {
+        initComponents();
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    public void setHandlingMode(String handlingMode) {
+        handlingModeValueLabel.setText(handlingMode);
+    }
+
+    public void setDataSize(long dataSize) {
+        dataSizeValueLabel.setText(formatBytes(dataSize));
+    }
+
+    /**
+     * Sets segment statistics.
+     *
+     * @param statistics statistics or null if document is not segmented
+     */
+    public void setStatistics(@Nullable DeltaDocumentCompactor.Statistics statistics) {
+        if (statistics == null) {
+            String notAvailable = resourceBundle.getString("notAvailable");
+            segmentsCountValueLabel.setText(notAvailable);
+            fileSegmentsCountValueLabel.setText(notAvailable);
+            memorySegmentsCountValueLabel.setText(notAvailable);
+            memoryDataSizeValueLabel.setText(notAvailable);
+            averageSegmentSizeValueLabel.setText(notAvailable);
+            return;
+        }
+
+        setDataSize(statistics.getDataSize());
+        segmentsCountValueLabel.setText(String.valueOf(statistics.getSegmentsCount()));
+        fileSegmentsCountValueLabel.setText(String.valueOf(statistics.getFileSegmentsCount()));
+        memorySegmentsCountValueLabel.setText(String.valueOf(statistics.getMemorySegmentsCount()));
+        memoryDataSizeValueLabel.setText(formatBytes(statistics.getMemoryDataSize()));
+        averageSegmentSizeValueLabel.setText(formatBytes(statistics.getAverageSegmentSize()));
+    }
+
+    /**
+     * Sets handler for compact button.
+     *
+     * @param compactHandler compact handler or null if compaction is not
+     * available
+     */
+    public void setCompactHandler(@Nullable Runnable compactHandler) {
+        this.compactHandler = compactHandler;
+        compactButton.setEnabled(compactHandler != null);
+    }
+
+    @Nonnull
+    private String formatBytes(long size) {
+        return String.format(resourceBundle.getString("bytesFormat"), size);
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        valuesPanel = new javax.swing.JPanel();
+        handlingModeLabel = new javax.swing.JLabel();
+        handlingModeValueLabel = new javax.swing.JLabel();
+        dataSizeLabel = new javax.swing.JLabel();
+        dataSizeValueLabel = new javax.swing.JLabel();
+        segmentsCountLabel = new javax.swing.JLabel();
+        segmentsCountValueLabel = new javax.swing.JLabel();
+        fileSegmentsCountLabel = new javax.swing.JLabel();
+        fileSegmentsCountValueLabel = new javax.swing.JLabel();
+        memorySegmentsCountLabel = new javax.swing.JLabel();
+        memorySegmentsCountValueLabel = new javax.swing.JLabel();
+        memoryDataSizeLabel = new javax.swing.JLabel();
+        memoryDataSizeValueLabel = new javax.swing.JLabel();
+        averageSegmentSizeLabel = new javax.swing.JLabel();
+        averageSegmentSizeValueLabel = new javax.swing.JLabel();
+        buttonPanel = new javax.swing.JPanel();
+        compactButton = new javax.swing.JButton();
+
+        setBorder(javax.swing.BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        setLayout(new java.awt.BorderLayout(0, 10));
+
+        valuesPanel.setLayout(new java.awt.GridLayout(0, 2, 10, 4));
+
+        handlingModeLabel.setText(resourceBundle.getString("handlingModeLabel.text")); // NOI18N
+        valuesPanel.add(handlingModeLabel);
+        valuesPanel.add(handlingModeValueLabel);
+
+        dataSizeLabel.setText(resourceBundle.getString("dataSizeLabel.text")); // NOI18N
+        valuesPanel.add(dataSizeLabel);
+        valuesPanel.add(dataSizeValueLabel);
+
+        segmentsCountLabel.setText(resourceBundle.getString("segmentsCountLabel.text")); // NOI18N
+        valuesPanel.add(segmentsCountLabel);
+        valuesPanel.add(segmentsCountValueLabel);
+
+        fileSegmentsCountLabel.setText(resourceBundle.getString("fileSegmentsCountLabel.text")); // NOI18N
+        valuesPanel.add(fileSegmentsCountLabel);
+        valuesPanel.add(fileSegmentsCountValueLabel);
+
+        memorySegmentsCountLabel.setText(resourceBundle.getString("memorySegmentsCountLabel.text")); // NOI18N
+        valuesPanel.add(memorySegmentsCountLabel);
+        valuesPanel.add(memorySegmentsCountValueLabel);
+
+        memoryDataSizeLabel.setText(resourceBundle.getString("memoryDataSizeLabel.text")); // NOI18N
+        valuesPanel.add(memoryDataSizeLabel);
+        valuesPanel.add(memoryDataSizeValueLabel);
+
+        averageSegmentSizeLabel.setText(resourceBundle.getString("averageSegmentSizeLabel.text")); // NOI18N
+        valuesPanel.add(averageSegmentSizeLabel);
+        valuesPanel.add(averageSegmentSizeValueLabel);
+
+        add(valuesPanel, java.awt.BorderLayout.CENTER);
+
+        buttonPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT, 0, 0));
+
+        compactButton.setText(resourceBundle.getString("compactButton.text")); // NOI18N
+        compactButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                compactButtonActionPerformed(evt);
+            }
+        });
+        buttonPanel.add(compactButton);
+
+        add(buttonPanel, java.awt.BorderLayout.SOUTH);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void compactButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_compactButtonActionPerformed
+        if (compactHandler != null) {
+            compactHandler.run();
+        }
+    }//GEN-LAST:event_compactButtonActionPerformed
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new DocumentDiagnosticsPanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JLabel averageSegmentSizeLabel;
+    private javax.swing.JLabel averageSegmentSizeValueLabel;
+    private javax.swing.JPanel buttonPanel;
+    private javax.swing.JButton compactButton;
+    private javax.swing.JLabel dataSizeLabel;
+    private javax.swing.JLabel dataSizeValueLabel;
+    private javax.swing.JLabel fileSegmentsCountLabel;
+    private javax.swing.JLabel fileSegmentsCountValueLabel;
+    private javax.swing.JLabel handlingModeLabel;
+    private javax.swing.JLabel handlingModeValueLabel;
+    private javax.swing.JLabel memoryDataSizeLabel;
+    private javax.swing.JLabel memoryDataSizeValueLabel;
+    private javax.swing.JLabel memorySegmentsCountLabel;
+    private javax.swing.JLabel memorySegmentsCountValueLabel;
+    private javax.swing.JLabel segmentsCountLabel;
+    private javax.swing.JLabel segmentsCountValueLabel;
+    private javax.swing.JPanel valuesPanel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.autopsy.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.table.AbstractTableModel;
+import org.exbin.bined.autopsy.BinEdDiagnosticsMXBean;
+import org.exbin.bined.autopsy.DocumentMemoryInfo;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Panel listing memory usage of opened documents.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DocumentsMemoryPanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(DocumentsMemoryPanel.class);
+    private final DocumentsTableModel tableModel = new DocumentsTableModel();
+
+    private BinEdDiagnosticsMXBean diagnostics = null;
+
+    public DocumentsMemoryPanel() {
+        initComponents();
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    public void setDiagnostics(@Nullable BinEdDiagnosticsMXBean diagnostics) {
+        this.diagnostics = diagnostics;
+        refresh();
+    }
+
+    public void refresh() {
+        List<DocumentMemoryInfo> documents = diagnostics == null ? new ArrayList<>() : diagnostics.getDocuments();
+        tableModel.setDocuments(documents);
+        long totalMemorySize = 0;
+        for (DocumentMemoryInfo document : documents) {
+            totalMemorySize += document.getTotalMemorySize();
+        }
+        totalLabel.setText(String.format(resourceBundle.getString("totalFormat"), documents.size(), totalMemorySize));
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        documentsScrollPane = new javax.swing.JScrollPane();
+        documentsTable = new javax.swing.JTable(tableModel);
+        summaryPanel = new javax.swing.JPanel();
+        totalLabel = new javax.swing.JLabel();
+        refreshButton = new javax.swing.JButton();
+
+        setBorder(javax.swing.BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        setPreferredSize(new java.awt.Dimension(760, 300));
+        setLayout(new java.awt.BorderLayout(0, 10));
+
+        documentsScrollPane.setViewportView(documentsTable);
+
+        add(documentsScrollPane, java.awt.BorderLayout.CENTER);
+
+        summaryPanel.setLayout(new java.awt.BorderLayout());
+        summaryPanel.add(totalLabel, java.awt.BorderLayout.CENTER);
+
+        refreshButton.setText(resourceBundle.getString("refreshButton.text")); // NOI18N
+        refreshButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                refreshButtonActionPerformed(evt);
+            }
+        });
+        summaryPanel.add(refreshButton, java.awt.BorderLayout.LINE_END);
+
+        add(summaryPanel, java.awt.BorderLayout.SOUTH);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void refreshButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_refreshButtonActionPerformed
+        refresh();
+    }//GEN-LAST:event_refreshButtonActionPerformed
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new DocumentsMemoryPanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JScrollPane documentsScrollPane;
+    private javax.swing.JTable documentsTable;
+    private javax.swing.JButton refreshButton;
+    private javax.swing.JPanel summaryPanel;
+    private javax.swing.JLabel totalLabel;
+    // End of variables declaration//GEN-END:variables
+
+    private class DocumentsTableModel extends AbstractTableModel {
+
+        private final String[] columnKeys = {"fileName", "handlingMode", "fileSize", "dataSize", "segmentsCount", "memoryDataSize", "undoMemorySize", "cacheMemorySize", "totalMemorySize"};
+        private List<DocumentMemoryInfo> documents = new ArrayList<>();
+
+        public void setDocuments(List<DocumentMemoryInfo> documents) {
+            this.documents = documents;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return documents.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnKeys.length;
+        }
+
+        @Nonnull
+        @Override
+        public String getColumnName(int column) {
+            return resourceBundle.getString("column." + columnKeys[column]);
+        }
+
+        @Nonnull
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column < 2 ? String.class : Long.class;
+        }
+
+        @Nullable
+        @Override
+        public Object getValueAt(int row, int column) {
+            DocumentMemoryInfo document = documents.get(row);
+            switch (column) {
+                case 0:
+                    return document.getFileName().isEmpty() ? resourceBundle.getString("untitledDocument") : document.getFileName();
+                case 1:
+                    return document.getHandlingMode();
+                case 2:
+                    return document.getFileSize() < 0 ? null : document.getFileSize();
+                case 3:
+                    return document.getDataSize();
+                case 4:
+                    return (long) document.getSegmentsCount();
+                case 5:
+                    return document.getMemoryDataSize();
+                case 6:
+                    return document.getUndoMemorySize();
+                case 7:
+                    return document.getCacheMemorySize();
+                case 8:
+                    return document.getTotalMemorySize();
+                default:
+                    throw new IllegalStateException("Unexpected column " + column);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.util.List;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Range of bytes which differ between two compared data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffRange {
+
+    private final long position;
+    private final long length;
+
+    public DiffRange(long position, long length) {
+        this.position = position;
+        this.length = length;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getEndPosition() {
+        return position + length;
+    }
+
+    /**
+     * Returns index of range containing given position.
+     *
+     * @param ranges sorted non-overlapping ranges
+     * @param position data position
+     * @return index of range or -1 if position is not in any range
+     */
+    public static int findRange(List<DiffRange> ranges, long position) {
+        int low = 0;
+        int high = ranges.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            DiffRange range = ranges.get(middle);
+            if (position < range.position) {
+                high = middle - 1;
+            } else if (position >= range.getEndPosition()) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.CodeAreaSection;
+import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.bined.swing.extended.ExtendedCodeAreaPainter;
+
+/**
+ * Code area painter highlighting precomputed ranges of differences.
+ * <p>
+ * Unlike painter comparing data while painting, compared data are not read,
+ * only size of compared data is used to highlight data beyond its end.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffRangesCodeAreaPainter extends ExtendedCodeAreaPainter {
+
+    private List<DiffRange> diffRanges = Collections.emptyList();
+    private long comparedDataSize = -1;
+    private Color diffColor = new Color(255, 180, 180);
+    private Color addedColor = new Color(180, 255, 180);
+
+    public DiffRangesCodeAreaPainter(CodeAreaCore codeArea) {
+        super(codeArea);
+    }
+
+    /**
+     * Sets differences to highlight.
+     *
+     * @param diffRanges sorted non-overlapping ranges
+     * @param comparedDataSize size of compared data or -1 if not known
+     */
+    public void setDiffRanges(List<DiffRange> diffRanges, long comparedDataSize) {
+        this.diffRanges = diffRanges;
+        this.comparedDataSize = comparedDataSize;
+        codeArea.repaint();
+    }
+
+    public void clearDiffRanges() {
+        setDiffRanges(Collections.emptyList(), -1);
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionTextColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean unprintables) {
+        long position = rowDataPosition + byteOnRow;
+        if (comparedDataSize >= 0 && position >= comparedDataSize) {
+            return addedColor;
+        }
+        if (DiffRange.findRange(diffRanges, position) >= 0) {
+            return diffColor;
+        }
+
+        return super.getPositionTextColor(rowDataPosition, byteOnRow, charOnRow, section, unprintables);
+    }
+
+    @Nonnull
+    public Color getDiffColor() {
+        return diffColor;
+    }
+
+    public void setDiffColor(Color diffColor) {
+        this.diffColor = diffColor;
+    }
+
+    @Nonnull
+    public Color getAddedColor() {
+        return addedColor;
+    }
+
+    public void setAddedColor(Color addedColor) {
+        this.addedColor = addedColor;
+    }
+}
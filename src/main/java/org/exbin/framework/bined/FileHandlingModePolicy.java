@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Policy for automatic selection of file handling mode.
+ * <p>
+ * Files which fit both into configured size limit and into free heap are
+ * loaded to memory. Larger files are handled using delta changes, only
+ * read-only files not available on local file system use native file wrapper,
+ * as it writes modifications directly to the file without explicit save.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FileHandlingModePolicy {
+
+    public static final int DEFAULT_MEMORY_MODE_SIZE_LIMIT = 64;
+    private static final long MEGABYTE = 1024 * 1024;
+    /**
+     * Maximum part of free heap single document loaded to memory can occupy.
+     */
+    private static final int FREE_HEAP_FRACTION = 4;
+    /**
+     * Editable documents need additional room for modifications and undo.
+     */
+    private static final int EDITABLE_OVERHEAD_FACTOR = 2;
+
+    private final long memoryModeSizeLimit;
+
+    /**
+     * Creates policy.
+     *
+     * @param memoryModeSizeLimit maximum file size in MiB to load to memory
+     */
+    public FileHandlingModePolicy(int memoryModeSizeLimit) {
+        this.memoryModeSizeLimit = memoryModeSizeLimit * MEGABYTE;
+    }
+
+    /**
+     * Selects file handling mode for file.
+     *
+     * @param fileSize file size in bytes
+     * @param localFile true if file is available on local file system
+     * @param editable true if file is editable
+     * @return file handling mode
+     */
+    @Nonnull
+    public FileHandlingMode selectMode(long fileSize, boolean localFile, boolean editable) {
+        long requiredHeap = editable ? fileSize * EDITABLE_OVERHEAD_FACTOR : fileSize;
+        if (fileSize <= memoryModeSizeLimit && requiredHeap <= getFreeHeap() / FREE_HEAP_FRACTION) {
+            return FileHandlingMode.MEMORY;
+        }
+
+        return localFile || editable ? FileHandlingMode.DELTA : FileHandlingMode.NATIVE;
+    }
+
+    /**
+     * Returns amount of heap which can be still allocated.
+     *
+     * @return free heap size in bytes
+     */
+    public static long getFreeHeap() {
+        MemoryUsage heapUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long maxHeap = heapUsage.getMax() < 0 ? Runtime.getRuntime().maxMemory() : heapUsage.getMax();
+        return Math.max(0, maxHeap - heapUsage.getUsed());
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.gui;
+
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.operation.BitwiseDataOperation.BitwiseOperationType;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Bitwise operation panel.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BitwiseOperationPanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(BitwiseOperationPanel.class);
+
+    public BitwiseOperationPanel() {
+        initComponents();
+        init();
+    }
+
+    private void init() {
+        java.awt.event.ItemListener operationListener = (java.awt.event.ItemEvent evt) -> updateState();
+        xorRadioButton.addItemListener(operationListener);
+        andRadioButton.addItemListener(operationListener);
+        orRadioButton.addItemListener(operationListener);
+        notRadioButton.addItemListener(operationListener);
+        rotateLeftRadioButton.addItemListener(operationListener);
+        rotateRightRadioButton.addItemListener(operationListener);
+        updateState();
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        operationButtonGroup = new javax.swing.ButtonGroup();
+        operationLabel = new javax.swing.JLabel();
+        xorRadioButton = new javax.swing.JRadioButton();
+        andRadioButton = new javax.swing.JRadioButton();
+        orRadioButton = new javax.swing.JRadioButton();
+        notRadioButton = new javax.swing.JRadioButton();
+        rotateLeftRadioButton = new javax.swing.JRadioButton();
+        rotateRightRadioButton = new javax.swing.JRadioButton();
+        keyLabel = new javax.swing.JLabel();
+        keyTextField = new javax.swing.JTextField();
+        rotateBitsLabel = new javax.swing.JLabel();
+        rotateBitsSpinner = new javax.swing.JSpinner();
+
+        operationLabel.setText(resourceBundle.getString("operationLabel.text")); // NOI18N
+
+        operationButtonGroup.add(xorRadioButton);
+        xorRadioButton.setSelected(true);
+        xorRadioButton.setText(resourceBundle.getString("xorRadioButton.text")); // NOI18N
+
+        operationButtonGroup.add(andRadioButton);
+        andRadioButton.setText(resourceBundle.getString("andRadioButton.text")); // NOI18N
+
+        operationButtonGroup.add(orRadioButton);
+        orRadioButton.setText(resourceBundle.getString("orRadioButton.text")); // NOI18N
+
+        operationButtonGroup.add(notRadioButton);
+        notRadioButton.setText(resourceBundle.getString("notRadioButton.text")); // NOI18N
+
+        operationButtonGroup.add(rotateLeftRadioButton);
+        rotateLeftRadioButton.setText(resourceBundle.getString("rotateLeftRadioButton.text")); // NOI18N
+
+        operationButtonGroup.add(rotateRightRadioButton);
+        rotateRightRadioButton.setText(resourceBundle.getString("rotateRightRadioButton.text")); // NOI18N
+
+        keyLabel.setText(resourceBundle.getString("keyLabel.text")); // NOI18N
+
+        keyTextField.setToolTipText(resourceBundle.getString("keyTextField.toolTipText")); // NOI18N
+
+        rotateBitsLabel.setText(resourceBundle.getString("rotateBitsLabel.text")); // NOI18N
+
+        rotateBitsSpinner.setModel(new javax.swing.SpinnerNumberModel(1, 1, 7, 1));
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
+        this.setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(keyTextField, javax.swing.GroupLayout.DEFAULT_SIZE, 403, Short.MAX_VALUE)
+                    .addComponent(xorRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(andRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(orRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(notRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(rotateLeftRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(rotateRightRadioButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addComponent(operationLabel)
+                            .addComponent(keyLabel)
+                            .addGroup(layout.createSequentialGroup()
+                                .addComponent(rotateBitsLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(rotateBitsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 60, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                        .addGap(0, 0, Short.MAX_VALUE)))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(operationLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(xorRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(andRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(orRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(notRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(rotateLeftRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(rotateRightRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(keyLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(keyTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(rotateBitsLabel)
+                    .addComponent(rotateBitsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void updateState() {
+        BitwiseOperationType operationType = getOperationType();
+        boolean rotate = operationType == BitwiseOperationType.ROTATE_LEFT || operationType == BitwiseOperationType.ROTATE_RIGHT;
+        boolean withKey = !rotate && operationType != BitwiseOperationType.NOT;
+        keyLabel.setEnabled(withKey);
+        keyTextField.setEnabled(withKey);
+        rotateBitsLabel.setEnabled(rotate);
+        rotateBitsSpinner.setEnabled(rotate);
+    }
+
+    @Nonnull
+    public BitwiseOperationType getOperationType() {
+        if (andRadioButton.isSelected()) {
+            return BitwiseOperationType.AND;
+        } else if (orRadioButton.isSelected()) {
+            return BitwiseOperationType.OR;
+        } else if (notRadioButton.isSelected()) {
+            return BitwiseOperationType.NOT;
+        } else if (rotateLeftRadioButton.isSelected()) {
+            return BitwiseOperationType.ROTATE_LEFT;
+        } else if (rotateRightRadioButton.isSelected()) {
+            return BitwiseOperationType.ROTATE_RIGHT;
+        }
+
+        return BitwiseOperationType.XOR;
+    }
+
+    /**
+     * Returns key parsed from hexadecimal text.
+     *
+     * @return key bytes
+     * @throws IllegalArgumentException if key is not valid hexadecimal
+     * sequence
+     */
+    @Nonnull
+    public byte[] getKey() {
+        String keyText = keyTextField.getText().replaceAll("\\s", "");
+        if (keyText.startsWith("0x") || keyText.startsWith("0X")) {
+            keyText = keyText.substring(2);
+        }
+        if (keyText.length() % 2 != 0) {
+            keyText = "0" + keyText;
+        }
+
+        byte[] key = new byte[keyText.length() / 2];
+        for (int i = 0; i < key.length; i++) {
+            int high = Character.digit(keyText.charAt(i * 2), 16);
+            int low = Character.digit(keyText.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException(resourceBundle.getString("invalidKey.message"));
+            }
+            key[i] = (byte) ((high << 4) | low);
+        }
+        return key;
+    }
+
+    public int getRotateBits() {
+        return (Integer) rotateBitsSpinner.getValue();
+    }
+
+    public void initFocus() {
+        keyTextField.requestFocusInWindow();
+    }
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new BitwiseOperationPanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JRadioButton andRadioButton;
+    private javax.swing.JLabel keyLabel;
+    private javax.swing.JTextField keyTextField;
+    private javax.swing.JRadioButton notRadioButton;
+    private javax.swing.ButtonGroup operationButtonGroup;
+    private javax.swing.JLabel operationLabel;
+    private javax.swing.JRadioButton orRadioButton;
+    private javax.swing.JLabel rotateBitsLabel;
+    private javax.swing.JSpinner rotateBitsSpinner;
+    private javax.swing.JRadioButton rotateLeftRadioButton;
+    private javax.swing.JRadioButton rotateRightRadioButton;
+    private javax.swing.JRadioButton xorRadioButton;
+    // End of variables declaration//GEN-END:variables
+}
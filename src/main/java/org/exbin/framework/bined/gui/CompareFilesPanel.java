@@ -17,6 +17,7 @@ package org.exbin.framework.bined.gui;
 
 import java.awt.Component;
 import java.awt.event.ItemEvent;
+import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
 import javax.annotation.Nonnull;
@@ -29,7 +30,10 @@ import javax.swing.SwingUtilities;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
 import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.SelectionRange;
 import org.exbin.bined.swing.extended.ExtCodeArea;
+import org.exbin.framework.bined.DiffRange;
+import org.exbin.framework.bined.DiffRangesCodeAreaPainter;
 import org.exbin.framework.bined.handler.CodeAreaPopupMenuHandler;
 import org.exbin.framework.utils.LanguageUtils;
 import org.exbin.framework.utils.WindowUtils;
@@ -47,6 +51,13 @@ public class CompareFilesPanel extends javax.swing.JPanel {
     private Controller controller;
     private FileRecord leftCustomFile;
     private FileRecord rightCustomFile;
+    private BinaryData leftData = null;
+    private BinaryData rightData = null;
+    private DiffRangesCodeAreaPainter leftPainter;
+    private DiffRangesCodeAreaPainter rightPainter;
+    private List<DiffRange> diffRanges = Collections.emptyList();
+    private boolean diffComplete = true;
+    private int currentDiffIndex = -1;
 
     public CompareFilesPanel() {
         initComponents();
@@ -54,6 +65,11 @@ public class CompareFilesPanel extends javax.swing.JPanel {
     }
 
     private void init() {
+        // Differences are highlighted from precomputed ranges instead of comparing data while painting
+        leftPainter = new DiffRangesCodeAreaPainter(codeAreaDiffPanel.getLeftCodeArea());
+        codeAreaDiffPanel.getLeftCodeArea().setPainter(leftPainter);
+        rightPainter = new DiffRangesCodeAreaPainter(codeAreaDiffPanel.getRightCodeArea());
+        codeAreaDiffPanel.getRightCodeArea().setPainter(rightPainter);
         leftComboBox.addItemListener((ItemEvent e) -> {
             if (e.getStateChange() == ItemEvent.SELECTED) {
                 int selectedIndex = leftComboBox.getSelectedIndex();
@@ -129,11 +145,79 @@ public class CompareFilesPanel extends javax.swing.JPanel {
     }
 
     public void setLeftFile(BinaryData contentData) {
+        leftData = contentData;
         codeAreaDiffPanel.setLeftContentData(contentData);
+        updateDiff();
     }
 
     public void setRightFile(BinaryData contentData) {
+        rightData = contentData;
         codeAreaDiffPanel.setRightContentData(contentData);
+        updateDiff();
+    }
+
+    /**
+     * Sets computed differences between currently shown files.
+     *
+     * @param ranges sorted ranges of differences or null if comparison
+     * failed
+     * @param complete false if only part of the differences was computed
+     */
+    public void setDiffRanges(@Nullable List<DiffRange> ranges, boolean complete) {
+        diffRanges = ranges == null ? Collections.emptyList() : ranges;
+        diffComplete = complete;
+        currentDiffIndex = -1;
+        if (leftData != null && rightData != null) {
+            leftPainter.setDiffRanges(diffRanges, rightData.getDataSize());
+            rightPainter.setDiffRanges(diffRanges, leftData.getDataSize());
+        }
+        diffStatusLabel.setText(ranges == null ? resourceBundle.getString("diffStatus.failed") : getDiffCountText());
+        updateNavigation();
+    }
+
+    private void updateDiff() {
+        diffRanges = Collections.emptyList();
+        currentDiffIndex = -1;
+        leftPainter.clearDiffRanges();
+        rightPainter.clearDiffRanges();
+        updateNavigation();
+        if (leftData == null || rightData == null || controller == null) {
+            diffStatusLabel.setText(" ");
+            return;
+        }
+
+        diffStatusLabel.setText(resourceBundle.getString("diffStatus.comparing"));
+        controller.computeDiff(leftData, rightData);
+    }
+
+    private void goToDiff(int diffIndex) {
+        currentDiffIndex = diffIndex;
+        DiffRange range = diffRanges.get(diffIndex);
+        revealRange(codeAreaDiffPanel.getLeftCodeArea(), range);
+        revealRange(codeAreaDiffPanel.getRightCodeArea(), range);
+        diffStatusLabel.setText(String.format(resourceBundle.getString("diffStatus.current.format"), diffIndex + 1, diffRanges.size() + (diffComplete ? "" : "+")));
+        updateNavigation();
+    }
+
+    private static void revealRange(ExtCodeArea codeArea, DiffRange range) {
+        long dataSize = codeArea.getDataSize();
+        long position = Math.min(range.getPosition(), dataSize);
+        codeArea.setCaretPosition(position);
+        codeArea.setSelection(new SelectionRange(position, Math.min(range.getEndPosition(), dataSize)));
+        codeArea.revealCursor();
+    }
+
+    private void updateNavigation() {
+        previousDiffButton.setEnabled(currentDiffIndex > 0);
+        nextDiffButton.setEnabled(currentDiffIndex + 1 < diffRanges.size());
+    }
+
+    @Nonnull
+    private String getDiffCountText() {
+        if (diffRanges.isEmpty()) {
+            return resourceBundle.getString("diffStatus.noDifferences");
+        }
+        return String.format(resourceBundle.getString(diffComplete ? "diffStatus.count.format" : "diffStatus.countIncomplete.format"), diffRanges.size());
     }
 
     public void setCodeAreaPopupMenu(CodeAreaPopupMenuHandler codeAreaPopupMenuHandler) {
@@ -197,6 +281,10 @@ public class CompareFilesPanel extends javax.swing.JPanel {
         rightComboBox = new javax.swing.JComboBox<>();
         rightOpenButton = new javax.swing.JButton();
         codeAreaDiffPanel = new org.exbin.bined.swing.extended.diff.ExtCodeAreaDiffPanel();
+        navigationPanel = new javax.swing.JPanel();
+        previousDiffButton = new javax.swing.JButton();
+        nextDiffButton = new javax.swing.JButton();
+        diffStatusLabel = new javax.swing.JLabel();
 
         setLayout(new java.awt.BorderLayout());
 
@@ -260,8 +348,64 @@ public class CompareFilesPanel extends javax.swing.JPanel {
         add(optionsPanel, java.awt.BorderLayout.PAGE_START);
 
         add(codeAreaDiffPanel, java.awt.BorderLayout.CENTER);
+
+        previousDiffButton.setText(resourceBundle.getString("previousDiffButton.text")); // NOI18N
+        previousDiffButton.setToolTipText(resourceBundle.getString("previousDiffButton.toolTipText")); // NOI18N
+        previousDiffButton.setEnabled(false);
+        previousDiffButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                previousDiffButtonActionPerformed(evt);
+            }
+        });
+
+        nextDiffButton.setText(resourceBundle.getString("nextDiffButton.text")); // NOI18N
+        nextDiffButton.setToolTipText(resourceBundle.getString("nextDiffButton.toolTipText")); // NOI18N
+        nextDiffButton.setEnabled(false);
+        nextDiffButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                nextDiffButtonActionPerformed(evt);
+            }
+        });
+
+        javax.swing.GroupLayout navigationPanelLayout = new javax.swing.GroupLayout(navigationPanel);
+        navigationPanel.setLayout(navigationPanelLayout);
+        navigationPanelLayout.setHorizontalGroup(
+            navigationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(navigationPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(previousDiffButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(nextDiffButton)
+                .addGap(18, 18, 18)
+                .addComponent(diffStatusLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addContainerGap())
+        );
+        navigationPanelLayout.setVerticalGroup(
+            navigationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(navigationPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(navigationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(previousDiffButton)
+                    .addComponent(nextDiffButton)
+                    .addComponent(diffStatusLabel))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        add(navigationPanel, java.awt.BorderLayout.PAGE_END);
     }// </editor-fold>//GEN-END:initComponents
 
+    private void previousDiffButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_previousDiffButtonActionPerformed
+        if (currentDiffIndex > 0) {
+            goToDiff(currentDiffIndex - 1);
+        }
+    }//GEN-LAST:event_previousDiffButtonActionPerformed
+
+    private void nextDiffButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_nextDiffButtonActionPerformed
+        if (currentDiffIndex + 1 < diffRanges.size()) {
+            goToDiff(currentDiffIndex + 1);
+        }
+    }//GEN-LAST:event_nextDiffButtonActionPerformed
+
     private void rightOpenButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_rightOpenButtonActionPerformed
         if (controller != null) {
             FileRecord file = controller.openFile();
@@ -307,10 +451,14 @@ public class CompareFilesPanel extends javax.swing.JPanel {
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private org.exbin.bined.swing.extended.diff.ExtCodeAreaDiffPanel codeAreaDiffPanel;
+    private javax.swing.JLabel diffStatusLabel;
     private javax.swing.JComboBox<String> leftComboBox;
     private javax.swing.JLabel leftLabel;
     private javax.swing.JButton leftOpenButton;
+    private javax.swing.JPanel navigationPanel;
+    private javax.swing.JButton nextDiffButton;
     private javax.swing.JPanel optionsPanel;
+    private javax.swing.JButton previousDiffButton;
     private javax.swing.JComboBox<String> rightComboBox;
     private javax.swing.JLabel rightLabel;
     private javax.swing.JButton rightOpenButton;
@@ -323,6 +471,15 @@ public class CompareFilesPanel extends javax.swing.JPanel {
 
         @Nonnull
         BinaryData getFileData(int index);
+
+        /**
+         * Starts computation of differences, result is passed back using
+         * setDiffRanges method.
+         *
+         * @param leftData left data
+         * @param rightData right data
+         */
+        void computeDiff(BinaryData leftData, BinaryData rightData);
     }
 
     @ParametersAreNonnullByDefault
@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.gui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.tree.TreePath;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.framework.bined.model.TemplateTreeModel;
+import org.exbin.framework.bined.template.MoreElementsTemplateNode;
+import org.exbin.framework.bined.template.StructTemplates;
+import org.exbin.framework.bined.template.TemplateNode;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Panel showing data decoded using structure template.
+ * <p>
+ * Tree uses large model mode so that only nodes in visible rows are decoded.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StructTemplatePanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(StructTemplatePanel.class);
+    private final TemplateTreeModel templateTreeModel = new TemplateTreeModel();
+    private final List<StructTemplates.Template> templates = new ArrayList<>();
+    private Controller controller;
+    private BinaryData data = null;
+    private long startPosition = 0;
+
+    public StructTemplatePanel() {
+        initComponents();
+        init();
+    }
+
+    private void init() {
+        templateTree.setRowHeight(templateTree.getFontMetrics(templateTree.getFont()).getHeight() + 2);
+        templateTree.setLargeModel(true);
+        templateTree.addTreeExpansionListener(new TreeExpansionListener() {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+                updateHighlight();
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+                updateHighlight();
+            }
+        });
+        templateTree.addTreeSelectionListener((event) -> {
+            TreePath selectionPath = templateTree.getSelectionPath();
+            if (selectionPath != null && selectionPath.getLastPathComponent() instanceof MoreElementsTemplateNode) {
+                resolveMoreElements(selectionPath);
+                return;
+            }
+            updateSelectedField();
+            updateHighlight();
+        });
+        treeScrollPane.getViewport().addChangeListener((event) -> updateHighlight());
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Sets data to decode.
+     *
+     * @param data source data
+     * @param startPosition position of start of template
+     */
+    public void setData(@Nullable BinaryData data, long startPosition) {
+        this.data = data;
+        this.startPosition = startPosition;
+        positionLabel.setText(String.format(resourceBundle.getString("position.format"), startPosition));
+        updateRoot();
+    }
+
+    /**
+     * Adds templates of given set to list of available templates.
+     *
+     * @param templatesSet templates
+     */
+    public void addTemplates(StructTemplates templatesSet) {
+        boolean wasEmpty = templates.isEmpty();
+        DefaultComboBoxModel<String> comboBoxModel = (DefaultComboBoxModel<String>) templateComboBox.getModel();
+        for (StructTemplates.Template template : templatesSet.getTemplates()) {
+            templates.add(template);
+            comboBoxModel.addElement(template.getName());
+        }
+        if (wasEmpty && !templates.isEmpty()) {
+            templateComboBox.setSelectedIndex(0);
+        }
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        optionsPanel = new javax.swing.JPanel();
+        templateLabel = new javax.swing.JLabel();
+        templateComboBox = new javax.swing.JComboBox<>();
+        loadButton = new javax.swing.JButton();
+        positionLabel = new javax.swing.JLabel();
+        treeScrollPane = new javax.swing.JScrollPane();
+        templateTree = new javax.swing.JTree();
+        fieldLabel = new javax.swing.JLabel();
+
+        setLayout(new java.awt.BorderLayout());
+
+        templateLabel.setText(resourceBundle.getString("templateLabel.text")); // NOI18N
+
+        templateComboBox.setModel(new javax.swing.DefaultComboBoxModel<String>());
+        templateComboBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                templateComboBoxActionPerformed(evt);
+            }
+        });
+
+        loadButton.setText(resourceBundle.getString("loadButton.text")); // NOI18N
+        loadButton.setToolTipText(resourceBundle.getString("loadButton.toolTipText")); // NOI18N
+        loadButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                loadButtonActionPerformed(evt);
+            }
+        });
+
+        javax.swing.GroupLayout optionsPanelLayout = new javax.swing.GroupLayout(optionsPanel);
+        optionsPanel.setLayout(optionsPanelLayout);
+        optionsPanelLayout.setHorizontalGroup(
+            optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(optionsPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(templateLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(templateComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, 250, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(loadButton)
+                .addGap(18, 18, 18)
+                .addComponent(positionLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addContainerGap())
+        );
+        optionsPanelLayout.setVerticalGroup(
+            optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(optionsPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(templateLabel)
+                    .addComponent(templateComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(loadButton)
+                    .addComponent(positionLabel))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        add(optionsPanel, java.awt.BorderLayout.PAGE_START);
+
+        templateTree.setModel(templateTreeModel);
+        templateTree.setShowsRootHandles(true);
+        treeScrollPane.setViewportView(templateTree);
+
+        add(treeScrollPane, java.awt.BorderLayout.CENTER);
+
+        fieldLabel.setText(" ");
+        fieldLabel.setBorder(javax.swing.BorderFactory.createEmptyBorder(4, 10, 4, 10));
+        add(fieldLabel, java.awt.BorderLayout.PAGE_END);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void templateComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_templateComboBoxActionPerformed
+        updateRoot();
+    }//GEN-LAST:event_templateComboBoxActionPerformed
+
+    private void loadButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_loadButtonActionPerformed
+        if (controller == null) {
+            return;
+        }
+
+        StructTemplates loadedTemplates = controller.openTemplates();
+        if (loadedTemplates == null) {
+            return;
+        }
+
+        int firstIndex = templates.size();
+        addTemplates(loadedTemplates);
+        if (templates.size() > firstIndex) {
+            templateComboBox.setSelectedIndex(firstIndex);
+        }
+    }//GEN-LAST:event_loadButtonActionPerformed
+
+    private void updateRoot() {
+        int selectedIndex = templateComboBox.getSelectedIndex();
+        if (data == null || selectedIndex < 0) {
+            templateTreeModel.setRoot(null);
+        } else {
+            templateTreeModel.setRoot(StructTemplates.createRootNode(templates.get(selectedIndex), data, startPosition));
+        }
+        updateSelectedField();
+        updateHighlight();
+    }
+
+    /**
+     * Replaces placeholder node with next batch of array elements.
+     *
+     * @param placeholderPath path to placeholder node
+     */
+    private void resolveMoreElements(TreePath placeholderPath) {
+        MoreElementsTemplateNode placeholder = (MoreElementsTemplateNode) placeholderPath.getLastPathComponent();
+        TreePath arrayPath = placeholderPath.getParentPath();
+        placeholder.resolveMoreElements();
+        SwingUtilities.invokeLater(() -> {
+            templateTreeModel.nodeStructureChanged(arrayPath);
+            templateTree.expandPath(arrayPath);
+            TemplateNode arrayNode = (TemplateNode) arrayPath.getLastPathComponent();
+            TreePath firstNewPath = arrayPath.pathByAddingChild(arrayNode.getChild(placeholder.getIndex()));
+            templateTree.setSelectionPath(firstNewPath);
+            templateTree.scrollPathToVisible(firstNewPath);
+        });
+    }
+
+    private void updateSelectedField() {
+        TemplateNode selectedNode = getSelectedNode();
+        if (selectedNode == null) {
+            fieldLabel.setText(" ");
+            return;
+        }
+
+        fieldLabel.setText(String.format(resourceBundle.getString("field.format"), selectedNode.getPosition(), selectedNode.getSize()));
+    }
+
+    @Nullable
+    private TemplateNode getSelectedNode() {
+        TreePath selectionPath = templateTree.getSelectionPath();
+        return selectionPath == null ? null : (TemplateNode) selectionPath.getLastPathComponent();
+    }
+
+    /**
+     * Reports value fields in visible rows of the tree to the controller.
+     */
+    private void updateHighlight() {
+        if (controller == null) {
+            return;
+        }
+
+        List<TemplateNode> visibleFields = new ArrayList<>();
+        Rectangle visibleRect = templateTree.getVisibleRect();
+        int firstRow = templateTree.getClosestRowForLocation(visibleRect.x, visibleRect.y);
+        int lastRow = templateTree.getClosestRowForLocation(visibleRect.x, visibleRect.y + visibleRect.height);
+        if (firstRow >= 0) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                TreePath path = templateTree.getPathForRow(row);
+                if (path != null) {
+                    TemplateNode node = (TemplateNode) path.getLastPathComponent();
+                    if (node.isLeaf()) {
+                        visibleFields.add(node);
+                    }
+                }
+            }
+        }
+        controller.highlightFields(visibleFields, getSelectedNode());
+    }
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new StructTemplatePanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JLabel fieldLabel;
+    private javax.swing.JButton loadButton;
+    private javax.swing.JPanel optionsPanel;
+    private javax.swing.JLabel positionLabel;
+    private javax.swing.JComboBox<String> templateComboBox;
+    private javax.swing.JLabel templateLabel;
+    private javax.swing.JTree templateTree;
+    private javax.swing.JScrollPane treeScrollPane;
+    // End of variables declaration//GEN-END:variables
+
+    @ParametersAreNonnullByDefault
+    public interface Controller {
+
+        /**
+         * Loads templates from user selected file.
+         *
+         * @return templates or null if cancelled
+         */
+        @Nullable
+        StructTemplates openTemplates();
+
+        /**
+         * Highlights decoded fields.
+         *
+         * @param visibleFields value fields in visible rows
+         * @param selectedField selected node
+         */
+        void highlightFields(List<TemplateNode> visibleFields, @Nullable TemplateNode selectedField);
+    }
+}
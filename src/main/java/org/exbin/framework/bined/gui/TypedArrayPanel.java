@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.gui;
+
+import java.nio.ByteOrder;
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.framework.bined.model.TypedArrayTableModel;
+import org.exbin.framework.bined.model.TypedArrayTableModel.ElementType;
+import org.exbin.framework.utils.LanguageUtils;
+import org.exbin.framework.utils.WindowUtils;
+
+/**
+ * Panel showing range of data as array of typed values.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TypedArrayPanel extends javax.swing.JPanel {
+
+    private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(TypedArrayPanel.class);
+    private final TypedArrayTableModel arrayTableModel = new TypedArrayTableModel(new String[]{
+        resourceBundle.getString("indexColumn.text"),
+        resourceBundle.getString("positionColumn.text"),
+        resourceBundle.getString("valueColumn.text")
+    });
+    private ElementType elementType = ElementType.INT32;
+
+    public TypedArrayPanel() {
+        initComponents();
+        init();
+    }
+
+    private void init() {
+        typeComboBox.setSelectedIndex(elementType.ordinal());
+        strideSpinner.setValue(elementType.getSize());
+        arrayTable.getColumnModel().getColumn(TypedArrayTableModel.INDEX_COLUMN).setPreferredWidth(80);
+        arrayTable.getColumnModel().getColumn(TypedArrayTableModel.POSITION_COLUMN).setPreferredWidth(120);
+        arrayTable.getColumnModel().getColumn(TypedArrayTableModel.VALUE_COLUMN).setPreferredWidth(300);
+        updateLayout();
+    }
+
+    @Nonnull
+    public ResourceBundle getResourceBundle() {
+        return resourceBundle;
+    }
+
+    /**
+     * Sets range of data to show.
+     *
+     * @param data source data
+     * @param startPosition start position
+     * @param length length of range
+     */
+    public void setData(@Nullable BinaryData data, long startPosition, long length) {
+        arrayTableModel.setData(data, startPosition, length);
+        updateElementsCount();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        optionsPanel = new javax.swing.JPanel();
+        typeLabel = new javax.swing.JLabel();
+        typeComboBox = new javax.swing.JComboBox<>();
+        byteOrderLabel = new javax.swing.JLabel();
+        byteOrderComboBox = new javax.swing.JComboBox<>();
+        strideLabel = new javax.swing.JLabel();
+        strideSpinner = new javax.swing.JSpinner();
+        elementsCountLabel = new javax.swing.JLabel();
+        arrayScrollPane = new javax.swing.JScrollPane();
+        arrayTable = new javax.swing.JTable();
+
+        setLayout(new java.awt.BorderLayout());
+
+        typeLabel.setText(resourceBundle.getString("typeLabel.text")); // NOI18N
+
+        typeComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "INT8", "UINT8", "INT16", "UINT16", "INT32", "UINT32", "INT64", "UINT64", "FLOAT32", "FLOAT64" }));
+        typeComboBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                typeComboBoxActionPerformed(evt);
+            }
+        });
+
+        byteOrderLabel.setText(resourceBundle.getString("byteOrderLabel.text")); // NOI18N
+
+        byteOrderComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "Little Endian", "Big Endian" }));
+        byteOrderComboBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                byteOrderComboBoxActionPerformed(evt);
+            }
+        });
+
+        strideLabel.setText(resourceBundle.getString("strideLabel.text")); // NOI18N
+
+        strideSpinner.setModel(new javax.swing.SpinnerNumberModel(4, 1, 65536, 1));
+        strideSpinner.setToolTipText(resourceBundle.getString("strideSpinner.toolTipText")); // NOI18N
+        strideSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                strideSpinnerStateChanged(evt);
+            }
+        });
+
+        javax.swing.GroupLayout optionsPanelLayout = new javax.swing.GroupLayout(optionsPanel);
+        optionsPanel.setLayout(optionsPanelLayout);
+        optionsPanelLayout.setHorizontalGroup(
+            optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(optionsPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(typeLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(typeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(byteOrderLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(byteOrderComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(strideLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(strideSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 80, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(elementsCountLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addContainerGap())
+        );
+        optionsPanelLayout.setVerticalGroup(
+            optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(optionsPanelLayout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(optionsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(typeLabel)
+                    .addComponent(typeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(byteOrderLabel)
+                    .addComponent(byteOrderComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(strideLabel)
+                    .addComponent(strideSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(elementsCountLabel))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        add(optionsPanel, java.awt.BorderLayout.PAGE_START);
+
+        arrayTable.setModel(arrayTableModel);
+        arrayTable.setFillsViewportHeight(true);
+        arrayScrollPane.setViewportView(arrayTable);
+
+        add(arrayScrollPane, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void typeComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_typeComboBoxActionPerformed
+        ElementType previousType = elementType;
+        elementType = ElementType.values()[typeComboBox.getSelectedIndex()];
+        if ((Integer) strideSpinner.getValue() == previousType.getSize()) {
+            // Keep packed layout when switching between types
+            strideSpinner.setValue(elementType.getSize());
+        }
+        updateLayout();
+    }//GEN-LAST:event_typeComboBoxActionPerformed
+
+    private void byteOrderComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_byteOrderComboBoxActionPerformed
+        updateLayout();
+    }//GEN-LAST:event_byteOrderComboBoxActionPerformed
+
+    private void strideSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_strideSpinnerStateChanged
+        updateLayout();
+    }//GEN-LAST:event_strideSpinnerStateChanged
+
+    private void updateLayout() {
+        ByteOrder byteOrder = byteOrderComboBox.getSelectedIndex() == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        arrayTableModel.setLayout(elementType, byteOrder, (Integer) strideSpinner.getValue());
+        updateElementsCount();
+    }
+
+    private void updateElementsCount() {
+        elementsCountLabel.setText(String.format(resourceBundle.getString("elementsCount.format"), arrayTableModel.getRowCount()));
+    }
+
+    /**
+     * Test method for this panel.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        WindowUtils.invokeDialog(new TypedArrayPanel());
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JScrollPane arrayScrollPane;
+    private javax.swing.JTable arrayTable;
+    private javax.swing.JComboBox<String> byteOrderComboBox;
+    private javax.swing.JLabel byteOrderLabel;
+    private javax.swing.JLabel elementsCountLabel;
+    private javax.swing.JPanel optionsPanel;
+    private javax.swing.JLabel strideLabel;
+    private javax.swing.JSpinner strideSpinner;
+    private javax.swing.JComboBox<String> typeComboBox;
+    private javax.swing.JLabel typeLabel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -19,16 +19,25 @@ import java.awt.event.KeyEvent;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.InputMismatchException;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.JCheckBox;
 import javax.swing.JOptionPane;
+import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.exbin.bined.CaretMovedListener;
 import org.exbin.bined.CodeAreaCaretPosition;
 import org.exbin.bined.DataChangedListener;
@@ -64,6 +73,15 @@ public class ValuesPanel extends javax.swing.JPanel {
     public static final BigInteger BIG_INTEGER_BYTE_MASK = BigInteger.valueOf(255);
     public static final String VALUE_OUT_OF_RANGE = "Value is out of range";
     public static int CACHE_SIZE = 250;
+    /**
+     * Delay for coalescing of update requests, roughly single frame.
+     */
+    public static final int UPDATE_FRAME_DELAY = 16;
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "BinEd values decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final java.util.ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(ValuesPanel.class);
     private ExtCodeArea codeArea;
@@ -773,8 +791,9 @@ public class ValuesPanel extends javax.swing.JPanel {
         codeArea.removeDataChangedListener(dataChangedListener);
         codeArea.removeCaretMovedListener(caretMovedListener);
         if (undoHandler != null) {
-            undoHandler.addUndoUpdateListener(undoUpdateListener);
+            undoHandler.removeUndoUpdateListener(undoUpdateListener);
         }
+        valuesUpdater.cancel();
     }
 
     public void updateEditMode() {
@@ -797,7 +816,16 @@ public class ValuesPanel extends javax.swing.JPanel {
         stringTextField.setEditable(editable);
     }
 
+    /**
+     * Requests update of values for current caret position.
+     * <p>
+     * Requests are coalesced and processed at most once per frame.
+     */
     public void updateValues() {
+        valuesUpdater.schedule();
+    }
+
+    private void readValues() {
         CodeAreaCaretPosition caretPosition = codeArea.getCaretPosition();
         dataPosition = caretPosition.getDataPosition();
         long dataSize = codeArea.getDataSize();
@@ -809,9 +837,9 @@ public class ValuesPanel extends javax.swing.JPanel {
             if (availableData < CACHE_SIZE) {
                 Arrays.fill(valuesCache, availableData, CACHE_SIZE, (byte) 0);
             }
+        } else {
+            valuesCache[0] = 0;
         }
-
-        valuesUpdater.schedule();
     }
 
     private void modifyValues(int bytesCount) {
@@ -888,276 +916,189 @@ public class ValuesPanel extends javax.swing.JPanel {
         STRING
     }
 
+    /**
+     * Immutable decoded values of data at caret position.
+     */
     @ParametersAreNonnullByDefault
-    private class ValuesUpdater {
+    private static final class ValuesSnapshot {
 
-        private boolean updateInProgress = false;
-        private boolean updateTerminated = false;
-        private boolean scheduleUpdate = false;
-        private boolean clearFields = true;
+        private final boolean cleared;
+        private final byte binaryValue;
+        private final Map<ValuesPanelField, String> texts;
 
-        private boolean signed;
-        private ByteOrder byteOrder;
-        private byte[] values;
+        private ValuesSnapshot(boolean cleared, byte binaryValue, Map<ValuesPanelField, String> texts) {
+            this.cleared = cleared;
+            this.binaryValue = binaryValue;
+            this.texts = texts;
+        }
 
-        private synchronized void schedule() {
-            if (updateInProgress) {
-                updateTerminated = true;
+        @Nonnull
+        private static ValuesSnapshot decode(byte[] values, boolean cleared, boolean signed, ByteOrder byteOrder, Charset charset) {
+            Map<ValuesPanelField, String> texts = new EnumMap<>(ValuesPanelField.class);
+            if (cleared) {
+                for (ValuesPanelField field : ValuesPanelField.values()) {
+                    texts.put(field, "");
+                }
+                return new ValuesSnapshot(true, (byte) 0, Collections.unmodifiableMap(texts));
             }
-            if (!scheduleUpdate) {
-                scheduleUpdate = true;
-                scheduleNextStep(ValuesPanelField.values()[0]);
+
+            ByteBuffer buffer = ByteBuffer.wrap(values).order(byteOrder);
+            texts.put(ValuesPanelField.BYTE, String.valueOf(signed ? values[0] : values[0] & 0xff));
+
+            int wordValue = signed
+                    ? (byteOrder == ByteOrder.LITTLE_ENDIAN
+                            ? (values[0] & 0xff) | (values[1] << 8)
+                            : (values[1] & 0xff) | (values[0] << 8))
+                    : (byteOrder == ByteOrder.LITTLE_ENDIAN
+                            ? (values[0] & 0xff) | ((values[1] & 0xff) << 8)
+                            : (values[1] & 0xff) | ((values[0] & 0xff) << 8));
+            texts.put(ValuesPanelField.WORD, String.valueOf(wordValue));
+
+            long intValue = signed
+                    ? (byteOrder == ByteOrder.LITTLE_ENDIAN
+                            ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | (values[3] << 24)
+                            : (values[3] & 0xffl) | ((values[2] & 0xffl) << 8) | ((values[1] & 0xffl) << 16) | (values[0] << 24))
+                    : (byteOrder == ByteOrder.LITTLE_ENDIAN
+                            ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | ((values[3] & 0xffl) << 24)
+                            : (values[3] & 0xffl) | ((values[2] & 0xffl) << 8) | ((values[1] & 0xffl) << 16) | ((values[0] & 0xffl) << 24));
+            texts.put(ValuesPanelField.INTEGER, String.valueOf(intValue));
+
+            if (signed) {
+                texts.put(ValuesPanelField.LONG, String.valueOf(buffer.getLong(0)));
+            } else {
+                long longValue = byteOrder == ByteOrder.LITTLE_ENDIAN
+                        ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | ((values[3] & 0xffl) << 24)
+                        | ((values[4] & 0xffl) << 32) | ((values[5] & 0xffl) << 40) | ((values[6] & 0xffl) << 48)
+                        : (values[7] & 0xffl) | ((values[6] & 0xffl) << 8) | ((values[5] & 0xffl) << 16) | ((values[4] & 0xffl) << 24)
+                        | ((values[3] & 0xffl) << 32) | ((values[2] & 0xffl) << 40) | ((values[1] & 0xffl) << 48);
+                BigInteger bigInt1 = BigInteger.valueOf(values[byteOrder == ByteOrder.LITTLE_ENDIAN ? 7 : 0] & 0xffl);
+                BigInteger bigInt2 = bigInt1.shiftLeft(56);
+                BigInteger bigInt3 = bigInt2.add(BigInteger.valueOf(longValue));
+                texts.put(ValuesPanelField.LONG, bigInt3.toString());
             }
+
+            texts.put(ValuesPanelField.FLOAT, String.valueOf(buffer.getFloat(0)));
+            texts.put(ValuesPanelField.DOUBLE, String.valueOf(buffer.getDouble(0)));
+
+            String strValue = new String(values, charset);
+            texts.put(ValuesPanelField.CHARACTER, strValue.length() > 0 ? strValue.substring(0, 1) : "");
+            for (int i = 0; i < strValue.length(); i++) {
+                char charAt = strValue.charAt(i);
+                if (charAt == '\r' || charAt == '\n' || charAt == 0) {
+                    strValue = strValue.substring(0, i);
+                    break;
+                }
+            }
+            texts.put(ValuesPanelField.STRING, strValue);
+
+            return new ValuesSnapshot(false, values[0], Collections.unmodifiableMap(texts));
         }
 
-        private void scheduleNextStep(final ValuesPanelField valuesPanelField) {
-            SwingUtilities.invokeLater(() -> {
-                updateValue(valuesPanelField);
-            });
+        private boolean isBitSet(int bitMask) {
+            return !cleared && (binaryValue & bitMask) != 0;
         }
 
-        public boolean isUpdateInProgress() {
-            return updateInProgress;
+        @Nonnull
+        private String getText(ValuesPanelField field) {
+            return texts.getOrDefault(field, "");
         }
+    }
 
-        private void updateValue(final ValuesPanelField valuesPanelField) {
-            if (valuesPanelField.ordinal() == 0) {
-                long dataSize = codeArea.getDataSize();
-                clearFields = dataPosition >= dataSize;
-                byteOrder = littleEndianRadioButton.isSelected() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
-                byteOrder = getByteOrder();
-                signed = isSigned();
-                values = valuesCache;
-                if (clearFields) {
-                    values[0] = 0;
-                }
-                updateStarted();
-            }
+    /**
+     * Updater of values fields.
+     * <p>
+     * Update requests are coalesced to at most one per frame, data are read on
+     * event dispatch thread, decoded on background thread and all changed
+     * fields are then applied in single event.
+     */
+    @ParametersAreNonnullByDefault
+    private class ValuesUpdater {
 
-            if (updateTerminated) {
-                stopUpdate();
-                return;
-            }
+        private final Timer frameTimer;
+        private boolean updateInProgress = false;
+        private long generation = 0;
 
-            if (clearFields) {
-                clearField(valuesPanelField);
-            } else {
-                updateField(valuesPanelField);
-            }
+        public ValuesUpdater() {
+            frameTimer = new Timer(UPDATE_FRAME_DELAY, (event) -> captureValues());
+            frameTimer.setRepeats(false);
+        }
 
-            final ValuesPanelField[] panelFields = ValuesPanelField.values();
-            ValuesPanelField lastValue = panelFields[panelFields.length - 1];
-            if (valuesPanelField == lastValue) {
-                stopUpdate();
-            } else {
-                SwingUtilities.invokeLater(() -> {
-                    ValuesPanelField nextValue = panelFields[valuesPanelField.ordinal() + 1];
-                    updateValue(nextValue);
-                });
+        private void schedule() {
+            if (!frameTimer.isRunning()) {
+                frameTimer.start();
             }
         }
 
-        private void updateField(ValuesPanelField valuesPanelField) {
-            switch (valuesPanelField) {
-                case BINARY0: {
-                    binaryCheckBox0.setSelected((values[0] & 0x80) > 0);
-                    break;
-                }
-                case BINARY1: {
-                    binaryCheckBox1.setSelected((values[0] & 0x40) > 0);
-                    break;
-                }
-                case BINARY2: {
-                    binaryCheckBox2.setSelected((values[0] & 0x20) > 0);
-                    break;
-                }
-                case BINARY3: {
-                    binaryCheckBox3.setSelected((values[0] & 0x10) > 0);
-                    break;
-                }
-                case BINARY4: {
-                    binaryCheckBox4.setSelected((values[0] & 0x8) > 0);
-                    break;
-                }
-                case BINARY5: {
-                    binaryCheckBox5.setSelected((values[0] & 0x4) > 0);
-                    break;
-                }
-                case BINARY6: {
-                    binaryCheckBox6.setSelected((values[0] & 0x2) > 0);
-                    break;
-                }
-                case BINARY7: {
-                    binaryCheckBox7.setSelected((values[0] & 0x1) > 0);
-                    break;
-                }
-                case BYTE: {
-                    byteTextField.setText(String.valueOf(signed ? values[0] : values[0] & 0xff));
-                    break;
-                }
-                case WORD: {
-                    int wordValue = signed
-                            ? (byteOrder == ByteOrder.LITTLE_ENDIAN
-                                    ? (values[0] & 0xff) | (values[1] << 8)
-                                    : (values[1] & 0xff) | (values[0] << 8))
-                            : (byteOrder == ByteOrder.LITTLE_ENDIAN
-                                    ? (values[0] & 0xff) | ((values[1] & 0xff) << 8)
-                                    : (values[1] & 0xff) | ((values[0] & 0xff) << 8));
-                    wordTextField.setText(String.valueOf(wordValue));
-                    break;
-                }
-                case INTEGER: {
-                    long intValue = signed
-                            ? (byteOrder == ByteOrder.LITTLE_ENDIAN
-                                    ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | (values[3] << 24)
-                                    : (values[3] & 0xffl) | ((values[2] & 0xffl) << 8) | ((values[1] & 0xffl) << 16) | (values[0] << 24))
-                            : (byteOrder == ByteOrder.LITTLE_ENDIAN
-                                    ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | ((values[3] & 0xffl) << 24)
-                                    : (values[3] & 0xffl) | ((values[2] & 0xffl) << 8) | ((values[1] & 0xffl) << 16) | ((values[0] & 0xffl) << 24));
-                    intTextField.setText(String.valueOf(intValue));
-                    break;
-                }
-                case LONG: {
-                    if (signed) {
-                        byteBuffer.rewind();
-                        if (byteBuffer.order() != byteOrder) {
-                            byteBuffer.order(byteOrder);
-                        }
+        private void cancel() {
+            frameTimer.stop();
+            generation++;
+        }
 
-                        longTextField.setText(String.valueOf(byteBuffer.getLong()));
-                    } else {
-                        long longValue = byteOrder == ByteOrder.LITTLE_ENDIAN
-                                ? (values[0] & 0xffl) | ((values[1] & 0xffl) << 8) | ((values[2] & 0xffl) << 16) | ((values[3] & 0xffl) << 24)
-                                | ((values[4] & 0xffl) << 32) | ((values[5] & 0xffl) << 40) | ((values[6] & 0xffl) << 48)
-                                : (values[7] & 0xffl) | ((values[6] & 0xffl) << 8) | ((values[5] & 0xffl) << 16) | ((values[4] & 0xffl) << 24)
-                                | ((values[3] & 0xffl) << 32) | ((values[2] & 0xffl) << 40) | ((values[1] & 0xffl) << 48);
-                        BigInteger bigInt1 = BigInteger.valueOf(values[byteOrder == ByteOrder.LITTLE_ENDIAN ? 7 : 0] & 0xffl);
-                        BigInteger bigInt2 = bigInt1.shiftLeft(56);
-                        BigInteger bigInt3 = bigInt2.add(BigInteger.valueOf(longValue));
-                        longTextField.setText(bigInt3.toString());
-                    }
-                    break;
-                }
-                case FLOAT: {
-                    byteBuffer.rewind();
-                    if (byteBuffer.order() != byteOrder) {
-                        byteBuffer.order(byteOrder);
-                    }
+        public boolean isUpdateInProgress() {
+            return updateInProgress;
+        }
 
-                    floatTextField.setText(String.valueOf(byteBuffer.getFloat()));
-                    break;
-                }
-                case DOUBLE: {
-                    byteBuffer.rewind();
-                    if (byteBuffer.order() != byteOrder) {
-                        byteBuffer.order(byteOrder);
-                    }
+        private void captureValues() {
+            if (codeArea == null) {
+                return;
+            }
 
-                    doubleTextField.setText(String.valueOf(byteBuffer.getDouble()));
-                    break;
-                }
-                case CHARACTER: {
-                    String strValue = new String(values, codeArea.getCharset());
-                    if (strValue.length() > 0) {
-                        characterTextField.setText(strValue.substring(0, 1));
-                    } else {
-                        characterTextField.setText("");
-                    }
-                    break;
-                }
-                case STRING: {
-                    String strValue = new String(values, codeArea.getCharset());
-                    for (int i = 0; i < strValue.length(); i++) {
-                        char charAt = strValue.charAt(i);
-                        if (charAt == '\r' || charAt == '\n' || charAt == 0) {
-                            strValue = strValue.substring(0, i);
-                            break;
-                        }
+            readValues();
+            final long updateGeneration = ++generation;
+            final byte[] values = valuesCache.clone();
+            final boolean cleared = dataPosition >= codeArea.getDataSize();
+            final boolean signed = isSigned();
+            final ByteOrder byteOrder = getByteOrder();
+            final Charset charset = codeArea.getCharset();
+            DECODE_EXECUTOR.execute(() -> {
+                ValuesSnapshot snapshot = ValuesSnapshot.decode(values, cleared, signed, byteOrder, charset);
+                SwingUtilities.invokeLater(() -> {
+                    if (updateGeneration == generation) {
+                        applySnapshot(snapshot);
                     }
-                    stringTextField.setText(strValue);
+                });
+            });
+        }
+
+        private void applySnapshot(ValuesSnapshot snapshot) {
+            updateInProgress = true;
+            try {
+                updateCheckBox(binaryCheckBox0, snapshot.isBitSet(0x80));
+                updateCheckBox(binaryCheckBox1, snapshot.isBitSet(0x40));
+                updateCheckBox(binaryCheckBox2, snapshot.isBitSet(0x20));
+                updateCheckBox(binaryCheckBox3, snapshot.isBitSet(0x10));
+                updateCheckBox(binaryCheckBox4, snapshot.isBitSet(0x8));
+                updateCheckBox(binaryCheckBox5, snapshot.isBitSet(0x4));
+                updateCheckBox(binaryCheckBox6, snapshot.isBitSet(0x2));
+                updateCheckBox(binaryCheckBox7, snapshot.isBitSet(0x1));
+                updateTextField(byteTextField, snapshot.getText(ValuesPanelField.BYTE));
+                updateTextField(wordTextField, snapshot.getText(ValuesPanelField.WORD));
+                updateTextField(intTextField, snapshot.getText(ValuesPanelField.INTEGER));
+                updateTextField(longTextField, snapshot.getText(ValuesPanelField.LONG));
+                updateTextField(floatTextField, snapshot.getText(ValuesPanelField.FLOAT));
+                updateTextField(doubleTextField, snapshot.getText(ValuesPanelField.DOUBLE));
+                updateTextField(characterTextField, snapshot.getText(ValuesPanelField.CHARACTER));
+                if (updateTextField(stringTextField, snapshot.getText(ValuesPanelField.STRING))) {
                     stringTextField.setCaretPosition(0);
-                    break;
                 }
+            } finally {
+                updateInProgress = false;
             }
         }
 
-        private void clearField(ValuesPanelField valuesPanelField) {
-            switch (valuesPanelField) {
-                case BINARY0: {
-                    binaryCheckBox0.setSelected(false);
-                    break;
-                }
-                case BINARY1: {
-                    binaryCheckBox1.setSelected(false);
-                    break;
-                }
-                case BINARY2: {
-                    binaryCheckBox2.setSelected(false);
-                    break;
-                }
-                case BINARY3: {
-                    binaryCheckBox3.setSelected(false);
-                    break;
-                }
-                case BINARY4: {
-                    binaryCheckBox4.setSelected(false);
-                    break;
-                }
-                case BINARY5: {
-                    binaryCheckBox5.setSelected(false);
-                    break;
-                }
-                case BINARY6: {
-                    binaryCheckBox6.setSelected(false);
-                    break;
-                }
-                case BINARY7: {
-                    binaryCheckBox7.setSelected(false);
-                    break;
-                }
-                case BYTE: {
-                    byteTextField.setText("");
-                    break;
-                }
-                case WORD: {
-                    wordTextField.setText("");
-                    break;
-                }
-                case INTEGER: {
-                    intTextField.setText("");
-                    break;
-                }
-                case LONG: {
-                    longTextField.setText("");
-                    break;
-                }
-                case FLOAT: {
-                    floatTextField.setText("");
-                    break;
-                }
-                case DOUBLE: {
-                    doubleTextField.setText("");
-                    break;
-                }
-                case CHARACTER: {
-                    characterTextField.setText("");
-                    break;
-                }
-                case STRING: {
-                    stringTextField.setText("");
-                    break;
-                }
+        private void updateCheckBox(JCheckBox checkBox, boolean selected) {
+            if (checkBox.isSelected() != selected) {
+                checkBox.setSelected(selected);
             }
         }
 
-        private synchronized void updateStarted() {
-            updateInProgress = true;
-            scheduleUpdate = false;
-        }
+        private boolean updateTextField(JTextField textField, String text) {
+            if (text.equals(textField.getText())) {
+                return false;
+            }
 
-        private synchronized void stopUpdate() {
-            updateInProgress = false;
-            updateTerminated = false;
+            textField.setText(text);
+            return true;
         }
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import org.exbin.framework.bined.template.TemplateNode;
+
+/**
+ * Tree model of lazily decoded structure template nodes.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TemplateTreeModel implements TreeModel {
+
+    private final List<TreeModelListener> listeners = new ArrayList<>();
+    private TemplateNode root = null;
+
+    public void setRoot(@Nullable TemplateNode root) {
+        this.root = root;
+        TreeModelEvent event = new TreeModelEvent(this, root == null ? (TreePath) null : new TreePath(root));
+        for (TreeModelListener listener : new ArrayList<>(listeners)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    /**
+     * Notifies that children of node changed.
+     *
+     * @param path path to node
+     */
+    public void nodeStructureChanged(TreePath path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for (TreeModelListener listener : new ArrayList<>(listeners)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        return ((TemplateNode) parent).getChild(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        return ((TemplateNode) parent).getChildCount();
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return ((TemplateNode) node).isLeaf();
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        throw new UnsupportedOperationException("Template nodes are not editable");
+    }
+
+    @Override
+    public int getIndexOfChild(@Nullable Object parent, @Nullable Object child) {
+        if (parent == null || child == null || !parent.equals(((TemplateNode) child).getParent())) {
+            return -1;
+        }
+        return ((TemplateNode) child).getIndex();
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(listener);
+    }
+}
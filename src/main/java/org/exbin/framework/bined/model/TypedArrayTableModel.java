@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.model;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.table.AbstractTableModel;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.CodeAreaUtils;
+
+/**
+ * Table model interpreting range of binary data as array of typed values.
+ * <p>
+ * Rows are decoded lazily in blocks when table requests them and only limited
+ * number of blocks is kept cached.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TypedArrayTableModel extends AbstractTableModel {
+
+    public static final int INDEX_COLUMN = 0;
+    public static final int POSITION_COLUMN = 1;
+    public static final int VALUE_COLUMN = 2;
+    /**
+     * Number of rows decoded at once.
+     */
+    public static final int BLOCK_ROWS = 1024;
+    /**
+     * Maximum number of cached decoded blocks.
+     */
+    public static final int MAX_CACHED_BLOCKS = 32;
+    /**
+     * Maximum size of data range read at once for strided block.
+     */
+    private static final int MAX_BLOCK_SPAN = 1024 * 1024;
+    private static final BigInteger UNSIGNED_LONG_OFFSET = BigInteger.ONE.shiftLeft(64);
+
+    private final String[] columnNames;
+    private BinaryData data = null;
+    private long startPosition = 0;
+    private long length = 0;
+    private ElementType elementType = ElementType.INT32;
+    private ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+    private int stride = ElementType.INT32.getSize();
+    private int rowCount = 0;
+
+    private final Map<Integer, ByteBuffer> blocksCache = new LinkedHashMap<Integer, ByteBuffer>(MAX_CACHED_BLOCKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    public TypedArrayTableModel(String[] columnNames) {
+        this.columnNames = columnNames;
+    }
+
+    /**
+     * Sets source data range.
+     *
+     * @param data source data or null for empty table
+     * @param startPosition start position
+     * @param length length of range
+     */
+    public void setData(@Nullable BinaryData data, long startPosition, long length) {
+        this.data = data;
+        this.startPosition = startPosition;
+        this.length = data == null ? 0 : length;
+        reset();
+    }
+
+    /**
+     * Sets interpretation of data.
+     *
+     * @param elementType element type
+     * @param byteOrder byte order
+     * @param stride distance between starts of elements in bytes
+     */
+    public void setLayout(ElementType elementType, ByteOrder byteOrder, int stride) {
+        if (stride < 1) {
+            throw new IllegalArgumentException("Stride must be positive");
+        }
+        this.elementType = elementType;
+        this.byteOrder = byteOrder;
+        this.stride = stride;
+        reset();
+    }
+
+    @Nonnull
+    public ElementType getElementType() {
+        return elementType;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Returns data position of element for given row.
+     *
+     * @param row row index
+     * @return data position
+     */
+    public long getElementPosition(int row) {
+        return startPosition + (long) row * stride;
+    }
+
+    private void reset() {
+        blocksCache.clear();
+        int elementSize = elementType.getSize();
+        rowCount = length < elementSize ? 0 : (int) Math.min(Integer.MAX_VALUE, (length - elementSize) / stride + 1);
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Nonnull
+    @Override
+    public String getColumnName(int columnIndex) {
+        return columnNames[columnIndex];
+    }
+
+    @Nonnull
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex == INDEX_COLUMN ? Integer.class : String.class;
+    }
+
+    @Nonnull
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        switch (columnIndex) {
+            case INDEX_COLUMN:
+                return rowIndex;
+            case POSITION_COLUMN:
+                return String.format("%X", getElementPosition(rowIndex));
+            case VALUE_COLUMN: {
+                ByteBuffer block = getBlock(rowIndex / BLOCK_ROWS);
+                return decodeValue(block, (rowIndex % BLOCK_ROWS) * elementType.getSize());
+            }
+            default:
+                throw new IllegalArgumentException("Invalid column " + columnIndex);
+        }
+    }
+
+    @Nonnull
+    private ByteBuffer getBlock(int blockIndex) {
+        ByteBuffer block = blocksCache.get(blockIndex);
+        if (block == null) {
+            block = readBlock(blockIndex);
+            blocksCache.put(blockIndex, block);
+        }
+        return block;
+    }
+
+    /**
+     * Reads elements of block packed together regardless of stride.
+     */
+    @Nonnull
+    private ByteBuffer readBlock(int blockIndex) {
+        BinaryData sourceData = CodeAreaUtils.requireNonNull(data);
+        int elementSize = elementType.getSize();
+        int firstRow = blockIndex * BLOCK_ROWS;
+        int blockRows = Math.min(BLOCK_ROWS, rowCount - firstRow);
+        byte[] elements = new byte[blockRows * elementSize];
+        long blockPosition = getElementPosition(firstRow);
+        if (stride == elementSize) {
+            sourceData.copyToArray(blockPosition, elements, 0, elements.length);
+        } else {
+            long span = (long) (blockRows - 1) * stride + elementSize;
+            if (span <= MAX_BLOCK_SPAN) {
+                byte[] spanData = new byte[(int) span];
+                sourceData.copyToArray(blockPosition, spanData, 0, spanData.length);
+                for (int row = 0; row < blockRows; row++) {
+                    System.arraycopy(spanData, row * stride, elements, row * elementSize, elementSize);
+                }
+            } else {
+                for (int row = 0; row < blockRows; row++) {
+                    sourceData.copyToArray(blockPosition + (long) row * stride, elements, row * elementSize, elementSize);
+                }
+            }
+        }
+        return ByteBuffer.wrap(elements).order(byteOrder);
+    }
+
+    @Nonnull
+    private String decodeValue(ByteBuffer block, int offset) {
+        switch (elementType) {
+            case INT8:
+                return String.valueOf(block.get(offset));
+            case UINT8:
+                return String.valueOf(block.get(offset) & 0xff);
+            case INT16:
+                return String.valueOf(block.getShort(offset));
+            case UINT16:
+                return String.valueOf(block.getShort(offset) & 0xffff);
+            case INT32:
+                return String.valueOf(block.getInt(offset));
+            case UINT32:
+                return String.valueOf(block.getInt(offset) & 0xffffffffl);
+            case INT64:
+                return String.valueOf(block.getLong(offset));
+            case UINT64: {
+                long value = block.getLong(offset);
+                return value >= 0 ? String.valueOf(value) : BigInteger.valueOf(value).add(UNSIGNED_LONG_OFFSET).toString();
+            }
+            case FLOAT32:
+                return String.valueOf(block.getFloat(offset));
+            case FLOAT64:
+                return String.valueOf(block.getDouble(offset));
+            default:
+                throw CodeAreaUtils.getInvalidTypeException(elementType);
+        }
+    }
+
+    /**
+     * Type of array element.
+     */
+    public enum ElementType {
+        INT8(1),
+        UINT8(1),
+        INT16(2),
+        UINT16(2),
+        INT32(4),
+        UINT32(4),
+        INT64(8),
+        UINT64(8),
+        FLOAT32(4),
+        FLOAT64(8);
+
+        private final int size;
+
+        private ElementType(int size) {
+            this.size = size;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+}
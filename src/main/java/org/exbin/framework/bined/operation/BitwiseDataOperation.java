@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.bined.CodeAreaUtils;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.swing.CodeAreaOperation;
+import org.exbin.bined.operation.swing.CodeAreaOperationType;
+import org.exbin.bined.operation.swing.ModifyDataOperation;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Bitwise transformation of range of data.
+ * <p>
+ * Key is repeated over the range starting from its first byte, rotations
+ * shift bits within each byte.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BitwiseDataOperation extends CodeAreaOperation implements UndoDataSizeCapable {
+
+    private static final int PARALLEL_CHUNK_SIZE = 64 * 1024;
+
+    private final long position;
+    private final long length;
+    private final BitwiseOperationType operationType;
+    private final byte[] key;
+    private final int rotateBits;
+    private long undoDataSize = 0;
+
+    public BitwiseDataOperation(CodeAreaCore codeArea, long position, long length, BitwiseOperationType operationType, byte[] key, int rotateBits) {
+        super(codeArea);
+        if ((operationType == BitwiseOperationType.XOR || operationType == BitwiseOperationType.AND || operationType == BitwiseOperationType.OR) && key.length == 0) {
+            throw new IllegalArgumentException("Key cannot be empty");
+        }
+        this.position = position;
+        this.length = length;
+        this.operationType = operationType;
+        this.key = key;
+        this.rotateBits = rotateBits & 7;
+    }
+
+    @Nonnull
+    @Override
+    public CodeAreaOperationType getType() {
+        return CodeAreaOperationType.MODIFY_DATA;
+    }
+
+    @Override
+    public void execute() throws BinaryDataOperationException {
+        execute(false);
+    }
+
+    @Nullable
+    @Override
+    public CodeAreaOperation executeWithUndo() throws BinaryDataOperationException {
+        return execute(true);
+    }
+
+    @Nullable
+    private CodeAreaOperation execute(boolean withUndo) throws BinaryDataOperationException {
+        EditableBinaryData contentData = CodeAreaUtils.requireNonNull(((EditableBinaryData) codeArea.getContentData()));
+        if (position < 0 || position + length > contentData.getDataSize()) {
+            throw new BinaryDataOperationException("Unable to modify data outside of document");
+        }
+
+        CodeAreaOperation undoOperation = null;
+        undoDataSize = 0;
+        if (withUndo) {
+            switch (operationType) {
+                case XOR:
+                case NOT: {
+                    undoOperation = new BitwiseDataOperation(codeArea, position, length, operationType, key, rotateBits);
+                    break;
+                }
+                case ROTATE_LEFT: {
+                    undoOperation = new BitwiseDataOperation(codeArea, position, length, BitwiseOperationType.ROTATE_RIGHT, key, rotateBits);
+                    break;
+                }
+                case ROTATE_RIGHT: {
+                    undoOperation = new BitwiseDataOperation(codeArea, position, length, BitwiseOperationType.ROTATE_LEFT, key, rotateBits);
+                    break;
+                }
+                case AND:
+                case OR: {
+                    // Operation is not reversible, keep original data
+                    if (contentData instanceof DeltaDocument) {
+                        DeltaUndoSnapshot snapshot = DeltaUndoSnapshot.capture((DeltaDocument) contentData, position, length);
+                        undoDataSize = snapshot.getMemorySize();
+                        undoOperation = new RestoreDeltaSnapshotOperation(codeArea, position, length, snapshot);
+                    } else {
+                        BinaryData origData = ReplaceDataOperation.copyUndoData(contentData, position, length);
+                        undoDataSize = ReplaceDataOperation.getUndoMemorySize(contentData, origData);
+                        undoOperation = new ModifyDataOperation(codeArea, position, origData);
+                    }
+                    break;
+                }
+                default:
+                    throw CodeAreaUtils.getInvalidTypeException(operationType);
+            }
+        }
+
+        FillDataUtils.transformData(contentData, position, length, this::transform);
+
+        return undoOperation;
+    }
+
+    private void transform(byte[] block, long blockOffset) {
+        if (block.length > PARALLEL_CHUNK_SIZE) {
+            int chunksCount = (block.length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+            IntStream.range(0, chunksCount).parallel().forEach((chunk) -> {
+                int start = chunk * PARALLEL_CHUNK_SIZE;
+                transform(block, start, Math.min(block.length, start + PARALLEL_CHUNK_SIZE), blockOffset + start);
+            });
+        } else {
+            transform(block, 0, block.length, blockOffset);
+        }
+    }
+
+    private void transform(byte[] block, int start, int end, long dataOffset) {
+        switch (operationType) {
+            case XOR: {
+                int keyIndex = (int) (dataOffset % key.length);
+                for (int i = start; i < end; i++) {
+                    block[i] ^= key[keyIndex];
+                    keyIndex = keyIndex + 1 == key.length ? 0 : keyIndex + 1;
+                }
+                break;
+            }
+            case AND: {
+                int keyIndex = (int) (dataOffset % key.length);
+                for (int i = start; i < end; i++) {
+                    block[i] &= key[keyIndex];
+                    keyIndex = keyIndex + 1 == key.length ? 0 : keyIndex + 1;
+                }
+                break;
+            }
+            case OR: {
+                int keyIndex = (int) (dataOffset % key.length);
+                for (int i = start; i < end; i++) {
+                    block[i] |= key[keyIndex];
+                    keyIndex = keyIndex + 1 == key.length ? 0 : keyIndex + 1;
+                }
+                break;
+            }
+            case NOT: {
+                for (int i = start; i < end; i++) {
+                    block[i] = (byte) ~block[i];
+                }
+                break;
+            }
+            case ROTATE_LEFT: {
+                for (int i = start; i < end; i++) {
+                    int value = block[i] & 0xFF;
+                    block[i] = (byte) ((value << rotateBits) | (value >>> (8 - rotateBits)));
+                }
+                break;
+            }
+            case ROTATE_RIGHT: {
+                for (int i = start; i < end; i++) {
+                    int value = block[i] & 0xFF;
+                    block[i] = (byte) ((value >>> rotateBits) | (value << (8 - rotateBits)));
+                }
+                break;
+            }
+            default:
+                throw CodeAreaUtils.getInvalidTypeException(operationType);
+        }
+    }
+
+    /**
+     * Returns size of undo data held in memory by last execution.
+     *
+     * @return size in bytes
+     */
+    @Override
+    public long getUndoDataSize() {
+        return undoDataSize;
+    }
+
+    public enum BitwiseOperationType {
+        XOR,
+        AND,
+        OR,
+        NOT,
+        ROTATE_LEFT,
+        ROTATE_RIGHT
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DataSegment;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.FileDataSource;
+import org.exbin.auxiliary.paged_data.delta.FileSegment;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+
+/**
+ * Copy-on-write snapshot of range of delta document used for undo.
+ * <p>
+ * Parts backed by file keep reference to the file only, parts held in memory
+ * are copied. File parts are copied only when the file is going to be
+ * overwritten, see {@link #materializeSnapshots(FileDataSource)}.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DeltaUndoSnapshot {
+
+    private static final Map<DeltaUndoSnapshot, Boolean> FILE_SNAPSHOTS = new WeakHashMap<>();
+
+    private final SegmentsRepository repository;
+    private final List<SnapshotPart> parts = new ArrayList<>();
+    private final long dataSize;
+
+    private DeltaUndoSnapshot(SegmentsRepository repository, long dataSize) {
+        this.repository = repository;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * Captures given range of the document.
+     *
+     * @param document delta document
+     * @param position start position
+     * @param length length of captured range
+     * @return snapshot
+     */
+    @Nonnull
+    public static DeltaUndoSnapshot capture(DeltaDocument document, long position, long length) {
+        DeltaUndoSnapshot snapshot = new DeltaUndoSnapshot(document.getRepository(), length);
+        long end = position + length;
+        long segmentPosition = 0;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null && segmentPosition < end) {
+            long segmentEnd = segmentPosition + segment.getLength();
+            if (segmentEnd > position) {
+                long partStart = Math.max(position, segmentPosition);
+                long partLength = Math.min(end, segmentEnd) - partStart;
+                long segmentOffset = segment.getStartPosition() + partStart - segmentPosition;
+                if (segment instanceof FileSegment) {
+                    snapshot.parts.add(new SnapshotPart(((FileSegment) segment).getSource(), segmentOffset, partLength));
+                } else {
+                    MemorySegment memorySegment = (MemorySegment) segment;
+                    PagedData data = new PagedData();
+                    data.insert(0, memorySegment.getSource(), segmentOffset, partLength);
+                    snapshot.parts.add(new SnapshotPart(data));
+                }
+            }
+            segmentPosition = segmentEnd;
+            segment = segment.getNext();
+        }
+
+        if (snapshot.hasFileParts()) {
+            synchronized (FILE_SNAPSHOTS) {
+                FILE_SNAPSHOTS.put(snapshot, Boolean.TRUE);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copies file parts of all snapshots referencing given file source.
+     * <p>
+     * Has to be called before file is overwritten, typically when document
+     * is saved.
+     *
+     * @param fileSource file source
+     */
+    public static void materializeSnapshots(FileDataSource fileSource) {
+        List<DeltaUndoSnapshot> snapshots;
+        synchronized (FILE_SNAPSHOTS) {
+            snapshots = new ArrayList<>(FILE_SNAPSHOTS.keySet());
+        }
+
+        for (DeltaUndoSnapshot snapshot : snapshots) {
+            snapshot.materialize(fileSource);
+        }
+    }
+
+    /**
+     * Returns size of captured data.
+     *
+     * @return size in bytes
+     */
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    /**
+     * Returns count of bytes of snapshot held in memory.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getMemorySize() {
+        long memorySize = 0;
+        for (SnapshotPart part : parts) {
+            if (part.data != null && !(part.data instanceof SpillFileBinaryData)) {
+                memorySize += part.length;
+            }
+        }
+        return memorySize;
+    }
+
+    /**
+     * Inserts captured data to the document.
+     *
+     * @param document delta document
+     * @param position target position
+     */
+    public synchronized void restore(DeltaDocument document, long position) {
+        long targetPosition = position;
+        for (SnapshotPart part : parts) {
+            if (part.data == null) {
+                document.insertSegment(targetPosition, repository.createFileSegment(part.source, part.startPosition, part.length));
+            } else {
+                document.insertSegment(targetPosition, FillDataUtils.copyToMemorySegment(repository, part.data, 0, part.length));
+            }
+            targetPosition += part.length;
+        }
+    }
+
+    public synchronized void dispose() {
+        for (SnapshotPart part : parts) {
+            if (part.data != null) {
+                part.data.dispose();
+            }
+        }
+        parts.clear();
+        synchronized (FILE_SNAPSHOTS) {
+            FILE_SNAPSHOTS.remove(this);
+        }
+    }
+
+    private synchronized boolean hasFileParts() {
+        for (SnapshotPart part : parts) {
+            if (part.data == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void materialize(FileDataSource fileSource) {
+        for (SnapshotPart part : parts) {
+            if (part.data == null && part.source == fileSource) {
+                part.data = readFilePart(part);
+                part.source = null;
+            }
+        }
+
+        if (!hasFileParts()) {
+            synchronized (FILE_SNAPSHOTS) {
+                FILE_SNAPSHOTS.remove(this);
+            }
+        }
+    }
+
+    @Nonnull
+    private BinaryData readFilePart(SnapshotPart part) {
+        // Temporary document provides cached access to file range
+        DeltaDocument view = new DeltaDocument(repository);
+        try {
+            view.insertSegment(0, repository.createFileSegment(part.source, part.startPosition, part.length));
+            if (part.length >= ReplaceDataOperation.SPILL_THRESHOLD) {
+                try {
+                    return SpillFileBinaryData.create(view, 0, part.length);
+                } catch (IOException ex) {
+                    Logger.getLogger(DeltaUndoSnapshot.class.getName()).log(Level.WARNING, "Unable to spill undo data, keeping them in memory", ex);
+                }
+            }
+
+            PagedData data = new PagedData();
+            long done = 0;
+            while (done < part.length) {
+                byte[] block = new byte[(int) Math.min(FillDataUtils.MEMORY_BLOCK_SIZE, part.length - done)];
+                view.copyToArray(done, block, 0, block.length);
+                data.insert(done, block);
+                done += block.length;
+            }
+            return data;
+        } finally {
+            view.dispose();
+        }
+    }
+
+    @ParametersAreNonnullByDefault
+    private static class SnapshotPart {
+
+        @Nullable
+        private FileDataSource source;
+        private final long startPosition;
+        private final long length;
+        @Nullable
+        private BinaryData data;
+
+        public SnapshotPart(FileDataSource source, long startPosition, long length) {
+            this.source = source;
+            this.startPosition = startPosition;
+            this.length = length;
+        }
+
+        public SnapshotPart(BinaryData data) {
+            this.startPosition = 0;
+            this.length = data.getDataSize();
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.ByteArrayEditableData;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+import org.exbin.auxiliary.paged_data.OutOfBoundsException;
+import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.auxiliary.paged_data.delta.MemorySegment;
+import org.exbin.auxiliary.paged_data.delta.SegmentsRepository;
+import org.exbin.bined.CodeAreaUtils;
+import org.exbin.framework.bined.operation.InsertDataOperation.FillWithType;
+
+/**
+ * Utilities for filling binary data in large blocks.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FillDataUtils {
+
+    /**
+     * Size of block used for data held in memory.
+     */
+    public static final int MEMORY_BLOCK_SIZE = 256 * PagedData.DEFAULT_PAGE_SIZE;
+    /**
+     * Size of chunk generated from single random seed.
+     */
+    public static final int RANDOM_CHUNK_SIZE = 64 * 1024;
+    private static final int PARALLEL_THRESHOLD = 4 * RANDOM_CHUNK_SIZE;
+
+    private FillDataUtils() {
+    }
+
+    /**
+     * Replaces existing range of data with fill pattern.
+     * <p>
+     * Data held in memory are written in blocks, delta documents receive
+     * single new memory segment and other data (typically backed by file) are
+     * replaced in single pass streaming the pattern.
+     *
+     * @param data target data
+     * @param position start position
+     * @param length length of filled range
+     * @param fillWithType fill type
+     * @param sample sample data for sample fill type
+     */
+    public static void fillData(EditableBinaryData data, long position, long length, FillWithType fillWithType, @Nullable BinaryData sample) {
+        fillData(data, position, length, fillWithType, sample, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Replaces existing range of data with fill pattern.
+     *
+     * @param data target data
+     * @param position start position
+     * @param length length of filled range
+     * @param fillWithType fill type
+     * @param sample sample data for sample fill type
+     * @param randomSeed seed of random data, the same seed produces the same
+     * data
+     */
+    public static void fillData(EditableBinaryData data, long position, long length, FillWithType fillWithType, @Nullable BinaryData sample, long randomSeed) {
+        if (length <= 0) {
+            return;
+        }
+
+        FillPatternData pattern = new FillPatternData(fillWithType, sample, length, randomSeed);
+        if (data instanceof DeltaDocument) {
+            replaceWithSegment((DeltaDocument) data, position, length, (consumer) -> writeBlocks(pattern, consumer));
+        } else if (data instanceof PagedData || data instanceof ByteArrayEditableData) {
+            writeBlocks(pattern, (blockPosition, block) -> data.replace(position + blockPosition, block));
+        } else {
+            data.replace(position, pattern, 0, length);
+        }
+    }
+
+    /**
+     * Transforms existing range of data in blocks.
+     * <p>
+     * Delta documents receive single new memory segment, other data are
+     * replaced block by block.
+     *
+     * @param data target data
+     * @param position start position
+     * @param length length of transformed range
+     * @param transformer block transformer
+     */
+    public static void transformData(EditableBinaryData data, long position, long length, BlockTransformer transformer) {
+        if (data instanceof DeltaDocument) {
+            replaceWithSegment((DeltaDocument) data, position, length, (consumer) -> transformBlocks(data, position, length, transformer, consumer));
+        } else {
+            // Exact size blocks are required by some editable data implementations
+            transformBlocks(data, position, length, transformer, (blockPosition, block) -> data.replace(position + blockPosition, block));
+        }
+    }
+
+    /**
+     * Copies range of data to new memory segment.
+     *
+     * @param repository segments repository
+     * @param data source data
+     * @param startFrom start position
+     * @param length length of range
+     * @return memory segment
+     */
+    @Nonnull
+    public static MemorySegment copyToMemorySegment(SegmentsRepository repository, BinaryData data, long startFrom, long length) {
+        return createMemorySegment(repository, (consumer) -> transformBlocks(data, startFrom, length, null, consumer));
+    }
+
+    private static void replaceWithSegment(DeltaDocument document, long position, long length, BlockWriter writer) {
+        MemorySegment segment = createMemorySegment(document.getRepository(), writer);
+        document.remove(position, length);
+        document.insertSegment(position, segment);
+    }
+
+    @Nonnull
+    private static MemorySegment createMemorySegment(SegmentsRepository repository, BlockWriter writer) {
+        // Ranged writes into existing memory segments are not reliable for delta documents
+        MemorySegment segment = repository.createMemorySegment();
+        writer.write((blockPosition, block) -> repository.insertMemoryData(segment, blockPosition, block));
+        return segment;
+    }
+
+    private static void transformBlocks(BinaryData data, long position, long length, @Nullable BlockTransformer transformer, BlockConsumer consumer) {
+        long done = 0;
+        while (done < length) {
+            byte[] block = new byte[(int) Math.min(MEMORY_BLOCK_SIZE, length - done)];
+            data.copyToArray(position + done, block, 0, block.length);
+            if (transformer != null) {
+                transformer.transform(block, done);
+            }
+            consumer.accept(done, block);
+            done += block.length;
+        }
+    }
+
+    /**
+     * Passes pattern to consumer in blocks in order.
+     *
+     * Next block is generated on background while current block is written.
+     */
+    private static void writeBlocks(FillPatternData pattern, BlockConsumer consumer) {
+        long length = pattern.getDataSize();
+        CompletableFuture<byte[]> nextBlock = generateBlock(pattern, 0);
+        long done = 0;
+        while (done < length) {
+            byte[] block = nextBlock.join();
+            long nextPosition = done + block.length;
+            if (nextPosition < length) {
+                nextBlock = generateBlock(pattern, nextPosition);
+            }
+            consumer.accept(done, block);
+            done = nextPosition;
+        }
+    }
+
+    @Nonnull
+    private static CompletableFuture<byte[]> generateBlock(FillPatternData pattern, long position) {
+        return CompletableFuture.supplyAsync(() -> {
+            byte[] block = new byte[(int) Math.min(MEMORY_BLOCK_SIZE, pattern.getDataSize() - position)];
+            pattern.copyToArray(position, block, 0, block.length);
+            return block;
+        });
+    }
+
+    /**
+     * Virtual data generating fill pattern on demand.
+     * <p>
+     * Random data are generated in chunks seeded from single seed, so that
+     * any range can be generated repeatedly with the same content.
+     */
+    @ParametersAreNonnullByDefault
+    public static class FillPatternData implements BinaryData {
+
+        private final FillWithType fillWithType;
+        private final long dataSize;
+        private final byte fillValue;
+        private final byte[] sampleData;
+        private final long seed;
+        private long cachedChunkIndex = -1;
+        private byte[] cachedChunk = null;
+
+        public FillPatternData(FillWithType fillWithType, @Nullable BinaryData sample, long dataSize) {
+            this(fillWithType, sample, dataSize, new SplittableRandom().nextLong());
+        }
+
+        public FillPatternData(FillWithType fillWithType, @Nullable BinaryData sample, long dataSize, long seed) {
+            this.fillWithType = fillWithType;
+            this.dataSize = dataSize;
+            byte value = 0;
+            byte[] sampleBytes = null;
+            switch (fillWithType) {
+                case EMPTY: {
+                    break;
+                }
+                case SPACE: {
+                    value = 0x20;
+                    break;
+                }
+                case RANDOM: {
+                    break;
+                }
+                case SAMPLE: {
+                    if (sample == null || sample.isEmpty()) {
+                        value = (byte) 0xFF;
+                    } else {
+                        sampleBytes = new byte[(int) sample.getDataSize()];
+                        sample.copyToArray(0, sampleBytes, 0, sampleBytes.length);
+                    }
+                    break;
+                }
+                default:
+                    throw CodeAreaUtils.getInvalidTypeException(fillWithType);
+            }
+            fillValue = value;
+            sampleData = sampleBytes;
+            this.seed = seed;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return dataSize == 0;
+        }
+
+        @Override
+        public long getDataSize() {
+            return dataSize;
+        }
+
+        @Override
+        public byte getByte(long position) {
+            byte[] result = new byte[1];
+            copyToArray(position, result, 0, 1);
+            return result[0];
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy() {
+            return copy(0, dataSize);
+        }
+
+        @Nonnull
+        @Override
+        public BinaryData copy(long startFrom, long length) {
+            if (startFrom < 0 || length < 0 || startFrom + length > dataSize) {
+                throw new OutOfBoundsException("Copy range is outside of data");
+            }
+
+            PagedData result = new PagedData();
+            long done = 0;
+            while (done < length) {
+                byte[] block = new byte[(int) Math.min(MEMORY_BLOCK_SIZE, length - done)];
+                copyToArray(startFrom + done, block, 0, block.length);
+                result.insert(done, block);
+                done += block.length;
+            }
+            return result;
+        }
+
+        @Override
+        public void copyToArray(long startFrom, byte[] target, int offset, int length) {
+            if (startFrom < 0 || length < 0 || startFrom + length > dataSize) {
+                throw new OutOfBoundsException("Copy range is outside of data");
+            }
+
+            if (fillWithType == FillWithType.RANDOM) {
+                copyRandom(startFrom, target, offset, length);
+            } else if (sampleData != null) {
+                copySample(startFrom, target, offset, length);
+            } else {
+                Arrays.fill(target, offset, offset + length, fillValue);
+            }
+        }
+
+        private void copySample(long startFrom, byte[] target, int offset, int length) {
+            int sampleLength = sampleData.length;
+            int samplePosition = (int) (startFrom % sampleLength);
+            int firstPart = Math.min(length, sampleLength - samplePosition);
+            System.arraycopy(sampleData, samplePosition, target, offset, firstPart);
+            int filled = firstPart;
+            if (filled < length) {
+                int secondPart = Math.min(length - filled, samplePosition);
+                System.arraycopy(sampleData, 0, target, offset + filled, secondPart);
+                filled += secondPart;
+            }
+
+            // Filled part is whole rotated sample now, repeat it by doubling
+            while (filled < length) {
+                int toCopy = Math.min(filled, length - filled);
+                System.arraycopy(target, offset, target, offset + filled, toCopy);
+                filled += toCopy;
+            }
+        }
+
+        private void copyRandom(long startFrom, byte[] target, int offset, int length) {
+            if (length >= PARALLEL_THRESHOLD) {
+                // Whole chunks are independent and generated in parallel
+                int head = (int) ((RANDOM_CHUNK_SIZE - startFrom % RANDOM_CHUNK_SIZE) % RANDOM_CHUNK_SIZE);
+                long firstChunk = (startFrom + head) / RANDOM_CHUNK_SIZE;
+                int chunksCount = (length - head) / RANDOM_CHUNK_SIZE;
+                IntStream.range(0, chunksCount).parallel().forEach((chunk) -> generateRandomChunk(firstChunk + chunk, target, offset + head + chunk * RANDOM_CHUNK_SIZE, RANDOM_CHUNK_SIZE));
+
+                int parallelEnd = head + chunksCount * RANDOM_CHUNK_SIZE;
+                copyRandomParts(startFrom, target, offset, head);
+                copyRandomParts(startFrom + parallelEnd, target, offset + parallelEnd, length - parallelEnd);
+            } else {
+                copyRandomParts(startFrom, target, offset, length);
+            }
+        }
+
+        private synchronized void copyRandomParts(long startFrom, byte[] target, int offset, int length) {
+            int done = 0;
+            while (done < length) {
+                long position = startFrom + done;
+                long chunkIndex = position / RANDOM_CHUNK_SIZE;
+                int chunkOffset = (int) (position % RANDOM_CHUNK_SIZE);
+                int toCopy = Math.min(length - done, RANDOM_CHUNK_SIZE - chunkOffset);
+                if (chunkOffset == 0 && toCopy == RANDOM_CHUNK_SIZE) {
+                    generateRandomChunk(chunkIndex, target, offset + done, toCopy);
+                } else {
+                    if (cachedChunkIndex != chunkIndex) {
+                        if (cachedChunk == null) {
+                            cachedChunk = new byte[RANDOM_CHUNK_SIZE];
+                        }
+                        generateRandomChunk(chunkIndex, cachedChunk, 0, RANDOM_CHUNK_SIZE);
+                        cachedChunkIndex = chunkIndex;
+                    }
+                    System.arraycopy(cachedChunk, chunkOffset, target, offset + done, toCopy);
+                }
+                done += toCopy;
+            }
+        }
+
+        private void generateRandomChunk(long chunkIndex, byte[] target, int offset, int length) {
+            SplittableRandom random = new SplittableRandom(mix64(seed + chunkIndex));
+            int position = 0;
+            while (position < length) {
+                long value = random.nextLong();
+                int count = Math.min(Long.BYTES, length - position);
+                for (int i = 0; i < count; i++) {
+                    target[offset + position + i] = (byte) value;
+                    value >>>= 8;
+                }
+                position += count;
+            }
+        }
+
+        private static long mix64(long value) {
+            // Murmur3 finalizer, decorrelates seeds of neighbouring chunks
+            value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+            value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return value ^ (value >>> 33);
+        }
+
+        @Override
+        public void saveToStream(OutputStream outputStream) throws IOException {
+            byte[] block = new byte[(int) Math.min(MEMORY_BLOCK_SIZE, dataSize)];
+            long done = 0;
+            while (done < dataSize) {
+                int blockLength = (int) Math.min(block.length, dataSize - done);
+                copyToArray(done, block, 0, blockLength);
+                outputStream.write(block, 0, blockLength);
+                done += blockLength;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public InputStream getDataInputStream() {
+            return new InputStream() {
+                private long position = 0;
+
+                @Override
+                public int read() {
+                    return position < dataSize ? getByte(position++) & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (length == 0) {
+                        return 0;
+                    }
+                    if (position >= dataSize) {
+                        return -1;
+                    }
+
+                    int chunk = (int) Math.min(length, dataSize - position);
+                    copyToArray(position, buffer, offset, chunk);
+                    position += chunk;
+                    return chunk;
+                }
+
+                @Override
+                public int available() {
+                    return (int) Math.min(Integer.MAX_VALUE, dataSize - position);
+                }
+            };
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    /**
+     * Transformer of block of data.
+     */
+    public interface BlockTransformer {
+
+        /**
+         * Transforms block in place.
+         *
+         * @param block block data
+         * @param blockPosition position of block relative to start of range
+         */
+        void transform(byte[] block, long blockPosition);
+    }
+
+    private interface BlockConsumer {
+
+        void accept(long position, byte[] block);
+    }
+
+    private interface BlockWriter {
+
+        void write(BlockConsumer consumer);
+    }
+}
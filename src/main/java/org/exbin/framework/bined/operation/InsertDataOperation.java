@@ -15,7 +15,7 @@
  */
 package org.exbin.framework.bined.operation;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -43,13 +43,32 @@ public class InsertDataOperation extends CodeAreaOperation {
     private final long length;
     private final FillWithType fillWithType;
     private final EditableBinaryData data;
+    private final long randomSeed;
 
     public InsertDataOperation(CodeAreaCore codeArea, long position, long length, FillWithType fillWithType, @Nullable EditableBinaryData data) {
+        this(codeArea, position, length, fillWithType, data, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates operation with given seed of random fill.
+     * <p>
+     * Seed is kept for repeated executions, so that redo produces the same
+     * data.
+     *
+     * @param codeArea code area
+     * @param position position
+     * @param length length
+     * @param fillWithType fill type
+     * @param data sample data
+     * @param randomSeed seed of random data
+     */
+    public InsertDataOperation(CodeAreaCore codeArea, long position, long length, FillWithType fillWithType, @Nullable EditableBinaryData data, long randomSeed) {
         super(codeArea);
         this.position = position;
         this.length = length;
         this.fillWithType = fillWithType;
         this.data = data;
+        this.randomSeed = randomSeed;
     }
 
     @Nonnull
@@ -75,49 +94,11 @@ public class InsertDataOperation extends CodeAreaOperation {
         CodeAreaOperation undoOperation = null;
         EditableBinaryData contentData = CodeAreaUtils.requireNonNull(((EditableBinaryData) codeArea.getContentData()));
 
-        switch (fillWithType) {
-            case EMPTY: {
-                contentData.insert(position, length);
-                break;
-            }
-            case SPACE: {
-                contentData.insertUninitialized(position, length);
-                for (long pos = position; pos < position + length; pos++) {
-                    contentData.setByte(pos, (byte) 0x20);
-                }
-                break;
-            }
-            case RANDOM: {
-                contentData.insertUninitialized(position, length);
-                Random random = new Random();
-                for (long pos = position; pos < position + length; pos++) {
-                    contentData.setByte(pos, (byte) random.nextInt());
-                }
-                break;
-            }
-            case SAMPLE: {
-                contentData.insertUninitialized(position, length);
-
-                if (data == null || data.isEmpty()) {
-                    for (long pos = position; pos < position + length; pos++) {
-                        contentData.setByte(pos, (byte) 0xFF);
-                    }
-                } else {
-                    long dataSize = data.getDataSize();
-                    long pos = position;
-                    long remain = length;
-                    while (remain > 0) {
-                        long seg = Math.min(remain, dataSize);
-                        contentData.replace(pos, data, 0, seg);
-                        pos += seg;
-                        remain -= seg;
-                    }
-                }
-
-                break;
-            }
-            default:
-                throw CodeAreaUtils.getInvalidTypeException(fillWithType);
+        if (fillWithType == FillWithType.EMPTY) {
+            contentData.insert(position, length);
+        } else {
+            contentData.insertUninitialized(position, length);
+            FillDataUtils.fillData(contentData, position, length, fillWithType, data, randomSeed);
         }
 
         if (withUndo) {
@@ -130,7 +111,9 @@ public class InsertDataOperation extends CodeAreaOperation {
     @Override
     public void dispose() throws BinaryDataOperationException {
         super.dispose();
-        data.dispose();
+        if (data != null) {
+            data.dispose();
+        }
     }
 
     public enum FillWithType {
@@ -141,7 +124,7 @@ public class InsertDataOperation extends CodeAreaOperation {
     }
 
     @ParametersAreNonnullByDefault
-    public static class InsertDataCommand extends CodeAreaCommand {
+    public static class InsertDataCommand extends CodeAreaCommand implements UndoDataSizeCapable {
 
         private final InsertDataOperation operation;
         private CodeAreaOperation undoOperation;
@@ -176,6 +159,12 @@ public class InsertDataOperation extends CodeAreaOperation {
             return true;
         }
 
+        @Override
+        public long getUndoDataSize() {
+            // Inserted data are removed on undo and generated again on redo
+            return 0;
+        }
+
         @Override
         public void dispose() throws BinaryDataOperationException {
             super.dispose();
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+/**
+ * Interface for binary data providing copies as views.
+ *
+ * Copy doesn't hold copied data in memory until the original data are
+ * modified, so it can be kept as undo data directly.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+public interface LazyCopyCapable {
+}
@@ -15,12 +15,17 @@
  */
 package org.exbin.framework.bined.operation;
 
-import java.util.Random;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
 import org.exbin.auxiliary.paged_data.EditableBinaryData;
 import org.exbin.auxiliary.paged_data.PagedData;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
 import org.exbin.bined.CodeAreaUtils;
 import org.exbin.bined.capability.CaretCapable;
 import org.exbin.bined.capability.ScrollingCapable;
@@ -42,17 +47,43 @@ import org.exbin.framework.bined.operation.InsertDataOperation.FillWithType;
 @ParametersAreNonnullByDefault
 public class ReplaceDataOperation extends CodeAreaOperation {
 
+    /**
+     * Minimum size of overwritten data stored in spill file instead of memory.
+     */
+    public static final long SPILL_THRESHOLD = 16 * 1024 * 1024;
+
     private final long position;
     private final long length;
     private final FillWithType fillWithType;
     private final EditableBinaryData data;
+    private final long randomSeed;
+    private long undoDataSize = 0;
+    private DeltaUndoSnapshot undoSnapshot = null;
 
     public ReplaceDataOperation(CodeAreaCore codeArea, long position, long length, FillWithType fillWithType, @Nullable EditableBinaryData data) {
+        this(codeArea, position, length, fillWithType, data, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates operation with given seed of random fill.
+     * <p>
+     * Seed is kept for repeated executions, so that redo produces the same
+     * data.
+     *
+     * @param codeArea code area
+     * @param position position
+     * @param length length
+     * @param fillWithType fill type
+     * @param data sample data
+     * @param randomSeed seed of random data
+     */
+    public ReplaceDataOperation(CodeAreaCore codeArea, long position, long length, FillWithType fillWithType, @Nullable EditableBinaryData data, long randomSeed) {
         super(codeArea);
         this.position = position;
         this.length = length;
         this.fillWithType = fillWithType;
         this.data = data;
+        this.randomSeed = randomSeed;
     }
 
     @Nonnull
@@ -83,15 +114,25 @@ public class ReplaceDataOperation extends CodeAreaOperation {
         CodeAreaOperation undoOperation = null;
         EditableBinaryData contentData = CodeAreaUtils.requireNonNull(((EditableBinaryData) codeArea.getContentData()));
 
+        undoSnapshot = null;
         if (position == dataSize) {
             undoOperation = new RemoveDataOperation(codeArea, position, 0, length);
             contentData.insertUninitialized(dataSize, length);
+        } else if (contentData instanceof DeltaDocument) {
+            if (withUndo) {
+                // Snapshot keeps references to file segments instead of copying data
+                undoSnapshot = DeltaUndoSnapshot.capture((DeltaDocument) contentData, position, Math.min(length, dataSize - position));
+                undoOperation = new RestoreDeltaSnapshotOperation(codeArea, position, length, undoSnapshot);
+            }
+
+            if (position + length > dataSize) {
+                contentData.insertUninitialized(dataSize, position + length - dataSize);
+            }
         } else if (position + length > dataSize) {
             long diff = position + length - dataSize;
             if (withUndo) {
-                // TODO use copy directly once delta is fixed
-                PagedData origData = new PagedData();
-                origData.insert(0, contentData.copy(position, length - diff));
+                BinaryData origData = copyUndoData(contentData, position, length - diff);
+                undoDataSize = getUndoMemorySize(contentData, origData);
                 undoOperation = new CompoundCodeAreaOperation(codeArea);
                 ((CompoundCodeAreaOperation) undoOperation).appendOperation(new ModifyDataOperation(codeArea, position, origData));
                 ((CompoundCodeAreaOperation) undoOperation).appendOperation(new RemoveDataOperation(codeArea, dataSize, 0, diff));
@@ -99,67 +140,73 @@ public class ReplaceDataOperation extends CodeAreaOperation {
 
             contentData.insertUninitialized(dataSize, diff);
         } else if (withUndo) {
-            // TODO use copy directly once delta is fixed
-            PagedData origData = new PagedData();
-            origData.insert(0, contentData.copy(position, length));
+            BinaryData origData = copyUndoData(contentData, position, length);
+            undoDataSize = getUndoMemorySize(contentData, origData);
             undoOperation = new ModifyDataOperation(codeArea, position, origData);
         }
 
-        switch (fillWithType) {
-            case EMPTY: {
-                for (long pos = position; pos < position + length; pos++) {
-                    contentData.setByte(pos, (byte) 0x0);
-                }
-                break;
-            }
-            case SPACE: {
-                for (long pos = position; pos < position + length; pos++) {
-                    contentData.setByte(pos, (byte) 0x20);
-                }
-                break;
-            }
-            case RANDOM: {
-                Random random = new Random();
-                for (long pos = position; pos < position + length; pos++) {
-                    contentData.setByte(pos, (byte) random.nextInt());
-                }
-                break;
-            }
-            case SAMPLE: {
-                if (data == null || data.isEmpty()) {
-                    for (long pos = position; pos < position + length; pos++) {
-                        contentData.setByte(pos, (byte) 0xFF);
-                    }
-                } else {
-                    long dataSizeLimit = data.getDataSize();
-                    long pos = position;
-                    long remain = length;
-                    while (remain > 0) {
-                        long seg = Math.min(remain, dataSizeLimit);
-                        contentData.replace(pos, data, 0, seg);
-                        pos += seg;
-                        remain -= seg;
-                    }
-                }
-
-                break;
-            }
-            default:
-                throw CodeAreaUtils.getInvalidTypeException(fillWithType);
-        }
+        FillDataUtils.fillData(contentData, position, length, fillWithType, data, randomSeed);
 
         ((CaretCapable) codeArea).getCaret().setCaretPosition(position + length, 0);
         return undoOperation;
     }
 
+    /**
+     * Copies data which are going to be overwritten.
+     *
+     * Large data are written to spill file to keep undo history out of heap.
+     * Data providing lazy copies are not copied at all.
+     */
+    @Nonnull
+    static BinaryData copyUndoData(EditableBinaryData contentData, long startFrom, long copyLength) {
+        if (contentData instanceof LazyCopyCapable) {
+            return contentData.copy(startFrom, copyLength);
+        }
+
+        if (copyLength >= SPILL_THRESHOLD) {
+            try {
+                return SpillFileBinaryData.create(contentData, startFrom, copyLength);
+            } catch (IOException ex) {
+                Logger.getLogger(ReplaceDataOperation.class.getName()).log(Level.WARNING, "Unable to spill undo data, keeping them in memory", ex);
+            }
+        }
+
+        // TODO use copy directly once delta is fixed
+        PagedData origData = new PagedData();
+        origData.insert(0, contentData.copy(startFrom, copyLength));
+        return origData;
+    }
+
+    /**
+     * Returns size of undo data copied by copyUndoData held in memory.
+     *
+     * @param contentData content data
+     * @param undoData undo data
+     * @return size in bytes
+     */
+    static long getUndoMemorySize(EditableBinaryData contentData, BinaryData undoData) {
+        return contentData instanceof LazyCopyCapable || undoData instanceof SpillFileBinaryData ? 0 : undoData.getDataSize();
+    }
+
+    /**
+     * Returns size of undo data held in memory by last execution.
+     *
+     * @return size in bytes
+     */
+    public long getUndoDataSize() {
+        return undoSnapshot != null ? undoSnapshot.getMemorySize() : undoDataSize;
+    }
+
     @Override
     public void dispose() throws BinaryDataOperationException {
         super.dispose();
-        data.dispose();
+        if (data != null) {
+            data.dispose();
+        }
     }
 
     @ParametersAreNonnullByDefault
-    public static class ReplaceDataCommand extends CodeAreaCommand {
+    public static class ReplaceDataCommand extends CodeAreaCommand implements UndoDataSizeCapable {
 
         private final ReplaceDataOperation operation;
         private CodeAreaOperation undoOperation;
@@ -185,6 +232,7 @@ public class ReplaceDataOperation extends CodeAreaOperation {
         public void undo() throws BinaryDataOperationException {
             undoOperation.execute();
             undoOperation.dispose();
+            undoOperation = null;
             ((ScrollingCapable) codeArea).revealCursor();
             codeArea.notifyDataChanged();
         }
@@ -194,9 +242,18 @@ public class ReplaceDataOperation extends CodeAreaOperation {
             return true;
         }
 
+        @Override
+        public long getUndoDataSize() {
+            return undoOperation == null ? 0 : operation.getUndoDataSize();
+        }
+
         @Override
         public void dispose() throws BinaryDataOperationException {
             super.dispose();
+            if (undoOperation != null) {
+                undoOperation.dispose();
+                undoOperation = null;
+            }
             operation.dispose();
         }
     }
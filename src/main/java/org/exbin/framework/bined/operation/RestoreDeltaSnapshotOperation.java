@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.delta.DeltaDocument;
+import org.exbin.bined.CodeAreaUtils;
+import org.exbin.bined.capability.CaretCapable;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.swing.CodeAreaOperation;
+import org.exbin.bined.operation.swing.CodeAreaOperationType;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Operation replacing range of delta document with undo snapshot.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class RestoreDeltaSnapshotOperation extends CodeAreaOperation {
+
+    private final long position;
+    private final long length;
+    private final DeltaUndoSnapshot snapshot;
+
+    public RestoreDeltaSnapshotOperation(CodeAreaCore codeArea, long position, long length, DeltaUndoSnapshot snapshot) {
+        super(codeArea);
+        this.position = position;
+        this.length = length;
+        this.snapshot = snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public CodeAreaOperationType getType() {
+        return CodeAreaOperationType.MODIFY_DATA;
+    }
+
+    @Override
+    public void execute() throws BinaryDataOperationException {
+        execute(false);
+    }
+
+    @Nullable
+    @Override
+    public CodeAreaOperation executeWithUndo() throws BinaryDataOperationException {
+        return execute(true);
+    }
+
+    @Nullable
+    private CodeAreaOperation execute(boolean withUndo) {
+        DeltaDocument document = (DeltaDocument) CodeAreaUtils.requireNonNull(codeArea.getContentData());
+        CodeAreaOperation undoOperation = null;
+        if (withUndo) {
+            undoOperation = new RestoreDeltaSnapshotOperation(codeArea, position, snapshot.getDataSize(), DeltaUndoSnapshot.capture(document, position, length));
+        }
+
+        document.remove(position, length);
+        snapshot.restore(document, position);
+        ((CaretCapable) codeArea).getCaret().setCaretPosition(position + snapshot.getDataSize(), 0);
+        return undoOperation;
+    }
+
+    @Override
+    public void dispose() throws BinaryDataOperationException {
+        super.dispose();
+        snapshot.dispose();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.auxiliary.paged_data.OutOfBoundsException;
+import org.exbin.auxiliary.paged_data.PagedData;
+
+/**
+ * Read-only binary data stored in temporary spill file.
+ * <p>
+ * Used for large undo data, so that they don't occupy heap. Data are read
+ * back lazily and file is deleted when data are disposed.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class SpillFileBinaryData implements BinaryData {
+
+    public static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final String SPILL_FILE_PREFIX = "bined-undo";
+    private static final String SPILL_FILE_SUFFIX = ".spill";
+    private static final String BROKEN_SPILL_FILE = "Unable to read undo spill file";
+
+    private final File file;
+    private final FileChannel channel;
+    private final long dataSize;
+    private final byte[] cachedPage = new byte[PAGE_SIZE];
+    private long cachedPageIndex = -1;
+
+    private SpillFileBinaryData(File file, FileChannel channel, long dataSize) {
+        this.file = file;
+        this.channel = channel;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * Writes given range of source data to new spill file.
+     *
+     * @param source source data
+     * @param startFrom start position
+     * @param length length of data
+     * @return spilled data
+     * @throws IOException if writing fails
+     */
+    @Nonnull
+    public static SpillFileBinaryData create(BinaryData source, long startFrom, long length) throws IOException {
+        File file = File.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX);
+        file.deleteOnExit();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, length)];
+            long done = 0;
+            while (done < length) {
+                int chunk = (int) Math.min(buffer.length, length - done);
+                source.copyToArray(startFrom + done, buffer, 0, chunk);
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, chunk);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer, done + byteBuffer.position());
+                }
+                done += chunk;
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            file.delete();
+            throw ex;
+        }
+
+        return new SpillFileBinaryData(file, channel, length);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return dataSize == 0;
+    }
+
+    @Override
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    @Override
+    public synchronized byte getByte(long position) {
+        if (position < 0 || position >= dataSize) {
+            throw new OutOfBoundsException("Position is outside of data");
+        }
+
+        long pageIndex = position / PAGE_SIZE;
+        if (pageIndex != cachedPageIndex) {
+            long pageStart = pageIndex * PAGE_SIZE;
+            read(pageStart, cachedPage, 0, (int) Math.min(PAGE_SIZE, dataSize - pageStart));
+            cachedPageIndex = pageIndex;
+        }
+
+        return cachedPage[(int) (position % PAGE_SIZE)];
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy() {
+        return copy(0, dataSize);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy(long startFrom, long length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > dataSize) {
+            throw new OutOfBoundsException("Copy range is outside of data");
+        }
+
+        PagedData result = new PagedData();
+        long done = 0;
+        while (done < length) {
+            // Exact size chunks are required by some editable data implementations
+            byte[] chunk = new byte[(int) Math.min(BUFFER_SIZE, length - done)];
+            read(startFrom + done, chunk, 0, chunk.length);
+            result.insert(done, chunk);
+            done += chunk.length;
+        }
+        return result;
+    }
+
+    @Override
+    public void copyToArray(long startFrom, byte[] target, int offset, int length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > dataSize) {
+            throw new OutOfBoundsException("Copy range is outside of data");
+        }
+
+        read(startFrom, target, offset, length);
+    }
+
+    @Override
+    public void saveToStream(OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, dataSize)];
+        long done = 0;
+        while (done < dataSize) {
+            int chunk = (int) Math.min(buffer.length, dataSize - done);
+            read(done, buffer, 0, chunk);
+            outputStream.write(buffer, 0, chunk);
+            done += chunk;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getDataInputStream() {
+        return new InputStream() {
+            private long position = 0;
+
+            @Override
+            public int read() {
+                return position < dataSize ? getByte(position++) & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position >= dataSize) {
+                    return -1;
+                }
+
+                int chunk = (int) Math.min(length, dataSize - position);
+                copyToArray(position, buffer, offset, chunk);
+                position += chunk;
+                return chunk;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, dataSize - position);
+            }
+        };
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            Logger.getLogger(SpillFileBinaryData.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        file.delete();
+    }
+
+    private void read(long position, byte[] target, int offset, int length) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(target, offset, length);
+        try {
+            while (byteBuffer.hasRemaining()) {
+                int read = channel.read(byteBuffer, position + byteBuffer.position() - offset);
+                if (read < 0) {
+                    throw new IllegalStateException(BROKEN_SPILL_FILE);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(BROKEN_SPILL_FILE, ex);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.EditableBinaryData;
+import org.exbin.bined.CodeAreaUtils;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.swing.CodeAreaOperation;
+import org.exbin.bined.operation.swing.CodeAreaOperationType;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Byte order swap of range of data.
+ * <p>
+ * Data are processed in units of 2, 4 or 8 bytes starting from the start of
+ * the range, trailing bytes not forming whole unit are kept unchanged.
+ * Operation is its own inverse.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class SwapByteOrderOperation extends CodeAreaOperation implements UndoDataSizeCapable {
+
+    private final long position;
+    private final long length;
+    private final int unitSize;
+
+    public SwapByteOrderOperation(CodeAreaCore codeArea, long position, long length, int unitSize) {
+        super(codeArea);
+        if (unitSize != Short.BYTES && unitSize != Integer.BYTES && unitSize != Long.BYTES) {
+            throw new IllegalArgumentException("Unsupported unit size: " + unitSize);
+        }
+        this.position = position;
+        this.length = length - length % unitSize;
+        this.unitSize = unitSize;
+    }
+
+    @Nonnull
+    @Override
+    public CodeAreaOperationType getType() {
+        return CodeAreaOperationType.MODIFY_DATA;
+    }
+
+    @Override
+    public void execute() throws BinaryDataOperationException {
+        execute(false);
+    }
+
+    @Nullable
+    @Override
+    public CodeAreaOperation executeWithUndo() throws BinaryDataOperationException {
+        return execute(true);
+    }
+
+    @Nullable
+    private CodeAreaOperation execute(boolean withUndo) throws BinaryDataOperationException {
+        EditableBinaryData contentData = CodeAreaUtils.requireNonNull(((EditableBinaryData) codeArea.getContentData()));
+        if (position < 0 || position + length > contentData.getDataSize()) {
+            throw new BinaryDataOperationException("Unable to modify data outside of document");
+        }
+
+        // Memory block size is multiple of all unit sizes
+        FillDataUtils.transformData(contentData, position, length, (block, blockPosition) -> swapBlock(block));
+
+        return withUndo ? new SwapByteOrderOperation(codeArea, position, length, unitSize) : null;
+    }
+
+    @Override
+    public long getUndoDataSize() {
+        // Swapping is reverted by swapping again, no data are kept
+        return 0;
+    }
+
+    private void swapBlock(byte[] block) {
+        ByteBuffer source = ByteBuffer.wrap(block).order(ByteOrder.BIG_ENDIAN);
+        ByteBuffer target = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        switch (unitSize) {
+            case Short.BYTES: {
+                short[] values = new short[block.length / Short.BYTES];
+                source.asShortBuffer().get(values);
+                target.asShortBuffer().put(values);
+                break;
+            }
+            case Integer.BYTES: {
+                int[] values = new int[block.length / Integer.BYTES];
+                source.asIntBuffer().get(values);
+                target.asIntBuffer().put(values);
+                break;
+            }
+            case Long.BYTES: {
+                long[] values = new long[block.length / Long.BYTES];
+                source.asLongBuffer().get(values);
+                target.asLongBuffer().put(values);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unsupported unit size: " + unitSize);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.capability.ScrollingCapable;
+import org.exbin.bined.operation.BinaryDataOperationException;
+import org.exbin.bined.operation.swing.CodeAreaOperation;
+import org.exbin.bined.operation.swing.command.CodeAreaCommand;
+import org.exbin.bined.operation.swing.command.CodeAreaCommandType;
+
+/**
+ * Command for operation transforming range of data in place.
+ * <p>
+ * Undo is performed by operation returned from execution with undo. Size of
+ * undo data is reported by operation if it is undo data size capable.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TransformDataCommand extends CodeAreaCommand implements UndoDataSizeCapable {
+
+    private final CodeAreaOperation operation;
+    private CodeAreaOperation undoOperation;
+
+    public TransformDataCommand(CodeAreaOperation operation) {
+        super(operation.getCodeArea());
+        this.operation = operation;
+    }
+
+    @Override
+    public CodeAreaCommandType getType() {
+        return CodeAreaCommandType.DATA_MODIFIED;
+    }
+
+    @Override
+    public void redo() throws BinaryDataOperationException {
+        undoOperation = operation.executeWithUndo();
+        ((ScrollingCapable) codeArea).revealCursor();
+        codeArea.notifyDataChanged();
+    }
+
+    @Override
+    public void undo() throws BinaryDataOperationException {
+        undoOperation.execute();
+        undoOperation.dispose();
+        undoOperation = null;
+        ((ScrollingCapable) codeArea).revealCursor();
+        codeArea.notifyDataChanged();
+    }
+
+    @Override
+    public boolean canUndo() {
+        return true;
+    }
+
+    @Override
+    public long getUndoDataSize() {
+        return undoOperation != null && operation instanceof UndoDataSizeCapable ? ((UndoDataSizeCapable) operation).getUndoDataSize() : 0;
+    }
+
+    @Override
+    public void dispose() throws BinaryDataOperationException {
+        super.dispose();
+        if (undoOperation != null) {
+            undoOperation.dispose();
+            undoOperation = null;
+        }
+        operation.dispose();
+    }
+}
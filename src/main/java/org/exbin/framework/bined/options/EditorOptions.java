@@ -36,9 +36,17 @@ public interface EditorOptions {
 
     boolean isShowValuesPanel();
 
+    boolean isAutomaticFileHandlingMode();
+
+    int getMemoryModeSizeLimit();
+
     void setEnterKeyHandlingMode(EnterKeyHandlingMode enterKeyHandlingMode);
 
     void setFileHandlingMode(FileHandlingMode fileHandlingMode);
 
     void setShowValuesPanel(boolean showValuesPanel);
+
+    void setAutomaticFileHandlingMode(boolean automaticFileHandlingMode);
+
+    void setMemoryModeSizeLimit(int memoryModeSizeLimit);
 }
@@ -50,6 +50,8 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
     public void saveToOptions(EditorOptionsImpl options) {
         options.setFileHandlingMode(FileHandlingMode.valueOf((String) fileHandlingModeComboBox.getSelectedItem()));
         options.setShowValuesPanel(showValuesPanelCheckBox.isSelected());
+        options.setAutomaticFileHandlingMode(automaticFileHandlingModeCheckBox.isSelected());
+        options.setMemoryModeSizeLimit((Integer) memoryModeSizeLimitSpinner.getValue());
         options.setEnterKeyHandlingMode(EnterKeyHandlingMode.valueOf((String) enterKeyHandlingModeComboBox.getSelectedItem()));
     }
 
@@ -57,6 +59,8 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
     public void loadFromOptions(EditorOptionsImpl options) {
         fileHandlingModeComboBox.setSelectedIndex(options.getFileHandlingMode().ordinal());
         showValuesPanelCheckBox.setSelected(options.isShowValuesPanel());
+        automaticFileHandlingModeCheckBox.setSelected(options.isAutomaticFileHandlingMode());
+        memoryModeSizeLimitSpinner.setValue(options.getMemoryModeSizeLimit());
         enterKeyHandlingModeComboBox.setSelectedIndex(options.getEnterKeyHandlingMode().ordinal());
     }
 
@@ -71,13 +75,22 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
 
         fileHandlingModeLabel = new javax.swing.JLabel();
         fileHandlingModeComboBox = new javax.swing.JComboBox<>();
+        automaticFileHandlingModeCheckBox = new javax.swing.JCheckBox();
+        memoryModeSizeLimitLabel = new javax.swing.JLabel();
+        memoryModeSizeLimitSpinner = new javax.swing.JSpinner();
         showValuesPanelCheckBox = new javax.swing.JCheckBox();
         enterKeyHandlingModeLabel = new javax.swing.JLabel();
         enterKeyHandlingModeComboBox = new javax.swing.JComboBox<>();
 
         fileHandlingModeLabel.setText(resourceBundle.getString("fileHandlingModeLabel.text")); // NOI18N
 
-        fileHandlingModeComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "MEMORY", "DELTA" }));
+        fileHandlingModeComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "MEMORY", "DELTA", "NATIVE" }));
+
+        automaticFileHandlingModeCheckBox.setText(resourceBundle.getString("automaticFileHandlingModeCheckBox.text")); // NOI18N
+
+        memoryModeSizeLimitLabel.setText(resourceBundle.getString("memoryModeSizeLimitLabel.text")); // NOI18N
+
+        memoryModeSizeLimitSpinner.setModel(new javax.swing.SpinnerNumberModel(64, 1, 65536, 1));
 
         showValuesPanelCheckBox.setText(resourceBundle.getString("showValuesPanelCheckBox.text")); // NOI18N
 
@@ -94,9 +107,12 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(fileHandlingModeComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addComponent(showValuesPanelCheckBox, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(automaticFileHandlingModeCheckBox, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(memoryModeSizeLimitSpinner)
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(fileHandlingModeLabel)
+                            .addComponent(memoryModeSizeLimitLabel)
                             .addComponent(enterKeyHandlingModeLabel))
                         .addGap(0, 0, Short.MAX_VALUE))
                     .addComponent(enterKeyHandlingModeComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
@@ -112,6 +128,12 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(fileHandlingModeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(automaticFileHandlingModeCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeSizeLimitLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeSizeLimitSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(enterKeyHandlingModeLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(enterKeyHandlingModeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
@@ -129,10 +151,13 @@ public class EditorOptionsPanel extends javax.swing.JPanel implements OptionsCap
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox automaticFileHandlingModeCheckBox;
     private javax.swing.JComboBox<String> enterKeyHandlingModeComboBox;
     private javax.swing.JLabel enterKeyHandlingModeLabel;
     private javax.swing.JComboBox<String> fileHandlingModeComboBox;
     private javax.swing.JLabel fileHandlingModeLabel;
+    private javax.swing.JLabel memoryModeSizeLimitLabel;
+    private javax.swing.JSpinner memoryModeSizeLimitSpinner;
     private javax.swing.JCheckBox showValuesPanelCheckBox;
     // End of variables declaration//GEN-END:variables
 
@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.bined.basic.EnterKeyHandlingMode;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.FileHandlingModePolicy;
 import org.exbin.framework.bined.preferences.EditorPreferences;
 import org.exbin.framework.options.api.OptionsData;
 
@@ -33,6 +34,8 @@ public class EditorOptionsImpl implements OptionsData, EditorOptions {
 
     private FileHandlingMode fileHandlingMode = FileHandlingMode.DELTA;
     private boolean showValuesPanel = true;
+    private boolean automaticFileHandlingMode = false;
+    private int memoryModeSizeLimit = FileHandlingModePolicy.DEFAULT_MEMORY_MODE_SIZE_LIMIT;
     private EnterKeyHandlingMode enterKeyHandlingMode = EnterKeyHandlingMode.PLATFORM_SPECIFIC;
 
     @Nonnull
@@ -56,6 +59,26 @@ public class EditorOptionsImpl implements OptionsData, EditorOptions {
         this.showValuesPanel = showValuesPanel;
     }
 
+    @Override
+    public boolean isAutomaticFileHandlingMode() {
+        return automaticFileHandlingMode;
+    }
+
+    @Override
+    public void setAutomaticFileHandlingMode(boolean automaticFileHandlingMode) {
+        this.automaticFileHandlingMode = automaticFileHandlingMode;
+    }
+
+    @Override
+    public int getMemoryModeSizeLimit() {
+        return memoryModeSizeLimit;
+    }
+
+    @Override
+    public void setMemoryModeSizeLimit(int memoryModeSizeLimit) {
+        this.memoryModeSizeLimit = memoryModeSizeLimit;
+    }
+
     @Nonnull
     @Override
     public EnterKeyHandlingMode getEnterKeyHandlingMode() {
@@ -70,18 +93,24 @@ public class EditorOptionsImpl implements OptionsData, EditorOptions {
     public void loadFromPreferences(EditorPreferences preferences) {
         fileHandlingMode = preferences.getFileHandlingMode();
         showValuesPanel = preferences.isShowValuesPanel();
+        automaticFileHandlingMode = preferences.isAutomaticFileHandlingMode();
+        memoryModeSizeLimit = preferences.getMemoryModeSizeLimit();
         enterKeyHandlingMode = preferences.getEnterKeyHandlingMode();
     }
 
     public void saveToPreferences(EditorPreferences preferences) {
         preferences.setFileHandlingMode(fileHandlingMode);
         preferences.setShowValuesPanel(showValuesPanel);
+        preferences.setAutomaticFileHandlingMode(automaticFileHandlingMode);
+        preferences.setMemoryModeSizeLimit(memoryModeSizeLimit);
         preferences.setEnterKeyHandlingMode(enterKeyHandlingMode);
     }
 
     public void setOptions(EditorOptionsImpl editorOptions) {
         fileHandlingMode = editorOptions.fileHandlingMode;
         showValuesPanel = editorOptions.showValuesPanel;
+        automaticFileHandlingMode = editorOptions.automaticFileHandlingMode;
+        memoryModeSizeLimit = editorOptions.memoryModeSizeLimit;
         enterKeyHandlingMode = editorOptions.enterKeyHandlingMode;
     }
 }
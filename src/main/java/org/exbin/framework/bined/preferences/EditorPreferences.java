@@ -22,6 +22,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.bined.basic.EnterKeyHandlingMode;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.FileHandlingModePolicy;
 import org.exbin.framework.bined.options.EditorOptions;
 
 /**
@@ -35,6 +36,8 @@ public class EditorPreferences implements EditorOptions {
     public static final String PREFERENCES_FILE_HANDLING_MODE = "fileHandlingMode";
     public static final String PREFERENCES_SHOW_VALUES_PANEL = "valuesPanel";
     public static final String PREFERENCES_ENTER_KEY_HANDLING_MODE = "enterKeyHandlingMode";
+    public static final String PREFERENCES_AUTOMATIC_FILE_HANDLING_MODE = "automaticFileHandlingMode";
+    public static final String PREFERENCES_MEMORY_MODE_SIZE_LIMIT = "memoryModeSizeLimit";
 
     private final Preferences preferences;
 
@@ -69,6 +72,26 @@ public class EditorPreferences implements EditorOptions {
         preferences.putBoolean(PREFERENCES_SHOW_VALUES_PANEL, showValuesPanel);
     }
 
+    @Override
+    public boolean isAutomaticFileHandlingMode() {
+        return preferences.getBoolean(PREFERENCES_AUTOMATIC_FILE_HANDLING_MODE, false);
+    }
+
+    @Override
+    public void setAutomaticFileHandlingMode(boolean automaticFileHandlingMode) {
+        preferences.putBoolean(PREFERENCES_AUTOMATIC_FILE_HANDLING_MODE, automaticFileHandlingMode);
+    }
+
+    @Override
+    public int getMemoryModeSizeLimit() {
+        return preferences.getInt(PREFERENCES_MEMORY_MODE_SIZE_LIMIT, FileHandlingModePolicy.DEFAULT_MEMORY_MODE_SIZE_LIMIT);
+    }
+
+    @Override
+    public void setMemoryModeSizeLimit(int memoryModeSizeLimit) {
+        preferences.putInt(PREFERENCES_MEMORY_MODE_SIZE_LIMIT, memoryModeSizeLimit);
+    }
+
     @Nonnull
     @Override
     public EnterKeyHandlingMode getEnterKeyHandlingMode() {
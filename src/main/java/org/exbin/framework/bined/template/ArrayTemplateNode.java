@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.framework.bined.template.FieldDefinition.FieldType;
+
+/**
+ * Template node of array of repeated field.
+ * <p>
+ * Elements of fixed size are addressed directly, offsets of variable sized
+ * elements are resolved sequentially up to the requested element and cached.
+ * Variable sized elements up to end of data are resolved in batches, further
+ * batch is resolved when requested by placeholder node. Only limited number of
+ * element nodes is kept.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ArrayTemplateNode extends TemplateNode {
+
+    /**
+     * Maximum number of cached element nodes.
+     */
+    public static final int MAX_CACHED_ELEMENTS = 1024;
+    /**
+     * Number of variable sized elements up to end of data resolved at once.
+     */
+    public static final int RESOLVE_BATCH_SIZE = 1024;
+    private static final int INITIAL_OFFSETS_SIZE = 64;
+
+    private final FieldDefinition field;
+    private final long declaredCount;
+    private final long elementLength;
+    private final long fixedElementSize;
+    private long[] offsets = null;
+    private int resolvedOffsets = 0;
+    private boolean offsetsComplete = false;
+    private int resolveLimit = RESOLVE_BATCH_SIZE;
+
+    private final Map<Integer, TemplateNode> elementsCache = new LinkedHashMap<Integer, TemplateNode>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, TemplateNode> eldest) {
+            return size() > MAX_CACHED_ELEMENTS;
+        }
+    };
+
+    /**
+     * Creates new array node.
+     *
+     * @param data data
+     * @param parent parent structure
+     * @param index index in parent
+     * @param name name of field
+     * @param position position of first element
+     * @param field field definition
+     * @param declaredCount count of elements or -1 for elements up to end of
+     * data
+     * @param elementLength length of element for bytes and characters fields
+     * @param byteOrder byte order
+     */
+    public ArrayTemplateNode(BinaryData data, TemplateNode parent, int index, String name, long position, FieldDefinition field, long declaredCount, long elementLength, ByteOrder byteOrder) {
+        super(data, parent, index, name, position, byteOrder);
+        this.field = field;
+        this.declaredCount = declaredCount;
+        this.elementLength = elementLength;
+        fixedElementSize = field.getType() == FieldType.STRUCT ? field.getFixedElementSize() : elementLength;
+    }
+
+    @Override
+    public long getSize() {
+        if (fixedElementSize >= 0) {
+            return declaredCount >= 0 ? declaredCount * fixedElementSize : getChildCount() * fixedElementSize;
+        }
+
+        if (declaredCount >= 0) {
+            resolveOffsets(getChildCount());
+            return offsets[resolvedOffsets - 1] - position;
+        }
+
+        resolveOffsets(resolveLimit);
+        long endPosition = offsets[resolvedOffsets - 1];
+        // Unresolved elements are expected to span up to end of data
+        return (offsetsComplete ? endPosition : Math.max(endPosition, data.getDataSize())) - position;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    @Override
+    public int getChildCount() {
+        long availableData = Math.max(0, data.getDataSize() - position);
+        if (fixedElementSize > 0) {
+            long availableCount = declaredCount >= 0
+                    // Elements starting after end of data are not shown
+                    ? Math.min(declaredCount, (availableData + fixedElementSize - 1) / fixedElementSize)
+                    : availableData / fixedElementSize;
+            return (int) Math.min(Integer.MAX_VALUE, availableCount);
+        }
+        if (fixedElementSize == 0) {
+            return declaredCount >= 0 ? (int) Math.min(Integer.MAX_VALUE, declaredCount) : 0;
+        }
+        if (declaredCount >= 0) {
+            // Each variable sized element covers at least one byte
+            return (int) Math.min(Integer.MAX_VALUE - 1, Math.min(declaredCount, availableData));
+        }
+
+        resolveOffsets(resolveLimit);
+        // Last child is placeholder for further elements if not all resolved
+        return offsetsComplete ? resolvedOffsets - 1 : resolveLimit + 1;
+    }
+
+    @Nonnull
+    @Override
+    public TemplateNode getChild(int childIndex) {
+        if (childIndex == resolveLimit && hasMoreElementsNode()) {
+            return new MoreElementsTemplateNode(data, this, childIndex, offsets[childIndex], byteOrder);
+        }
+
+        return getElement(childIndex);
+    }
+
+    @Nonnull
+    private TemplateNode getElement(int childIndex) {
+        TemplateNode element = elementsCache.get(childIndex);
+        if (element == null) {
+            element = createElementNode(childIndex, getElementPosition(childIndex));
+            elementsCache.put(childIndex, element);
+        }
+        return element;
+    }
+
+    @Nonnull
+    @Override
+    public String getText() {
+        String typeName = field.getType() == FieldType.STRUCT ? field.getStructName() : field.getType().name().toLowerCase(Locale.ROOT);
+        // Count of variable sized elements up to end of data is not known until resolved
+        String countText = fixedElementSize < 0 && declaredCount < 0 && !offsetsComplete ? "" : String.valueOf(getChildCount());
+        return name + " (" + typeName + "[" + countText + "])";
+    }
+
+    /**
+     * Resolves next batch of variable sized elements up to end of data.
+     */
+    public void resolveMoreElements() {
+        if (hasMoreElementsNode()) {
+            resolveLimit = (int) Math.min(Integer.MAX_VALUE - 1, (long) resolveLimit + RESOLVE_BATCH_SIZE);
+        }
+    }
+
+    private boolean hasMoreElementsNode() {
+        return fixedElementSize < 0 && declaredCount < 0 && offsets != null && !offsetsComplete;
+    }
+
+    /**
+     * Returns position of element.
+     *
+     * @param elementIndex element index
+     * @return position
+     */
+    public long getElementPosition(int elementIndex) {
+        if (fixedElementSize >= 0) {
+            return position + elementIndex * fixedElementSize;
+        }
+
+        resolveOffsets(elementIndex);
+        // Elements after end of data are placed at end of last resolved element
+        return offsets[Math.min(elementIndex, resolvedOffsets - 1)];
+    }
+
+    /**
+     * Resolves offsets of variable sized elements up to given index.
+     *
+     * @param elementIndex element index
+     */
+    private void resolveOffsets(int elementIndex) {
+        if (offsets == null) {
+            offsets = new long[INITIAL_OFFSETS_SIZE];
+            offsets[0] = position;
+            resolvedOffsets = 1;
+        }
+
+        long dataSize = data.getDataSize();
+        while (!offsetsComplete) {
+            int previousIndex = resolvedOffsets - 1;
+            long previousOffset = offsets[previousIndex];
+            if ((declaredCount >= 0 && previousIndex >= declaredCount) || previousOffset >= dataSize || previousIndex == Integer.MAX_VALUE - 1) {
+                offsetsComplete = true;
+                break;
+            }
+            if (resolvedOffsets > elementIndex) {
+                break;
+            }
+
+            long elementSize = getElement(previousIndex).getSize();
+            if (elementSize <= 0) {
+                offsetsComplete = true;
+                break;
+            }
+
+            if (resolvedOffsets == offsets.length) {
+                offsets = Arrays.copyOf(offsets, (int) Math.min(Integer.MAX_VALUE - 1, offsets.length * 2l));
+            }
+            offsets[resolvedOffsets] = previousOffset + elementSize;
+            resolvedOffsets++;
+        }
+    }
+
+    @Nonnull
+    private TemplateNode createElementNode(int elementIndex, long elementPosition) {
+        String elementName = "[" + elementIndex + "]";
+        if (field.getType() == FieldType.STRUCT) {
+            StructDefinition struct = field.getStructDefinition();
+            if (struct == null) {
+                throw new IllegalStateException("Unresolved structure " + field.getStructName());
+            }
+            ByteOrder elementByteOrder = struct.getByteOrder() == null ? byteOrder : struct.getByteOrder();
+            return new StructTemplateNode(data, this, elementIndex, elementName, elementPosition, struct, elementByteOrder);
+        }
+
+        return new ValueTemplateNode(data, this, elementIndex, elementName, elementPosition, field, elementLength, byteOrder);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Definition of field of structure template.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FieldDefinition {
+
+    private final String name;
+    private final FieldType type;
+    private final String structName;
+    private final SizeExpression count;
+    private final SizeExpression length;
+    private final Charset charset;
+    private StructDefinition structDefinition = null;
+
+    public FieldDefinition(String name, FieldType type, @Nullable String structName, @Nullable SizeExpression count, @Nullable SizeExpression length, Charset charset) {
+        this.name = name;
+        this.type = type;
+        this.structName = structName;
+        this.count = count;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    public FieldType getType() {
+        return type;
+    }
+
+    @Nullable
+    public String getStructName() {
+        return structName;
+    }
+
+    /**
+     * Returns count of repetitions of field.
+     *
+     * @return count expression or null if field is not an array
+     */
+    @Nullable
+    public SizeExpression getCount() {
+        return count;
+    }
+
+    /**
+     * Returns length of bytes or characters field.
+     *
+     * @return length expression or null for other types
+     */
+    @Nullable
+    public SizeExpression getLength() {
+        return length;
+    }
+
+    @Nonnull
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Nullable
+    public StructDefinition getStructDefinition() {
+        return structDefinition;
+    }
+
+    void setStructDefinition(StructDefinition structDefinition) {
+        this.structDefinition = structDefinition;
+    }
+
+    /**
+     * Returns size of single element of field if it doesn't depend on data.
+     *
+     * @return size in bytes or -1 if size is variable
+     */
+    public long getFixedElementSize() {
+        switch (type) {
+            case BYTES:
+            case CHARS:
+                return length != null && length.isLiteral() ? length.getValue() : -1;
+            case STRUCT:
+                return structDefinition == null ? -1 : structDefinition.getFixedSize();
+            default:
+                return type.getSize();
+        }
+    }
+
+    /**
+     * Returns size of whole field if it doesn't depend on data.
+     *
+     * @return size in bytes or -1 if size is variable
+     */
+    public long getFixedSize() {
+        long elementSize = getFixedElementSize();
+        if (elementSize < 0 || count == null) {
+            return elementSize;
+        }
+
+        return count.isLiteral() ? elementSize * count.getValue() : -1;
+    }
+
+    /**
+     * Type of field.
+     */
+    public enum FieldType {
+        INT8(1, true),
+        UINT8(1, true),
+        INT16(2, true),
+        UINT16(2, true),
+        INT32(4, true),
+        UINT32(4, true),
+        INT64(8, true),
+        UINT64(8, true),
+        FLOAT32(4, false),
+        FLOAT64(8, false),
+        BYTES(0, false),
+        CHARS(0, false),
+        STRUCT(0, false);
+
+        private final int size;
+        private final boolean integer;
+
+        private FieldType(int size, boolean integer) {
+            this.size = size;
+            this.integer = integer;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isInteger() {
+            return integer;
+        }
+
+        public boolean isPrimitive() {
+            return size > 0;
+        }
+
+        /**
+         * Returns type for name used in template definition.
+         *
+         * @param typeName type name
+         * @return field type or null if name is not built-in type
+         */
+        @Nullable
+        public static FieldType forName(String typeName) {
+            if (STRUCT.name().equalsIgnoreCase(typeName)) {
+                return null;
+            }
+            try {
+                return FieldType.valueOf(typeName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Count or length of field given as number, reference to preceding integer
+     * field of the same structure or as remaining data.
+     */
+    @ParametersAreNonnullByDefault
+    public static class SizeExpression {
+
+        public static final String REMAINING = "*";
+
+        private final long value;
+        private final String reference;
+
+        private SizeExpression(long value, @Nullable String reference) {
+            this.value = value;
+            this.reference = reference;
+        }
+
+        @Nonnull
+        public static SizeExpression parse(String expression) {
+            String text = expression.trim();
+            if (REMAINING.equals(text)) {
+                return new SizeExpression(-1, null);
+            }
+
+            try {
+                long value = text.startsWith("0x") ? Long.parseLong(text.substring(2), 16) : Long.parseLong(text);
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative size: " + text);
+                }
+                return new SizeExpression(value, null);
+            } catch (NumberFormatException ex) {
+                return new SizeExpression(-1, text);
+            }
+        }
+
+        public boolean isLiteral() {
+            return value >= 0;
+        }
+
+        public boolean isRemaining() {
+            return value < 0 && reference == null;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        @Nullable
+        public String getReference() {
+            return reference;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.ByteOrder;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+
+/**
+ * Placeholder node for elements of array not resolved yet.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class MoreElementsTemplateNode extends TemplateNode {
+
+    public MoreElementsTemplateNode(BinaryData data, ArrayTemplateNode parent, int index, long position, ByteOrder byteOrder) {
+        super(data, parent, index, "...", position, byteOrder);
+    }
+
+    /**
+     * Resolves next batch of elements of parent array.
+     */
+    public void resolveMoreElements() {
+        ((ArrayTemplateNode) parent).resolveMoreElements();
+    }
+
+    @Override
+    public long getSize() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return true;
+    }
+
+    @Override
+    public int getChildCount() {
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public TemplateNode getChild(int childIndex) {
+        throw new IndexOutOfBoundsException("Placeholder node has no children");
+    }
+
+    @Nonnull
+    @Override
+    public String getText() {
+        return name + " (more elements)";
+    }
+}
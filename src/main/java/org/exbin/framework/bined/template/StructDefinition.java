@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Definition of structure template.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StructDefinition {
+
+    private static final long SIZE_UNKNOWN = -2;
+    private static final long SIZE_IN_PROGRESS = -3;
+
+    private final String name;
+    private final ByteOrder byteOrder;
+    private final List<FieldDefinition> fields;
+    private long fixedSize = SIZE_UNKNOWN;
+
+    /**
+     * Creates new structure definition.
+     *
+     * @param name name of structure
+     * @param byteOrder byte order or null to inherit from enclosing structure
+     * @param fields fields
+     */
+    public StructDefinition(String name, @Nullable ByteOrder byteOrder, List<FieldDefinition> fields) {
+        this.name = name;
+        this.byteOrder = byteOrder;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    @Nonnull
+    public List<FieldDefinition> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns index of field of given name.
+     *
+     * @param fieldName field name
+     * @return index or -1 if not found
+     */
+    public int getFieldIndex(String fieldName) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns size of structure if it doesn't depend on data.
+     *
+     * @return size in bytes or -1 if size is variable
+     */
+    public long getFixedSize() {
+        if (fixedSize == SIZE_IN_PROGRESS) {
+            // Recursive structure
+            return -1;
+        }
+        if (fixedSize == SIZE_UNKNOWN) {
+            fixedSize = SIZE_IN_PROGRESS;
+            long size = 0;
+            for (FieldDefinition field : fields) {
+                long fieldSize = field.getFixedSize();
+                if (fieldSize < 0) {
+                    size = -1;
+                    break;
+                }
+                size += fieldSize;
+            }
+            fixedSize = size;
+        }
+        return fixedSize;
+    }
+}
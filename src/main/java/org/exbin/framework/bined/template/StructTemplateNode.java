@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.framework.bined.template.FieldDefinition.FieldType;
+import org.exbin.framework.bined.template.FieldDefinition.SizeExpression;
+
+/**
+ * Template node of structure instance.
+ * <p>
+ * Offsets of fields are resolved sequentially up to the requested field and
+ * cached, fields of fixed size are skipped without decoding.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StructTemplateNode extends TemplateNode {
+
+    private final StructDefinition struct;
+    private final TemplateNode[] children;
+    private final long[] offsets;
+    private int resolvedOffsets = 1;
+
+    public StructTemplateNode(BinaryData data, @Nullable TemplateNode parent, int index, String name, long position, StructDefinition struct, ByteOrder byteOrder) {
+        super(data, parent, index, name, position, byteOrder);
+        this.struct = struct;
+        int fieldsCount = struct.getFields().size();
+        children = new TemplateNode[fieldsCount];
+        offsets = new long[fieldsCount + 1];
+        offsets[0] = position;
+    }
+
+    @Nonnull
+    public StructDefinition getStruct() {
+        return struct;
+    }
+
+    @Override
+    public long getSize() {
+        long fixedSize = struct.getFixedSize();
+        if (fixedSize >= 0) {
+            return fixedSize;
+        }
+
+        return getFieldOffset(children.length) - position;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return children.length == 0;
+    }
+
+    @Override
+    public int getChildCount() {
+        return children.length;
+    }
+
+    @Nonnull
+    @Override
+    public TemplateNode getChild(int childIndex) {
+        TemplateNode child = children[childIndex];
+        if (child == null) {
+            child = createFieldNode(childIndex, getFieldOffset(childIndex));
+            children[childIndex] = child;
+        }
+        return child;
+    }
+
+    @Nonnull
+    @Override
+    public String getText() {
+        return name + " (" + struct.getName() + ")";
+    }
+
+    /**
+     * Returns data position of field, resolving offsets of preceding fields.
+     *
+     * @param fieldIndex field index, or count of fields for end of structure
+     * @return position
+     */
+    public long getFieldOffset(int fieldIndex) {
+        List<FieldDefinition> fields = struct.getFields();
+        while (resolvedOffsets <= fieldIndex) {
+            int previousIndex = resolvedOffsets - 1;
+            long fieldSize = fields.get(previousIndex).getFixedSize();
+            if (fieldSize < 0) {
+                fieldSize = getChild(previousIndex).getSize();
+            }
+            offsets[resolvedOffsets] = offsets[previousIndex] + fieldSize;
+            resolvedOffsets++;
+        }
+        return offsets[fieldIndex];
+    }
+
+    @Nonnull
+    private TemplateNode createFieldNode(int fieldIndex, long fieldPosition) {
+        FieldDefinition field = struct.getFields().get(fieldIndex);
+        FieldType type = field.getType();
+        long elementLength;
+        if (type == FieldType.BYTES || type == FieldType.CHARS) {
+            elementLength = resolveSize(field.getLength(), fieldPosition);
+        } else {
+            elementLength = type.getSize();
+        }
+
+        if (field.getCount() != null) {
+            long count = resolveSize(field.getCount(), -1);
+            return new ArrayTemplateNode(data, this, fieldIndex, field.getName(), fieldPosition, field, count, elementLength, byteOrder);
+        }
+
+        if (type == FieldType.STRUCT) {
+            StructDefinition fieldStruct = field.getStructDefinition();
+            if (fieldStruct == null) {
+                throw new IllegalStateException("Unresolved structure " + field.getStructName());
+            }
+            ByteOrder fieldByteOrder = fieldStruct.getByteOrder() == null ? byteOrder : fieldStruct.getByteOrder();
+            return new StructTemplateNode(data, this, fieldIndex, field.getName(), fieldPosition, fieldStruct, fieldByteOrder);
+        }
+
+        return new ValueTemplateNode(data, this, fieldIndex, field.getName(), fieldPosition, field, elementLength, byteOrder);
+    }
+
+    /**
+     * Resolves size expression in context of this structure.
+     *
+     * @param expression expression
+     * @param remainingFrom position from which remaining data are counted or
+     * -1 to return -1 for remaining data
+     * @return size
+     */
+    private long resolveSize(@Nullable SizeExpression expression, long remainingFrom) {
+        if (expression == null) {
+            return 0;
+        }
+        if (expression.isLiteral()) {
+            return expression.getValue();
+        }
+        if (expression.isRemaining()) {
+            return remainingFrom < 0 ? -1 : Math.max(0, data.getDataSize() - remainingFrom);
+        }
+
+        int referenceIndex = struct.getFieldIndex(expression.getReference());
+        TemplateNode referenceNode = getChild(referenceIndex);
+        long value = referenceNode instanceof ValueTemplateNode ? ((ValueTemplateNode) referenceNode).getIntegerValue() : 0;
+        return Math.max(0, value);
+    }
+}
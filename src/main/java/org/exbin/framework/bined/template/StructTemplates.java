@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.framework.bined.template.FieldDefinition.FieldType;
+import org.exbin.framework.bined.template.FieldDefinition.SizeExpression;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Set of structure templates loaded from XML definition.
+ * <p>
+ * Definition consists of <code>struct</code> elements with <code>field</code>
+ * children and <code>template</code> elements naming structure to apply. Field
+ * type is either built-in type or name of another structure, count and length
+ * are numbers, <code>*</code> for remaining data or name of preceding integer
+ * field of the same structure.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StructTemplates {
+
+    public static final String BUILT_IN_TEMPLATES_RESOURCE = "/org/exbin/framework/bined/template/resources/templates.xml";
+
+    private final Map<String, StructDefinition> structs;
+    private final List<Template> templates;
+
+    private StructTemplates(Map<String, StructDefinition> structs, List<Template> templates) {
+        this.structs = Collections.unmodifiableMap(structs);
+        this.templates = Collections.unmodifiableList(templates);
+    }
+
+    @Nonnull
+    public Map<String, StructDefinition> getStructs() {
+        return structs;
+    }
+
+    @Nonnull
+    public List<Template> getTemplates() {
+        return templates;
+    }
+
+    /**
+     * Creates lazily decoded tree of template applied to data.
+     *
+     * @param template template
+     * @param data data
+     * @param position start position
+     * @return root node
+     */
+    @Nonnull
+    public static TemplateNode createRootNode(Template template, BinaryData data, long position) {
+        StructDefinition struct = template.getStruct();
+        ByteOrder byteOrder = struct.getByteOrder() == null ? ByteOrder.LITTLE_ENDIAN : struct.getByteOrder();
+        return new StructTemplateNode(data, null, 0, template.getName(), position, struct, byteOrder);
+    }
+
+    /**
+     * Loads templates bundled with application.
+     *
+     * @return templates
+     * @throws IOException if loading fails
+     */
+    @Nonnull
+    public static StructTemplates loadBuiltInTemplates() throws IOException {
+        try (InputStream stream = StructTemplates.class.getResourceAsStream(BUILT_IN_TEMPLATES_RESOURCE)) {
+            if (stream == null) {
+                throw new IOException("Missing resource " + BUILT_IN_TEMPLATES_RESOURCE);
+            }
+            return load(stream);
+        }
+    }
+
+    /**
+     * Loads templates from XML definition.
+     *
+     * @param stream input stream
+     * @return templates
+     * @throws IOException if reading fails or definition is not valid
+     */
+    @Nonnull
+    public static StructTemplates load(InputStream stream) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            dbf.setIgnoringComments(true);
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            document = db.parse(stream);
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Invalid templates definition", ex);
+        }
+
+        Map<String, StructDefinition> structs = new LinkedHashMap<>();
+        List<Template> templates = new ArrayList<>();
+        List<Element> templateElements = new ArrayList<>();
+        for (Element element : getChildElements(document.getDocumentElement())) {
+            switch (element.getTagName()) {
+                case "struct": {
+                    StructDefinition struct = parseStruct(element);
+                    if (structs.put(struct.getName(), struct) != null) {
+                        throw new IOException("Duplicate structure " + struct.getName());
+                    }
+                    break;
+                }
+                case "template": {
+                    templateElements.add(element);
+                    break;
+                }
+                default:
+                    throw new IOException("Unexpected element " + element.getTagName());
+            }
+        }
+
+        for (StructDefinition struct : structs.values()) {
+            for (FieldDefinition field : struct.getFields()) {
+                if (field.getType() == FieldType.STRUCT) {
+                    StructDefinition fieldStruct = structs.get(field.getStructName());
+                    if (fieldStruct == null) {
+                        throw new IOException("Unknown type " + field.getStructName() + " of field " + struct.getName() + "." + field.getName());
+                    }
+                    field.setStructDefinition(fieldStruct);
+                }
+            }
+        }
+
+        for (Element element : templateElements) {
+            String structName = requireAttribute(element, "struct");
+            StructDefinition struct = structs.get(structName);
+            if (struct == null) {
+                throw new IOException("Unknown structure " + structName + " of template");
+            }
+            String name = element.getAttribute("name");
+            templates.add(new Template(name.isEmpty() ? structName : name, struct));
+        }
+
+        return new StructTemplates(structs, templates);
+    }
+
+    @Nonnull
+    private static StructDefinition parseStruct(Element element) throws IOException {
+        String name = requireAttribute(element, "name");
+        ByteOrder byteOrder = parseByteOrder(element.getAttribute("endian"));
+        List<FieldDefinition> fields = new ArrayList<>();
+        for (Element fieldElement : getChildElements(element)) {
+            if (!"field".equals(fieldElement.getTagName())) {
+                throw new IOException("Unexpected element " + fieldElement.getTagName() + " in structure " + name);
+            }
+            FieldDefinition field = parseField(fieldElement);
+            validateReference(name, fields, field.getCount());
+            validateReference(name, fields, field.getLength());
+            fields.add(field);
+        }
+        return new StructDefinition(name, byteOrder, fields);
+    }
+
+    @Nonnull
+    private static FieldDefinition parseField(Element element) throws IOException {
+        String name = requireAttribute(element, "name");
+        String typeName = requireAttribute(element, "type");
+        FieldType type = FieldType.forName(typeName);
+        SizeExpression count = parseSize(element.getAttribute("count"));
+        SizeExpression length = parseSize(element.getAttribute("length"));
+        if ((type == FieldType.BYTES || type == FieldType.CHARS) != (length != null)) {
+            throw new IOException("Length is required for bytes and chars fields only: " + name);
+        }
+
+        Charset charset = StandardCharsets.ISO_8859_1;
+        String encoding = element.getAttribute("encoding");
+        if (!encoding.isEmpty()) {
+            try {
+                charset = Charset.forName(encoding);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Unsupported encoding " + encoding, ex);
+            }
+        }
+
+        if (type == null) {
+            return new FieldDefinition(name, FieldType.STRUCT, typeName, count, null, charset);
+        }
+        return new FieldDefinition(name, type, null, count, length, charset);
+    }
+
+    private static void validateReference(String structName, List<FieldDefinition> precedingFields, @Nullable SizeExpression expression) throws IOException {
+        if (expression == null || expression.getReference() == null) {
+            return;
+        }
+
+        String reference = expression.getReference();
+        for (FieldDefinition field : precedingFields) {
+            if (field.getName().equals(reference)) {
+                if (!field.getType().isInteger() || field.getCount() != null) {
+                    throw new IOException("Field " + structName + "." + reference + " is not single integer value");
+                }
+                return;
+            }
+        }
+        throw new IOException("Unknown field " + reference + " referenced in structure " + structName);
+    }
+
+    @Nullable
+    private static SizeExpression parseSize(String text) throws IOException {
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return SizeExpression.parse(text);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    @Nullable
+    private static ByteOrder parseByteOrder(String endian) throws IOException {
+        switch (endian) {
+            case "":
+                return null;
+            case "little":
+                return ByteOrder.LITTLE_ENDIAN;
+            case "big":
+                return ByteOrder.BIG_ENDIAN;
+            default:
+                throw new IOException("Invalid endian " + endian);
+        }
+    }
+
+    @Nonnull
+    private static String requireAttribute(Element element, String attributeName) throws IOException {
+        String value = element.getAttribute(attributeName);
+        if (value.isEmpty()) {
+            throw new IOException("Missing attribute " + attributeName + " of element " + element.getTagName());
+        }
+        return value;
+    }
+
+    @Nonnull
+    private static List<Element> getChildElements(Element element) {
+        List<Element> elements = new ArrayList<>();
+        NodeList childNodes = element.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node node = childNodes.item(i);
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) node);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Named structure applicable to data.
+     */
+    @ParametersAreNonnullByDefault
+    public static class Template {
+
+        private final String name;
+        private final StructDefinition struct;
+
+        public Template(String name, StructDefinition struct) {
+            this.name = name;
+            this.struct = struct;
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        @Nonnull
+        public StructDefinition getStruct() {
+            return struct;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.CodeAreaSection;
+import org.exbin.bined.highlight.swing.extended.ExtendedHighlightNonAsciiCodeAreaPainter;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Code area painter highlighting fields of structure template.
+ * <p>
+ * Fields are highlighted separately from search matches, so that search
+ * results are kept while template is shown.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TemplateFieldsCodeAreaPainter extends ExtendedHighlightNonAsciiCodeAreaPainter {
+
+    private List<FieldRange> fieldRanges = Collections.emptyList();
+    private FieldRange selectedRange = null;
+    private Color fieldColor = new Color(210, 225, 255);
+    private Color selectedFieldColor = new Color(150, 185, 255);
+
+    public TemplateFieldsCodeAreaPainter(CodeAreaCore codeArea) {
+        super(codeArea);
+    }
+
+    /**
+     * Sets fields to highlight.
+     *
+     * @param fields visible fields
+     * @param selectedField selected field or null
+     */
+    public void setFields(List<TemplateNode> fields, @Nullable TemplateNode selectedField) {
+        long dataSize = codeArea.getDataSize();
+        List<FieldRange> ranges = new ArrayList<>();
+        for (TemplateNode field : fields) {
+            FieldRange range = createRange(field, dataSize);
+            if (range != null) {
+                ranges.add(range);
+            }
+        }
+        fieldRanges = ranges;
+        selectedRange = selectedField == null ? null : createRange(selectedField, dataSize);
+        codeArea.repaint();
+    }
+
+    public void clearFields() {
+        fieldRanges = Collections.emptyList();
+        selectedRange = null;
+        codeArea.repaint();
+    }
+
+    @Nullable
+    private static FieldRange createRange(TemplateNode field, long dataSize) {
+        long position = field.getPosition();
+        long length = Math.min(field.getSize(), dataSize - position);
+        return length > 0 ? new FieldRange(position, length) : null;
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionBackgroundColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean unprintables) {
+        Color color = super.getPositionBackgroundColor(rowDataPosition, byteOnRow, charOnRow, section, unprintables);
+        if (isMatchColor(color)) {
+            return color;
+        }
+
+        long position = rowDataPosition + byteOnRow;
+        if (selectedRange != null && selectedRange.contains(position)) {
+            return selectedFieldColor;
+        }
+        for (FieldRange range : fieldRanges) {
+            if (range.contains(position)) {
+                return fieldColor;
+            }
+        }
+
+        return color;
+    }
+
+    private boolean isMatchColor(@Nullable Color color) {
+        return color != null && !getMatches().isEmpty()
+                && (color.equals(getCurrentMatchBackgroundColor()) || color.equals(getFoundMatchesBackgroundColor()));
+    }
+
+    @Nonnull
+    public Color getFieldColor() {
+        return fieldColor;
+    }
+
+    public void setFieldColor(Color fieldColor) {
+        this.fieldColor = fieldColor;
+    }
+
+    @Nonnull
+    public Color getSelectedFieldColor() {
+        return selectedFieldColor;
+    }
+
+    public void setSelectedFieldColor(Color selectedFieldColor) {
+        this.selectedFieldColor = selectedFieldColor;
+    }
+
+    private static class FieldRange {
+
+        private final long position;
+        private final long length;
+
+        private FieldRange(long position, long length) {
+            this.position = position;
+            this.length = length;
+        }
+
+        private boolean contains(long dataPosition) {
+            return dataPosition >= position && dataPosition < position + length;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+
+/**
+ * Node of structure template applied to data.
+ * <p>
+ * Nodes are decoded lazily, children and values are computed only when
+ * requested. Nodes are identified by parent, index and position so that
+ * recreated nodes are equal to previously dropped ones.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public abstract class TemplateNode {
+
+    protected final BinaryData data;
+    protected final TemplateNode parent;
+    protected final int index;
+    protected final String name;
+    protected final long position;
+    protected final ByteOrder byteOrder;
+
+    public TemplateNode(BinaryData data, @Nullable TemplateNode parent, int index, String name, long position, ByteOrder byteOrder) {
+        this.data = data;
+        this.parent = parent;
+        this.index = index;
+        this.name = name;
+        this.position = position;
+        this.byteOrder = byteOrder;
+    }
+
+    @Nullable
+    public TemplateNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns index of node within parent node.
+     *
+     * @return index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns size of data covered by node.
+     *
+     * @return size in bytes
+     */
+    public abstract long getSize();
+
+    public abstract boolean isLeaf();
+
+    public abstract int getChildCount();
+
+    @Nonnull
+    public abstract TemplateNode getChild(int childIndex);
+
+    /**
+     * Returns text representation of node, values are decoded on first call.
+     *
+     * @return text
+     */
+    @Nonnull
+    public abstract String getText();
+
+    /**
+     * Returns true if whole node lies within data.
+     *
+     * @return true if available
+     */
+    public boolean isAvailable() {
+        return position + getSize() <= data.getDataSize();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return getText();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parent, index, position);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TemplateNode other = (TemplateNode) obj;
+        return index == other.index && position == other.position && name.equals(other.name) && Objects.equals(parent, other.parent);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.template;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.paged_data.BinaryData;
+import org.exbin.bined.CodeAreaUtils;
+
+/**
+ * Template node of single value.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ValueTemplateNode extends TemplateNode {
+
+    public static final String OUT_OF_DATA_TEXT = "(out of data)";
+    /**
+     * Maximum number of bytes shown for bytes field.
+     */
+    public static final int MAX_BYTES_PREVIEW = 16;
+    /**
+     * Maximum number of bytes decoded for characters field.
+     */
+    public static final int MAX_CHARS_PREVIEW = 64;
+    private static final BigInteger UNSIGNED_LONG_OFFSET = BigInteger.ONE.shiftLeft(64);
+
+    private final FieldDefinition field;
+    private final long size;
+    private String valueText = null;
+
+    public ValueTemplateNode(BinaryData data, TemplateNode parent, int index, String name, long position, FieldDefinition field, long size, ByteOrder byteOrder) {
+        super(data, parent, index, name, position, byteOrder);
+        this.field = field;
+        this.size = size;
+    }
+
+    @Nonnull
+    public FieldDefinition getField() {
+        return field;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return true;
+    }
+
+    @Override
+    public int getChildCount() {
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public TemplateNode getChild(int childIndex) {
+        throw new IndexOutOfBoundsException("Value node has no children");
+    }
+
+    @Nonnull
+    @Override
+    public String getText() {
+        return name + ": " + getValueText();
+    }
+
+    /**
+     * Returns decoded value as text.
+     *
+     * @return text
+     */
+    @Nonnull
+    public String getValueText() {
+        if (valueText == null) {
+            valueText = decodeValueText();
+        }
+        return valueText;
+    }
+
+    /**
+     * Returns value of integer field.
+     *
+     * @return value or 0 if value is not available
+     */
+    public long getIntegerValue() {
+        if (!field.getType().isInteger() || !isAvailable()) {
+            return 0;
+        }
+
+        ByteBuffer buffer = read((int) size);
+        switch (field.getType()) {
+            case INT8:
+                return buffer.get(0);
+            case UINT8:
+                return buffer.get(0) & 0xffl;
+            case INT16:
+                return buffer.getShort(0);
+            case UINT16:
+                return buffer.getShort(0) & 0xffffl;
+            case INT32:
+                return buffer.getInt(0);
+            case UINT32:
+                return buffer.getInt(0) & 0xffffffffl;
+            case INT64:
+            case UINT64:
+                return buffer.getLong(0);
+            default:
+                throw CodeAreaUtils.getInvalidTypeException(field.getType());
+        }
+    }
+
+    @Nonnull
+    private String decodeValueText() {
+        FieldDefinition.FieldType type = field.getType();
+        switch (type) {
+            case BYTES: {
+                int previewLength = (int) Math.min(size, MAX_BYTES_PREVIEW);
+                if (position + previewLength > data.getDataSize()) {
+                    return OUT_OF_DATA_TEXT;
+                }
+                ByteBuffer buffer = read(previewLength);
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < previewLength; i++) {
+                    if (i > 0) {
+                        builder.append(' ');
+                    }
+                    builder.append(String.format("%02X", buffer.get(i) & 0xff));
+                }
+                if (previewLength < size) {
+                    builder.append(" ...");
+                }
+                return builder.toString();
+            }
+            case CHARS: {
+                int previewLength = (int) Math.min(size, MAX_CHARS_PREVIEW);
+                if (position + previewLength > data.getDataSize()) {
+                    return OUT_OF_DATA_TEXT;
+                }
+                String text = new String(read(previewLength).array(), field.getCharset());
+                StringBuilder builder = new StringBuilder("\"");
+                for (int i = 0; i < text.length(); i++) {
+                    char character = text.charAt(i);
+                    builder.append(Character.isISOControl(character) ? '.' : character);
+                }
+                builder.append('"');
+                if (previewLength < size) {
+                    builder.append(" ...");
+                }
+                return builder.toString();
+            }
+            case FLOAT32:
+                return isAvailable() ? String.valueOf(read(Float.BYTES).getFloat(0)) : OUT_OF_DATA_TEXT;
+            case FLOAT64:
+                return isAvailable() ? String.valueOf(read(Double.BYTES).getDouble(0)) : OUT_OF_DATA_TEXT;
+            case UINT64: {
+                if (!isAvailable()) {
+                    return OUT_OF_DATA_TEXT;
+                }
+                long value = getIntegerValue();
+                return value >= 0 ? String.valueOf(value) : BigInteger.valueOf(value).add(UNSIGNED_LONG_OFFSET).toString();
+            }
+            default:
+                return isAvailable() ? String.valueOf(getIntegerValue()) : OUT_OF_DATA_TEXT;
+        }
+    }
+
+    @Nonnull
+    private ByteBuffer read(int length) {
+        byte[] bytes = new byte[length];
+        data.copyToArray(position, bytes, 0, length);
+        return ByteBuffer.wrap(bytes).order(byteOrder);
+    }
+}